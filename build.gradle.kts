@@ -4,6 +4,7 @@ plugins {
     id("org.javamodularity.moduleplugin") version "1.8.15"
     id("org.openjfx.javafxplugin") version "0.0.13"
     id("com.github.johnrengelman.shadow") version "8.1.1"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "container.kitty"
@@ -46,6 +47,32 @@ tasks.withType<Test> {
     useJUnitPlatform()
 }
 
+// tests are patched into the module; HttpManifestSourceTest serves files with the JDK's HttpServer
+tasks.named<JavaCompile>("compileTestJava") {
+    extensions.configure<org.javamodularity.moduleplugin.extensions.CompileTestModuleOptions> {
+        addModules = listOf("jdk.httpserver")
+        addReads = mapOf("container.kitty" to "jdk.httpserver")
+    }
+}
+
+tasks.named<Test>("test") {
+    extensions.configure<org.javamodularity.moduleplugin.extensions.TestModuleOptions> {
+        addModules = listOf("jdk.httpserver")
+        addReads = mapOf("container.kitty" to "jdk.httpserver")
+    }
+}
+
+// ./gradlew jmh [-PjmhIncludes=DockerPs] -- results are kept as JSON to compare runs between builds
+jmh {
+    jmhVersion.set("1.37")
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("reports/jmh/results.json"))
+    providers.gradleProperty("jmhIncludes").orNull?.let { includes.set(listOf(it)) }
+}
+
 tasks.named<com.github.jengelman.gradle.plugins.shadow.tasks.ShadowJar>("shadowJar") {
     archiveBaseName.set("container-kitty-launcher")
     archiveClassifier.set("")
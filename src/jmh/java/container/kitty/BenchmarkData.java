@@ -0,0 +1,119 @@
+package container.kitty;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/** Deterministic, realistically shaped inputs for the benchmarks. */
+final class BenchmarkData {
+
+    static final String[] SERVICES = {"postgres", "redis", "api", "worker", "frontend", "nginx", "kafka", "zookeeper"};
+    private static final String[] STATUSES = {"Up 3 hours", "Up 12 minutes (healthy)", "Up 2 days (unhealthy)", "Exited (0) 5 minutes ago"};
+
+    private BenchmarkData() { }
+
+    /** Lines in the former "|"-separated {@code docker ps} format, kept as the parsing baseline. */
+    static List<String> psLines(int count) {
+        Random random = new Random(42);
+        List<String> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String project = project(i / SERVICES.length);
+            String service = SERVICES[i % SERVICES.length];
+            lines.add(containerId(random) + "|" + project + "-" + service + "-1|registry.example.com/team/" + service
+                    + ":1." + (i % 20) + "|" + STATUSES[random.nextInt(STATUSES.length)] + "|" + project + "|"
+                    + (random.nextInt(59) + 1) + " minutes ago");
+        }
+        return lines;
+    }
+
+    /** The same containers as printed by {@code docker ps --format DockerPsParser.FORMAT}. */
+    static byte[] psJson(int count) {
+        StringBuilder sb = new StringBuilder(count * 256);
+        List<String> lines = psLines(count);
+        for (int i = 0; i < lines.size(); i++) {
+            String[] parts = lines.get(i).split("\\|");
+            sb.append("{\"id\":\"").append(parts[0])
+                    .append("\",\"name\":\"").append(parts[1])
+                    .append("\",\"image\":\"").append(parts[2])
+                    .append("\",\"status\":\"").append(parts[3])
+                    .append("\",\"project\":\"").append(parts[4])
+                    .append("\",\"service\":\"").append(SERVICES[i % SERVICES.length]).append("\"}\n");
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static List<ContainerState> containerStates(int count) {
+        try {
+            return new DockerPsParser().parse(new ByteArrayInputStream(psJson(count)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static List<ContainerInfo> containerInfos(int count) {
+        List<ContainerInfo> infos = new ArrayList<>(count);
+        for (ContainerState state : containerStates(count)) {
+            infos.add(new ContainerInfo(state));
+        }
+        return infos;
+    }
+
+    /** A versions.json with the given number of compositions and versions. */
+    static String manifestJson(int compositions, int versions) {
+        StringBuilder sb = new StringBuilder(128 * (compositions + versions));
+        sb.append("{\"compositions\":[");
+        for (int i = 0; i < compositions; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"name\":\"composition-").append(i)
+                    .append("\",\"comment\":\"Stack ").append(i).append(" with ").append(SERVICES[i % SERVICES.length])
+                    .append(" and friends\"}");
+        }
+        sb.append("],\"versions\":[");
+        for (int i = 0; i < versions; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"ident\":\"").append(i / 10).append('.').append(i % 10)
+                    .append(".0\",\"comment\":\"Release ").append(i).append("\"}");
+        }
+        return sb.append("]}").toString();
+    }
+
+    /** Composition-version pairs as passed to {@code sanitizeProjectName}. */
+    static String[] projectNames(int count) {
+        String[] names = new String[count];
+        for (int i = 0; i < count; i++) {
+            names[i] = "Composition_" + i + "-" + (i / 10) + "." + (i % 10) + ".0";
+        }
+        return names;
+    }
+
+    static String project(int index) {
+        return "composition-" + index + "-1-" + (index % 10) + "-0";
+    }
+
+    private static String containerId(Random random) {
+        StringBuilder sb = new StringBuilder(64);
+        while (sb.length() < 64) {
+            sb.append(Long.toHexString(random.nextLong() | Long.MIN_VALUE));
+        }
+        return sb.substring(0, 64).toLowerCase(Locale.ROOT);
+    }
+
+    /** Timestamped service log lines as followed from a container; about one in a thousand is an error. */
+    static List<String> logLines(int count) {
+        Random random = new Random(42);
+        List<String> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String service = SERVICES[i % SERVICES.length];
+            String message = random.nextInt(1000) == 0
+                    ? "ERROR Connection refused by " + service + " after " + random.nextInt(5000) + " ms"
+                    : "INFO request " + Long.toHexString(random.nextLong()) + " handled in " + random.nextInt(200) + " ms";
+            lines.add(String.format(Locale.ROOT, "2026-10-16T10:%02d:%02d.%09dZ %s", (i / 60) % 60, i % 60, random.nextInt(1_000_000_000), message));
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,51 @@
+package container.kitty;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the composition/version catalog for a large manifest: the former cross product of
+ * {@link CompositionVersion} rows against the {@link CatalogIndex}, and one search keystroke.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class CatalogBenchmark {
+
+    @Param({"50"})
+    public int compositions;
+
+    @Param({"500"})
+    public int versions;
+
+    private VersionsManifest manifest;
+    private CatalogIndex index;
+
+    @Setup
+    public void setUp() throws IOException {
+        manifest = VersionsManifestParser.parse(BenchmarkData.manifestJson(compositions, versions).getBytes(StandardCharsets.UTF_8));
+        index = new CatalogIndex(manifest.compositions(), manifest.versions());
+    }
+
+    /** Baseline: every pair materialized up front. */
+    @Benchmark
+    public List<CompositionVersion> crossProduct() {
+        return manifest.compositions().stream()
+                .flatMap(comp -> manifest.versions().stream().map(ver -> new CompositionVersion(comp, ver)))
+                .toList();
+    }
+
+    @Benchmark
+    public CatalogIndex buildIndex() {
+        return new CatalogIndex(manifest.compositions(), manifest.versions());
+    }
+
+    @Benchmark
+    public List<CatalogIndex.Match> searchTwoTerms() {
+        return index.search("composition-4 1.");
+    }
+}
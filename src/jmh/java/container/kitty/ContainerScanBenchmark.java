@@ -0,0 +1,69 @@
+package container.kitty;
+
+import javafx.collections.FXCollections;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What updateButtons() and updateStatus() do after every table change: the former stream scans over
+ * the rows against the lookups in the maintained {@link ContainerIndex}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class ContainerScanBenchmark {
+
+    @Param({"100", "500", "1000", "5000"})
+    public int containers;
+
+    private List<ContainerInfo> rows;
+    private ContainerIndex index;
+    private String lastProject;
+
+    @Setup
+    public void setUp() {
+        ContainerTableModel model = new ContainerTableModel(FXCollections.observableArrayList());
+        model.reconcile(BenchmarkData.containerStates(containers));
+        rows = BenchmarkData.containerInfos(containers);
+        index = model.index();
+        // worst case for the selected-project check: the project sits at the end of the table
+        lastProject = rows.get(rows.size() - 1).getProject();
+    }
+
+    /** Baseline: updateStatus() counting running rows. */
+    @Benchmark
+    public long countRunningScan() {
+        return rows.stream().filter(c -> c.getStatus().startsWith("Up")).count();
+    }
+
+    /** Baseline: updateButtons() sanitizing the selected pair and scanning twice. */
+    @Benchmark
+    public boolean updateButtonsScan() {
+        String project = ContainerKittyController.sanitizeProjectName("Composition_7-1.7.0");
+        return rows.stream().anyMatch(c -> c.getStatus().startsWith("Up"))
+                && rows.stream().anyMatch(c -> c.getProject().equals(project) && c.getStatus().startsWith("Up"));
+    }
+
+    /** Baseline: the last project found by scanning. */
+    @Benchmark
+    public boolean isProjectRunningScan() {
+        return rows.stream().anyMatch(c -> c.getProject().equals(lastProject) && c.getStatus().startsWith("Up"));
+    }
+
+    @Benchmark
+    public int countRunningIndexed() {
+        return index.runningCount();
+    }
+
+    @Benchmark
+    public boolean updateButtonsIndexed() {
+        return index.anyRunning() && index.isProjectRunning(index.projectName("Composition_7", "1.7.0"));
+    }
+
+    @Benchmark
+    public boolean isProjectRunningIndexed() {
+        return index.isProjectRunning(lastProject);
+    }
+}
@@ -0,0 +1,83 @@
+package container.kitty;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reconciling a fresh container snapshot into the table rows, unchanged and with one status change,
+ * against the former rebuild of every row followed by {@code setAll}; building the rows from
+ * scratch; and one round of stats for every row while no cell is bound.
+ * Run with {@code -prof gc} to see the allocation per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ContainerTableModelBenchmark {
+
+    @Param({"100", "500", "1000", "5000"})
+    public int containers;
+
+    private ContainerTableModel model;
+    private ObservableList<ContainerInfo> setAllRows;
+    private List<ContainerState> snapshot;
+    private List<ContainerState> changedSnapshot;
+    private boolean flip;
+
+    @Setup
+    public void setUp() {
+        snapshot = BenchmarkData.containerStates(containers);
+        changedSnapshot = new ArrayList<>(snapshot);
+        ContainerState middle = snapshot.get(containers / 2);
+        changedSnapshot.set(containers / 2, new ContainerState(middle.id(), middle.name(), middle.image(),
+                "Up 1 second (health: starting)", middle.project(), middle.service()));
+        model = new ContainerTableModel(FXCollections.observableArrayList());
+        model.reconcile(snapshot);
+        setAllRows = FXCollections.observableArrayList();
+    }
+
+    /** Baseline: every refresh created a row per container and replaced the table's items. */
+    @Benchmark
+    public ObservableList<ContainerInfo> rebuildSetAll() {
+        flip = !flip;
+        List<ContainerState> states = flip ? changedSnapshot : snapshot;
+        List<ContainerInfo> rows = new ArrayList<>(states.size());
+        for (ContainerState state : states) {
+            rows.add(new ContainerInfo(state));
+        }
+        setAllRows.setAll(rows);
+        return setAllRows;
+    }
+
+    @Benchmark
+    public boolean reconcileUnchanged() {
+        return model.reconcile(snapshot);
+    }
+
+    @Benchmark
+    public boolean reconcileOneChanged() {
+        flip = !flip;
+        return model.reconcile(flip ? changedSnapshot : snapshot);
+    }
+
+    @Benchmark
+    public ContainerTableModel buildRows() {
+        ContainerTableModel fresh = new ContainerTableModel(FXCollections.observableArrayList());
+        fresh.reconcile(snapshot);
+        return fresh;
+    }
+
+    @Benchmark
+    public int statsRound() {
+        long tick = flip ? 1 : 0;
+        flip = !flip;
+        for (ContainerState state : snapshot) {
+            model.get(state.id()).updateStats(12.5 + tick, 256L << 20, 1L << 30, 1_000_000 + tick, 2_000_000);
+        }
+        return snapshot.size();
+    }
+}
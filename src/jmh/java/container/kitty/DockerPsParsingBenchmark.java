@@ -0,0 +1,56 @@
+package container.kitty;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing the output of one {@code docker ps} call, as every container refresh does: the streaming
+ * JSON parser against the former readLine() + split("\\|") approach. Run with {@code -prof gc}
+ * to compare allocation per poll.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class DockerPsParsingBenchmark {
+
+    @Param({"100", "500", "1000", "5000"})
+    public int containers;
+
+    private byte[] splitOutput;
+    private byte[] jsonOutput;
+    private DockerPsParser parser;
+
+    @Setup
+    public void setUp() {
+        splitOutput = String.join("\n", BenchmarkData.psLines(containers)).getBytes(StandardCharsets.UTF_8);
+        jsonOutput = BenchmarkData.psJson(containers);
+        parser = new DockerPsParser();
+    }
+
+    /** Baseline: the "|"-separated format read line by line and split with a regex. */
+    @Benchmark
+    public void splitLines(Blackhole blackhole) throws IOException {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new ByteArrayInputStream(splitOutput), StandardCharsets.UTF_8))) {
+            String line;
+            //noinspection NestedAssignment,MethodCallInLoopCondition
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\\|");
+                if (parts.length >= 5) {
+                    blackhole.consume(new ContainerState(parts[0], parts[1], parts[2], parts[3], parts[4], ""));
+                }
+            }
+        }
+    }
+
+    /** Steady state: the parser's interner already holds the values of the previous poll. */
+    @Benchmark
+    public List<ContainerState> streamingJson() throws IOException {
+        return parser.parse(new ByteArrayInputStream(jsonOutput));
+    }
+}
@@ -0,0 +1,66 @@
+package container.kitty;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Searching a full 1 MiB container log buffer: with the trigram block signatures, and as a plain
+ * scan of every line (no required trigrams). Also the cost of appending a line, signature included.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class LogSearchBenchmark {
+
+    private static final int CAPACITY = 1 << 20;
+
+    private ContainerLogBuffer buffer;
+    private byte[][] lines;
+    private int next;
+    private final LogQuery substring = LogQuery.substring("connection refused");
+    private final LogQuery regex = LogQuery.regex("ERROR .*refused by \\w+");
+
+    @Setup
+    public void setUp() {
+        List<String> source = BenchmarkData.logLines(20_000);
+        lines = new byte[source.size()][];
+        buffer = new ContainerLogBuffer(CAPACITY);
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = source.get(i).getBytes(StandardCharsets.UTF_8);
+            buffer.append(lines[i], 0, lines[i].length);
+        }
+    }
+
+    @Benchmark
+    public List<ContainerLogBuffer.Line> indexedSubstring() {
+        List<ContainerLogBuffer.Line> matches = new ArrayList<>();
+        buffer.search(substring.trigrams(), substring, Integer.MAX_VALUE, matches);
+        return matches;
+    }
+
+    /** Baseline: decode and match every line held. */
+    @Benchmark
+    public List<ContainerLogBuffer.Line> scanSubstring() {
+        List<ContainerLogBuffer.Line> matches = new ArrayList<>();
+        buffer.search(new int[0], substring, Integer.MAX_VALUE, matches);
+        return matches;
+    }
+
+    @Benchmark
+    public List<ContainerLogBuffer.Line> indexedRegex() {
+        List<ContainerLogBuffer.Line> matches = new ArrayList<>();
+        buffer.search(regex.trigrams(), regex, Integer.MAX_VALUE, matches);
+        return matches;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void append() {
+        byte[] line = lines[next++ % lines.length];
+        buffer.append(line, 0, line.length);
+    }
+}
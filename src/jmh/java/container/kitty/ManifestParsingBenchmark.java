@@ -0,0 +1,71 @@
+package container.kitty;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing versions.json; 100 x 100 yields the 10,000 composition/version pairs of a large catalog,
+ * 100 x 10,000 a manifest with 10,000 entries. Run with {@code -prof gc} to compare allocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ManifestParsingBenchmark {
+
+    @Param({"20", "100"})
+    public int compositions;
+
+    @Param({"50", "100", "10000"})
+    public int versions;
+
+    private String json;
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        json = BenchmarkData.manifestJson(compositions, versions);
+        bytes = json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** Baseline: the former path, a new ObjectMapper per call, data-binding POJOs, then two properties per entry. */
+    @Benchmark
+    public List<?> dataBinding() throws IOException {
+        Data data = new ObjectMapper().readValue(json, Data.class);
+        List<PropertyRow> compositionRows = data.compositions.stream().map(d -> new PropertyRow(d.name, d.comment)).toList();
+        List<PropertyRow> versionRows = data.versions.stream().map(d -> new PropertyRow(d.ident, d.comment)).toList();
+        return List.of(compositionRows, versionRows);
+    }
+
+    @Benchmark
+    public VersionsManifest streaming() throws IOException {
+        return VersionsManifestParser.parse(bytes);
+    }
+
+    public static class Data {
+        public List<Entry> compositions;
+        public List<Entry> versions;
+    }
+
+    public static class Entry {
+        public String name;
+        public String ident;
+        public String comment;
+    }
+
+    private static final class PropertyRow {
+        private final StringProperty key = new SimpleStringProperty();
+        private final StringProperty comment = new SimpleStringProperty();
+
+        PropertyRow(String key, String comment) {
+            this.key.set(key);
+            this.comment.set(comment);
+        }
+    }
+}
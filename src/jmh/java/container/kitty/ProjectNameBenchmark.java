@@ -0,0 +1,30 @@
+package container.kitty;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/** sanitizeProjectName is called for every selection change and every start/stop. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class ProjectNameBenchmark {
+
+    private static final int NAMES = 1000;
+
+    private String[] names;
+
+    @Setup
+    public void setUp() {
+        names = BenchmarkData.projectNames(NAMES);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NAMES)
+    public void sanitizeProjectName(Blackhole blackhole) {
+        for (String name : names) {
+            blackhole.consume(ContainerKittyController.sanitizeProjectName(name));
+        }
+    }
+}
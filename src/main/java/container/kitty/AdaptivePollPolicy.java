@@ -0,0 +1,136 @@
+package container.kitty;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides how long to wait before the next container poll. Polls fast right after a start or stop
+ * until the containers settle, backs off exponentially to a ceiling while nothing changes, and
+ * stops entirely while the window is hidden. Keeps a running count of the polls this saved
+ * compared with polling at the base interval. Times are passed in, so the policy is deterministic.
+ * Not thread-safe; the controller uses it on the FX thread. Only {@link #pollsSaved()} may be
+ * read from other threads (the metrics exporter).
+ */
+@SuppressWarnings({
+        "ClassWithoutLogger",
+        "MagicNumber"
+})
+public class AdaptivePollPolicy {
+
+    /** Unchanged, non-transitional polls in a row after which a transition counts as settled. */
+    static final int SETTLE_POLLS = 3;
+    /** Upper bound on fast polling, in case a container never becomes healthy. */
+    static final long MAX_FAST_MILLIS = 120_000L;
+
+    private final long fastMillis;
+    private final long baseMillis;
+    private final long maxMillis;
+
+    private long delayMillis;
+    private long fastUntil;
+    private int settledPolls;
+    private boolean suspended;
+    private long suspendedSince;
+    // written on the FX thread only, read by the metrics exporter
+    private volatile double pollsSaved;
+
+    public AdaptivePollPolicy(long fastMillis, long baseMillis, long maxMillis) {
+        this.fastMillis = fastMillis;
+        this.baseMillis = baseMillis;
+        this.maxMillis = Math.max(maxMillis, baseMillis);
+        this.delayMillis = baseMillis;
+    }
+
+    /** A start or stop was requested or finished: poll fast until the containers settle. */
+    public long onTransition(long now) {
+        fastUntil = now + MAX_FAST_MILLIS;
+        settledPolls = 0;
+        return schedule(fastMillis);
+    }
+
+    /**
+     * Returns the delay until the next poll.
+     *
+     * @param changed      the snapshot differs from the previous poll
+     * @param transitional some container is still starting up, restarting or becoming healthy
+     */
+    public long onPollResult(boolean changed, boolean transitional, long now) {
+        if (now < fastUntil) {
+            settledPolls = changed || transitional ? 0 : settledPolls + 1;
+            if (settledPolls < SETTLE_POLLS) {
+                return schedule(fastMillis);
+            }
+            fastUntil = 0;
+            return schedule(baseMillis);
+        }
+        if (changed || transitional) {
+            return schedule(baseMillis);
+        }
+        return schedule(Math.min(delayMillis * 2, maxMillis));
+    }
+
+    /**
+     * What a poll compares with the previous one: each container's ID with its state word and the
+     * parenthesized markers docker appends (health, paused, exit code). docker's relative
+     * "Up 3 seconds" text is left out, since it changes on every poll while nothing happens.
+     */
+    public static Map<String, String> pollState(List<ContainerState> containers) {
+        Map<String, String> states = new HashMap<>(containers.size() * 2);
+        for (ContainerState container : containers) {
+            String status = container.status();
+            int space = status.indexOf(' ');
+            StringBuilder state = new StringBuilder(space < 0 ? status : status.substring(0, space));
+            for (int open = status.indexOf('('); open >= 0; open = status.indexOf('(', open + 1)) {
+                int close = status.indexOf(')', open);
+                if (close < 0) break;
+                state.append(' ').append(status, open, close + 1);
+            }
+            states.put(container.id(), state.toString());
+        }
+        return states;
+    }
+
+    private long schedule(long delay) {
+        delayMillis = delay;
+        // polling at the base interval would have taken delay/base polls in this time instead of one
+        pollsSaved += (double) delay / baseMillis - 1.0;
+        return delay;
+    }
+
+    /** The window was minimized or lost focus; no polls until {@link #resume(long)}. */
+    public void suspend(long now) {
+        if (suspended) return;
+        suspended = true;
+        suspendedSince = now;
+    }
+
+    /**
+     * The window is visible again. The caller should poll right away: the snapshot may be
+     * arbitrarily old.
+     */
+    public void resume(long now) {
+        if (!suspended) return;
+        suspended = false;
+        pollsSaved += (double) (now - suspendedSince) / baseMillis;
+        delayMillis = baseMillis;
+    }
+
+    public boolean isSuspended() {
+        return suspended;
+    }
+
+    public boolean isFast(long now) {
+        return now < fastUntil;
+    }
+
+    /** Net polls avoided compared with polling at the base interval; fast polls count against it. */
+    public long pollsSaved() {
+        return (long) pollsSaved;
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptivePollPolicy{delay=" + delayMillis + " ms, suspended=" + suspended + ", saved=" + pollsSaved() + "}";
+    }
+}
@@ -0,0 +1,41 @@
+package container.kitty;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/** Resolves per-user application directories following each platform's conventions. */
+@SuppressWarnings({
+        "AccessOfSystemProperties",
+        "ClassWithoutLogger"
+})
+public final class AppDirs {
+
+    private static final String APP_NAME = "container-kitty";
+
+    private AppDirs() { }
+
+    /** Returns (and creates) the user cache directory, e.g. ~/.cache/container-kitty. */
+    public static Path userCacheDir() throws IOException {
+        String override = System.getProperty("container.kitty.cacheDir");
+        Path dir;
+        if (override != null && !override.isBlank()) {
+            dir = Path.of(override);
+        } else {
+            String os = System.getProperty("os.name").toLowerCase(Locale.ROOT);
+            String home = System.getProperty("user.home");
+            if (os.contains("win")) {
+                String localAppData = System.getenv("LOCALAPPDATA");
+                dir = (localAppData != null ? Path.of(localAppData) : Path.of(home, "AppData", "Local"))
+                        .resolve(APP_NAME).resolve("cache");
+            } else if (os.contains("mac")) {
+                dir = Path.of(home, "Library", "Caches", APP_NAME);
+            } else {
+                String xdg = System.getenv("XDG_CACHE_HOME");
+                dir = (xdg != null && !xdg.isBlank() ? Path.of(xdg) : Path.of(home, ".cache")).resolve(APP_NAME);
+            }
+        }
+        return Files.createDirectories(dir);
+    }
+}
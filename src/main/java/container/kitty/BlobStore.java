@@ -0,0 +1,198 @@
+package container.kitty;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Content-addressed directory of compose files. Git blobs are stored under their object ID and
+ * other files under the SHA-256 of their content, so a file that is already present is known to
+ * be correct and is never written again. Content is streamed from its source into a temporary file
+ * with channel transfers, hashed on the way, and only moved into place once the hash matches.
+ * Thread-safe: concurrent stores of the same content race harmlessly to the same file.
+ */
+@SuppressWarnings({
+        "ClassWithoutLogger",
+        "MagicNumber"
+})
+public class BlobStore {
+
+    /** A stored file and the hash that names it. */
+    public record Blob(String id, Path path) { }
+
+    /** Opens content for {@link #putStream}; called once per pass. */
+    @FunctionalInterface
+    public interface IOSupplier<T> {
+        T get() throws IOException;
+    }
+
+    private static final int TRANSFER_CHUNK = 64 * 1024;
+
+    private final Path dir;
+
+    public BlobStore(Path dir) throws IOException {
+        this.dir = Files.createDirectories(dir);
+    }
+
+    public Path dir() {
+        return dir;
+    }
+
+    /** The stored file with this ID, or null if it has not been stored yet. */
+    public Blob find(String id) {
+        Path path = dir.resolve(id);
+        return Files.isRegularFile(path) ? new Blob(id, path) : null;
+    }
+
+    /**
+     * Stores the next {@code size} bytes of {@code source} as the git blob {@code objectId},
+     * verifying the object ID (SHA-1, or SHA-256 for 64-digit IDs) over the streamed bytes.
+     * Reads exactly {@code size} bytes, so the source can carry further content.
+     *
+     * @throws IOException if the source ends early or the content does not hash to the object ID
+     */
+    public Blob putGitBlob(String objectId, long size, ReadableByteChannel source) throws IOException {
+        MessageDigest digest = digest(objectId.length() == 64 ? "SHA-256" : "SHA-1");
+        digest.update(("blob " + size + "\0").getBytes(StandardCharsets.US_ASCII));
+        return put(objectId, new HashingChannel(source, digest, size), size, digest);
+    }
+
+    /**
+     * Stores a file whose hash is not known up front, such as a classpath resource. The content is
+     * hashed in a first pass, so nothing is written if it is already stored.
+     */
+    public Blob putStream(IOSupplier<InputStream> content) throws IOException {
+        MessageDigest digest = digest("SHA-256");
+        long size = 0;
+        try (InputStream in = content.get()) {
+            byte[] buf = new byte[8192];
+            int n;
+            //noinspection NestedAssignment
+            while ((n = in.read(buf)) != -1) {
+                digest.update(buf, 0, n);
+                size += n;
+            }
+        }
+        String id = HexFormat.of().formatHex(digest.digest());
+        Blob existing = find(id);
+        if (existing != null) return existing;
+
+        MessageDigest verify = digest("SHA-256");
+        try (InputStream in = content.get()) {
+            return put(id, new HashingChannel(Channels.newChannel(in), verify, size), size, verify);
+        }
+    }
+
+    /**
+     * Stores content that can only be read once, such as a download, under the SHA-256 of its
+     * content. The content is hashed while it is written.
+     */
+    public Blob putOnce(InputStream content) throws IOException {
+        MessageDigest digest = digest("SHA-256");
+        return put(null, new HashingChannel(Channels.newChannel(content), digest, Long.MAX_VALUE), -1, digest);
+    }
+
+    /** Streams the source into place; an {@code id} of null names the file after its hash, a {@code size} of -1 reads to the end. */
+    private Blob put(String id, HashingChannel source, long size, MessageDigest digest) throws IOException {
+        Path tmp = Files.createTempFile(dir, id != null ? id : "download", ".tmp");
+        try {
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                long position = 0;
+                while (size < 0 ? !source.atEnd() : position < size) {
+                    long chunk = size < 0 ? TRANSFER_CHUNK : Math.min(TRANSFER_CHUNK, size - position);
+                    long transferred = out.transferFrom(source, position, chunk);
+                    if (transferred == 0 && source.atEnd() && size >= 0) {
+                        throw new IOException("Content of " + id + " ended after " + position + " of " + size + " bytes");
+                    }
+                    position += transferred;
+                }
+            }
+            String actual = HexFormat.of().formatHex(digest.digest());
+            if (id == null) id = actual;
+            if (!actual.equals(id)) {
+                throw new IOException("Content hash mismatch: expected " + id + ", got " + actual);
+            }
+            Path target = dir.resolve(id);
+            if (!Files.isRegularFile(target)) {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (FileAlreadyExistsException e) {
+            // stored concurrently with the same content
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return new Blob(id, dir.resolve(id));
+    }
+
+    private static MessageDigest digest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(algorithm + " not available", e);
+        }
+    }
+
+    /** Hands at most {@code limit} bytes of the source to the reader, hashing them on the way. */
+    private static final class HashingChannel implements ReadableByteChannel {
+        private final ReadableByteChannel source;
+        private final MessageDigest digest;
+        private long remaining;
+        private boolean atEnd;
+
+        HashingChannel(ReadableByteChannel source, MessageDigest digest, long limit) {
+            this.source = source;
+            this.digest = digest;
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            if (remaining == 0) return -1;
+            int start = dst.position();
+            int limit = dst.limit();
+            if (dst.remaining() > remaining) dst.limit(start + (int) remaining);
+            int n;
+            try {
+                n = source.read(dst);
+            } finally {
+                dst.limit(limit);
+            }
+            if (n < 0) {
+                atEnd = true;
+                return n;
+            }
+            ByteBuffer read = dst.duplicate();
+            read.limit(start + n).position(start);
+            digest.update(read);
+            remaining -= n;
+            return n;
+        }
+
+        boolean atEnd() {
+            return atEnd || remaining == 0;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return source.isOpen();
+        }
+
+        @Override
+        public void close() {
+            // the caller owns the source, which may carry further content
+        }
+    }
+
+    @Override
+    public final String toString() {
+        return "BlobStore{dir=" + dir + "}";
+    }
+}
@@ -0,0 +1,121 @@
+package container.kitty;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Prefix search over the compositions and versions of a manifest, without building their cross
+ * product. Names, idents and comments are indexed as whole values and as alphanumeric tokens, so
+ * "1.7" finds version "1.7.0" and "post" finds a composition commented "Postgres and Redis".
+ * <p>
+ * A query is split on whitespace and every term must match the composition or the version of a
+ * pair. {@link #search(String)} returns, per composition, the set of versions that complete a
+ * match; the pairs themselves are only created when a composition is expanded. Memory grows with
+ * compositions + versions. Immutable once built.
+ */
+@SuppressWarnings("ClassWithoutLogger")
+public class CatalogIndex {
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{Alnum}]+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    /** The versions of one composition that match a query, in manifest order. */
+    public record Match(Composition composition, BitSet versions) {
+        public int versionCount() {
+            return versions.cardinality();
+        }
+    }
+
+    private final List<Composition> compositions;
+    private final List<Version> versions;
+    private final NavigableMap<String, BitSet> compositionTokens = new TreeMap<>();
+    private final NavigableMap<String, BitSet> versionTokens = new TreeMap<>();
+    private final BitSet allVersions;
+
+    public CatalogIndex(List<Composition> compositions, List<Version> versions) {
+        this.compositions = List.copyOf(compositions);
+        this.versions = List.copyOf(versions);
+        for (int i = 0; i < this.compositions.size(); i++) {
+            Composition composition = this.compositions.get(i);
+            index(compositionTokens, composition.name(), i);
+            index(compositionTokens, composition.comment(), i);
+        }
+        for (int i = 0; i < this.versions.size(); i++) {
+            Version version = this.versions.get(i);
+            index(versionTokens, version.ident(), i);
+            index(versionTokens, version.comment(), i);
+        }
+        allVersions = new BitSet(this.versions.size());
+        allVersions.set(0, this.versions.size());
+    }
+
+    private static void index(Map<String, BitSet> tokens, String text, int position) {
+        if (text == null || text.isBlank()) return;
+        String lower = text.toLowerCase(Locale.ROOT).strip();
+        tokens.computeIfAbsent(lower, t -> new BitSet()).set(position);
+        for (String token : TOKEN_SEPARATOR.split(lower)) {
+            if (!token.isEmpty()) {
+                tokens.computeIfAbsent(token, t -> new BitSet()).set(position);
+            }
+        }
+    }
+
+    /** Positions of all entries with a token starting with the given prefix. */
+    private static BitSet prefixMatches(NavigableMap<String, BitSet> tokens, String prefix) {
+        BitSet result = new BitSet();
+        for (BitSet positions : tokens.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            result.or(positions);
+        }
+        return result;
+    }
+
+    /**
+     * Compositions with at least one matching version, in manifest order. A blank query matches
+     * every pair.
+     */
+    public List<Match> search(String query) {
+        String[] terms = query == null || query.isBlank()
+                ? new String[0]
+                : WHITESPACE.split(query.toLowerCase(Locale.ROOT).strip());
+        BitSet[] compositionHits = new BitSet[terms.length];
+        BitSet[] versionHits = new BitSet[terms.length];
+        for (int t = 0; t < terms.length; t++) {
+            compositionHits[t] = prefixMatches(compositionTokens, terms[t]);
+            versionHits[t] = prefixMatches(versionTokens, terms[t]);
+        }
+
+        List<Match> matches = new ArrayList<>(compositions.size());
+        for (int c = 0; c < compositions.size(); c++) {
+            // terms this composition does not match itself must all be matched by the version
+            BitSet matching = allVersions;
+            for (int t = 0; t < terms.length; t++) {
+                if (compositionHits[t].get(c)) continue;
+                if (matching == allVersions) matching = (BitSet) allVersions.clone();
+                matching.and(versionHits[t]);
+                if (matching.isEmpty()) break;
+            }
+            if (!matching.isEmpty()) {
+                matches.add(new Match(compositions.get(c), matching));
+            }
+        }
+        return matches;
+    }
+
+    public List<Composition> compositions() {
+        return compositions;
+    }
+
+    public List<Version> versions() {
+        return versions;
+    }
+
+    public Version version(int position) {
+        return versions.get(position);
+    }
+
+    @Override
+    public final String toString() {
+        return "CatalogIndex{compositions=" + compositions.size() + ", versions=" + versions.size()
+                + ", tokens=" + (compositionTokens.size() + versionTokens.size()) + "}";
+    }
+}
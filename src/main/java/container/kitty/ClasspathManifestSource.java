@@ -0,0 +1,68 @@
+package container.kitty;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HexFormat;
+
+/** Dev mode: the manifest and compose files bundled as resources. The revision is a content hash. */
+@SuppressWarnings("ClassWithoutLogger")
+public class ClasspathManifestSource implements ManifestSource {
+
+    private static final String MANIFEST = "/dev-versions.json";
+    private static final String COMPOSE_DIR = "/docker/compose/";
+
+    @Override
+    public String name() {
+        return "classpath";
+    }
+
+    @Override
+    public String describe() {
+        return "classpath " + MANIFEST + " and " + COMPOSE_DIR;
+    }
+
+    @Override
+    public Fetched fetch(String knownRevision) throws IOException {
+        byte[] json;
+        try (InputStream in = open(MANIFEST)) {
+            json = in.readAllBytes();
+        }
+        String revision = "sha256:" + sha256Hex(json);
+        return revision.equals(knownRevision) ? null : new Fetched(json, revision);
+    }
+
+    /** Hashed first, so an unchanged file is not rewritten. */
+    @Override
+    public BlobStore.Blob composeFile(String composition, BlobStore store) throws IOException {
+        String resource = COMPOSE_DIR + ManifestSource.composeFileName(composition);
+        return store.putStream(() -> open(resource));
+    }
+
+    /** Resources are local; nothing to gain from reading them early. */
+    @Override
+    public void prefetchComposeFiles(Collection<String> compositions, BlobStore store) {
+        // nothing to do
+    }
+
+    private InputStream open(String resource) throws IOException {
+        InputStream in = getClass().getResourceAsStream(resource);
+        if (in == null) throw new IOException("Resource not found in classpath: " + resource);
+        return in;
+    }
+
+    private static String sha256Hex(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    @Override
+    public final String toString() {
+        return "ClasspathManifestSource{}";
+    }
+}
@@ -0,0 +1,158 @@
+package container.kitty;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A submitted command: its lane, deadline and outcome, plus a way to cancel it.
+ * Processes started while the command runs are attached with {@link #track(Process)} so that
+ * cancelling (or timing out) can destroy the whole process tree and unblock the lane at once.
+ */
+@SuppressWarnings({
+        "ClassWithoutLogger",
+        "MagicNumber"
+})
+public final class CommandHandle {
+
+    public enum State { QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED, TIMED_OUT }
+
+    private static final ThreadLocal<CommandHandle> CURRENT = new ThreadLocal<>();
+    private static final long KILL_GRACE_MILLIS = 2_000L;
+
+    private final String lane;
+    private final String description;
+    private final Duration timeout;
+    private final Instant submittedAt = Instant.now();
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+    private final List<Process> processes = new CopyOnWriteArrayList<>();
+    private volatile State state = State.QUEUED;
+    private volatile Instant startedAt;
+
+    CommandHandle(String lane, String description, Duration timeout) {
+        this.lane = lane;
+        this.description = description;
+        this.timeout = timeout;
+    }
+
+    /** Returns the command running on the current thread, or null outside the scheduler. */
+    public static CommandHandle current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Attaches a process to the command running on this thread. If that command was already
+     * cancelled the process is destroyed right away.
+     */
+    public static Process track(Process process) {
+        MetricsRegistry.get().counter(MetricsRegistry.PROCESS_SPAWNS).increment();
+        CommandHandle handle = CURRENT.get();
+        if (handle != null) {
+            handle.processes.add(process);
+            if (handle.isDone()) {
+                destroyTree(process);
+            }
+        }
+        return process;
+    }
+
+    /** True if the command running on this thread has been cancelled or timed out. */
+    public static boolean isCurrentTerminated() {
+        CommandHandle handle = CURRENT.get();
+        return handle != null && (handle.state == State.CANCELLED || handle.state == State.TIMED_OUT);
+    }
+
+    /** Runs the task on the calling thread unless the command was cancelled while queued. */
+    void run(Runnable task) {
+        synchronized (this) {
+            if (isDone()) return;
+            state = State.RUNNING;
+        }
+        CURRENT.set(this);
+        startedAt = Instant.now();
+        try {
+            task.run();
+            finish(State.SUCCEEDED, null);
+        } catch (RuntimeException | Error e) {
+            finish(State.FAILED, e);
+            throw e;
+        } finally {
+            CURRENT.remove();
+            processes.clear();
+        }
+    }
+
+    /** Cancels the command: a queued command will not start, a running one has its processes killed. */
+    public boolean cancel() {
+        return terminate(State.CANCELLED, description + " cancelled");
+    }
+
+    boolean timeOut() {
+        return terminate(State.TIMED_OUT, description + " timed out after " + timeout.toSeconds() + " s");
+    }
+
+    private boolean terminate(State terminal, String message) {
+        synchronized (this) {
+            if (isDone()) return false;
+            state = terminal;
+        }
+        for (Process process : processes) {
+            destroyTree(process);
+        }
+        completion.completeExceptionally(new CancellationException(message));
+        return true;
+    }
+
+    private void finish(State terminal, Throwable error) {
+        synchronized (this) {
+            if (isDone()) return;
+            state = terminal;
+        }
+        if (error == null) {
+            completion.complete(null);
+        } else {
+            completion.completeExceptionally(error);
+        }
+    }
+
+    /** Asks the process and all its descendants to exit, then kills whatever is left after a grace period. */
+    static void destroyTree(Process process) {
+        // collect descendants first; once the parent dies they are re-parented and harder to find
+        List<ProcessHandle> tree = process.descendants().toList();
+        tree.forEach(ProcessHandle::destroy);
+        process.destroy();
+
+        CompletableFuture.delayedExecutor(KILL_GRACE_MILLIS, TimeUnit.MILLISECONDS).execute(() -> {
+            tree.stream().filter(ProcessHandle::isAlive).forEach(ProcessHandle::destroyForcibly);
+            if (process.isAlive()) process.destroyForcibly();
+        });
+    }
+
+    public boolean isDone() {
+        State s = state;
+        return s != State.QUEUED && s != State.RUNNING;
+    }
+
+    public CompletableFuture<Void> completion() {
+        return completion;
+    }
+
+    public String getLane() { return lane; }
+    public String getDescription() { return description; }
+    public Duration getTimeout() { return timeout; }
+    public State getState() { return state; }
+    public Instant getSubmittedAt() { return submittedAt; }
+    public Instant getStartedAt() { return startedAt; }
+
+    @Override
+    public String toString() {
+        Instant since = startedAt != null ? startedAt : submittedAt;
+        long seconds = Duration.between(since, Instant.now()).getSeconds();
+        return lane + ": " + description + " (" + state.name().toLowerCase(Locale.ROOT) + ", " + seconds + " s)";
+    }
+}
@@ -0,0 +1,258 @@
+package container.kitty;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs background work in lanes. Read-only queries (ps, stats, manifest) share a small pool and run
+ * concurrently; mutating operations are serialized per compose project, while different projects
+ * proceed in parallel. A slow {@code docker compose up} therefore never delays a status refresh.
+ * Background work such as image pre-pulls runs on a capped pool of low-priority threads.
+ * Every submission returns a {@link CommandHandle} with a deadline that can be cancelled; a
+ * cancelled or timed-out command releases its lane immediately.
+ */
+@SuppressWarnings({
+        "ClassWithoutLogger",
+        "MagicNumber"
+})
+public class CommandScheduler {
+
+    public static final String QUERY_LANE = "query";
+    public static final String PREFETCH_LANE = "prefetch";
+
+    private static final int QUERY_THREADS = 4;
+    private static final Duration QUERY_TIMEOUT =
+            Duration.ofSeconds(Long.getLong("container.kitty.queryTimeoutSeconds", 120L));
+    private static final Duration MUTATION_TIMEOUT =
+            Duration.ofSeconds(Long.getLong("container.kitty.mutationTimeoutSeconds", 1800L));
+    private static final int PREFETCH_THREADS = Math.max(1, Integer.getInteger("container.kitty.pullConcurrency", 1));
+    private static final Duration PREFETCH_TIMEOUT =
+            Duration.ofSeconds(Long.getLong("container.kitty.pullTimeoutSeconds", 3600L));
+    private static final CompletableFuture<Void> LANE_IDLE = CompletableFuture.completedFuture(null);
+
+    private final ExecutorService queryPool = Executors.newFixedThreadPool(QUERY_THREADS, daemonThreads("container-kitty-query-"));
+    private final ExecutorService mutationPool = Executors.newCachedThreadPool(daemonThreads("container-kitty-mutate-"));
+    private final ExecutorService prefetchPool = Executors.newFixedThreadPool(PREFETCH_THREADS,
+            daemonThreads("container-kitty-prefetch-", Thread.MIN_PRIORITY));
+    private final ScheduledExecutorService deadlines = Executors.newSingleThreadScheduledExecutor(daemonThreads("container-kitty-deadline-"));
+
+    // per project: completes when the lane is free for the next mutation; removed once the lane drains
+    private final Map<String, CompletableFuture<Void>> projectTurns = new HashMap<>(16);
+    private final Map<String, LaneStats> stats = new ConcurrentHashMap<>(16);
+    private final Set<CommandHandle> inFlight = ConcurrentHashMap.newKeySet();
+    private volatile Runnable changeListener = () -> { };
+
+    /** Runs a read-only task concurrently with other queries and with mutations. */
+    public CommandHandle submitQuery(String description, Runnable task) {
+        return submitQuery(description, QUERY_TIMEOUT, task);
+    }
+
+    public CommandHandle submitQuery(String description, Duration timeout, Runnable task) {
+        LaneStats lane = stats.computeIfAbsent(QUERY_LANE, LaneStats::new);
+        CommandHandle handle = register(new CommandHandle(QUERY_LANE, description, timeout));
+        if (isShutdown()) {
+            handle.cancel();
+            return handle;
+        }
+        queryPool.execute(lane.track(withDeadline(handle, task)));
+        return handle;
+    }
+
+    /**
+     * Runs a background task (image pre-pull) once one of the capped prefetch threads is free; it
+     * never holds up queries or mutations.
+     */
+    public CommandHandle submitPrefetch(String description, Runnable task) {
+        LaneStats lane = stats.computeIfAbsent(PREFETCH_LANE, LaneStats::new);
+        CommandHandle handle = register(new CommandHandle(PREFETCH_LANE, description, PREFETCH_TIMEOUT));
+        if (isShutdown()) {
+            handle.cancel();
+            return handle;
+        }
+        prefetchPool.execute(lane.track(withDeadline(handle, task)));
+        return handle;
+    }
+
+    /** Runs a mutating task after all earlier mutations of the same project have finished. */
+    public CommandHandle submitMutation(String project, String description, Runnable task) {
+        return submitMutation(project, description, MUTATION_TIMEOUT, task);
+    }
+
+    public CommandHandle submitMutation(String project, String description, Duration timeout, Runnable task) {
+        String laneName = "project:" + project;
+        LaneStats lane = stats.computeIfAbsent(laneName, LaneStats::new);
+        CommandHandle handle = register(new CommandHandle(laneName, description, timeout));
+        if (isShutdown()) {
+            handle.cancel();
+            return handle;
+        }
+        Runnable tracked = lane.track(withDeadline(handle, task));
+
+        synchronized (projectTurns) {
+            CompletableFuture<Void> previous = projectTurns.getOrDefault(project, LANE_IDLE);
+            previous.thenRunAsync(tracked, mutationPool);
+
+            // The lane frees up when this command ends (normally, failed or cancelled), but never
+            // before its predecessor did: cancelling a queued command must not let its successor overtake.
+            CompletableFuture<Void> turn = previous.thenCombine(handle.completion().handle((r, e) -> null), (a, b) -> null);
+            projectTurns.put(project, turn);
+            turn.whenComplete((r, e) -> {
+                synchronized (projectTurns) {
+                    projectTurns.remove(project, turn);
+                }
+            });
+        }
+        return handle;
+    }
+
+    /** Commands that are queued or running, oldest first. */
+    public List<CommandHandle> inFlight() {
+        List<CommandHandle> result = new ArrayList<>(inFlight);
+        result.sort(Comparator.comparing(CommandHandle::getSubmittedAt));
+        return result;
+    }
+
+    /** Called (on a worker thread) whenever a command is submitted or finishes. */
+    public void setChangeListener(Runnable listener) {
+        changeListener = listener;
+    }
+
+    private CommandHandle register(CommandHandle handle) {
+        inFlight.add(handle);
+        handle.completion().whenComplete((r, e) -> {
+            inFlight.remove(handle);
+            changeListener.run();
+        });
+        changeListener.run();
+        return handle;
+    }
+
+    private Runnable withDeadline(CommandHandle handle, Runnable task) {
+        return () -> {
+            if (handle.isDone()) return; // cancelled while queued
+            ScheduledFuture<?> deadline = deadlines.schedule(handle::timeOut, handle.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            try {
+                handle.run(task);
+            } finally {
+                deadline.cancel(false);
+            }
+        };
+    }
+
+    public boolean isShutdown() {
+        return queryPool.isShutdown();
+    }
+
+    /** Returns a point-in-time view of every lane that has seen work, query lane first. */
+    public List<LaneStats.Snapshot> laneStats() {
+        List<LaneStats.Snapshot> result = new ArrayList<>(stats.size());
+        for (LaneStats lane : stats.values()) {
+            result.add(lane.snapshot());
+        }
+        result.sort(Comparator.comparing((LaneStats.Snapshot s) -> !QUERY_LANE.equals(s.lane()))
+                .thenComparing(LaneStats.Snapshot::lane));
+        return result;
+    }
+
+    public void shutdown(long timeout, TimeUnit unit) {
+        inFlight.forEach(CommandHandle::cancel);
+        deadlines.shutdownNow();
+        queryPool.shutdown();
+        mutationPool.shutdown();
+        prefetchPool.shutdownNow(); // a half-done pull is simply resumed next time
+        try {
+            if (!queryPool.awaitTermination(timeout, unit)) {
+                queryPool.shutdownNow();
+            }
+            if (!mutationPool.awaitTermination(timeout, unit)) {
+                mutationPool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queryPool.shutdownNow();
+            mutationPool.shutdownNow();
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        return daemonThreads(prefix, Thread.NORM_PRIORITY);
+    }
+
+    private static ThreadFactory daemonThreads(String prefix, int priority) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + counter.incrementAndGet());
+            t.setDaemon(true);
+            t.setPriority(priority);
+            return t;
+        };
+    }
+
+    @Override
+    public final String toString() {
+        return "CommandScheduler{lanes=" + stats.keySet() + "}";
+    }
+
+    /** Queue depth and wait-time accounting for one lane. */
+    public static final class LaneStats {
+        private final String lane;
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicInteger running = new AtomicInteger();
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder totalWaitNanos = new LongAdder();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+        private final LatencyHistogram waitHistogram;
+
+        LaneStats(String lane) {
+            this.lane = lane;
+            MetricsRegistry metrics = MetricsRegistry.get();
+            metrics.gauge("container_kitty_lane_queued", queued::get, "lane", lane);
+            metrics.gauge("container_kitty_lane_running", running::get, "lane", lane);
+            waitHistogram = metrics.histogram("container_kitty_lane_wait_seconds", "lane", lane);
+        }
+
+        Runnable track(Runnable task) {
+            long submitted = System.nanoTime();
+            queued.incrementAndGet();
+            return () -> {
+                long waited = System.nanoTime() - submitted;
+                queued.decrementAndGet();
+                running.incrementAndGet();
+                totalWaitNanos.add(waited);
+                maxWaitNanos.accumulateAndGet(waited, Math::max);
+                waitHistogram.record(waited, TimeUnit.NANOSECONDS);
+                try {
+                    task.run();
+                } finally {
+                    running.decrementAndGet();
+                    completed.increment();
+                }
+            };
+        }
+
+        Snapshot snapshot() {
+            long done = completed.sum();
+            long started = done + running.get();
+            long avgWait = started == 0 ? 0 : totalWaitNanos.sum() / started;
+            return new Snapshot(lane, queued.get(), running.get(), done,
+                    TimeUnit.NANOSECONDS.toMillis(avgWait), TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()));
+        }
+
+        @Override
+        public String toString() {
+            return snapshot().toString();
+        }
+
+        public record Snapshot(String lane, int queued, int running, long completed, long avgWaitMillis, long maxWaitMillis) {
+            @Override
+            public String toString() {
+                return lane + ": " + queued + " queued, " + running + " running, " + completed + " done, wait avg "
+                        + avgWaitMillis + " ms / max " + maxWaitMillis + " ms";
+            }
+        }
+    }
+}
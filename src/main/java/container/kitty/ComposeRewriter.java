@@ -0,0 +1,135 @@
+package container.kitty;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.IntUnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Line-based rewriting of compose files so that a second copy of a composition can run next to the
+ * first: published host ports are shifted by an offset and fixed {@code container_name}s get a
+ * suffix. Handles the short port syntax ({@code "8080:80"}, {@code "127.0.0.1:8080:80/udp"},
+ * {@code "9000-9002:9000-9002"}), also as a one-line flow sequence ({@code ports: ["5433:5432"]}),
+ * and the long syntax's {@code published:} key. Ports given through variable interpolation are left
+ * alone; other inline {@code ports:} values are rejected rather than copied with the original ports.
+ */
+@SuppressWarnings("ClassWithoutLogger")
+public final class ComposeRewriter {
+
+    /** A key that opens a block of port entries, e.g. {@code "    ports:"}. */
+    private static final Pattern PORTS_KEY = Pattern.compile("^(\\s*)ports:\\s*(#.*)?$");
+    /** A key with an inline value, e.g. {@code "    ports: [\"5433:5432\"]"}. */
+    private static final Pattern INLINE_PORTS = Pattern.compile("^(\\s*ports:\\s*)(\\S.*)$");
+    /** A one-line flow sequence of scalars: {@code [}, the entries, {@code ]} and an optional comment. */
+    private static final Pattern FLOW_SEQUENCE = Pattern.compile("^(\\[)([^\\[\\]{}#]*)(]\\s*(?:#.*)?)$");
+    /** One entry of a flow sequence, split the same way as {@link #SHORT_PORT}. */
+    private static final Pattern FLOW_PORT = Pattern.compile(
+            "^(\\s*[\"']?(?:(?:\\d{1,3}(?:\\.\\d{1,3}){3}|\\[[^]]*]):)?)(\\d+)(?:-(\\d+))?(:\\d+(?:-\\d+)?(?:/\\w+)?[\"']?\\s*)$");
+    /** A short-syntax entry with a host port: optional IP, host port or range, container port or range. */
+    private static final Pattern SHORT_PORT = Pattern.compile(
+            "^(\\s*-\\s*[\"']?(?:(?:\\d{1,3}(?:\\.\\d{1,3}){3}|\\[[^]]*]):)?)(\\d+)(?:-(\\d+))?(:\\d+(?:-\\d+)?(?:/\\w+)?[\"']?\\s*(?:#.*)?)$");
+    private static final Pattern PUBLISHED = Pattern.compile("^(\\s*-?\\s*published:\\s*[\"']?)(\\d+)(?:-(\\d+))?([\"']?\\s*(?:#.*)?)$");
+    private static final Pattern CONTAINER_NAME = Pattern.compile("^(\\s*container_name:\\s*)[\"']?([^\"'\\s#]+)[\"']?(\\s*(?:#.*)?)$");
+
+    private ComposeRewriter() { }
+
+    /**
+     * Host ports published by the file, with ranges expanded.
+     *
+     * @throws IOException if a {@code ports:} value is written in a form that cannot be rewritten
+     */
+    public static Set<Integer> hostPorts(String yaml) throws IOException {
+        Set<Integer> ports = new TreeSet<>();
+        rewrite(yaml, port -> {
+            ports.add(port);
+            return port;
+        }, null);
+        return ports;
+    }
+
+    /**
+     * Shifts every published host port by {@code portOffset} and appends {@code "-" + nameSuffix}
+     * to each {@code container_name}.
+     *
+     * @throws IOException if a {@code ports:} value is written in a form that cannot be rewritten
+     */
+    public static String offset(String yaml, int portOffset, String nameSuffix) throws IOException {
+        return rewrite(yaml, port -> port + portOffset, nameSuffix);
+    }
+
+    private static String rewrite(String yaml, IntUnaryOperator hostPort, String nameSuffix) throws IOException {
+        StringBuilder out = new StringBuilder(yaml.length() + 64);
+        int portsIndent = -1; // indentation of the enclosing "ports:" key, or -1 outside such a block
+        for (String line : yaml.split("\n", -1)) {
+            if (!out.isEmpty()) out.append('\n');
+            String trimmed = line.strip();
+            int indent = line.length() - line.stripLeading().length();
+            if (portsIndent >= 0 && !trimmed.isEmpty() && !trimmed.startsWith("#")
+                    && (indent < portsIndent || (indent == portsIndent && !trimmed.startsWith("-")))) {
+                portsIndent = -1;
+            }
+
+            Matcher matcher = PORTS_KEY.matcher(line);
+            if (matcher.matches()) {
+                portsIndent = matcher.group(1).length();
+                out.append(line);
+                continue;
+            }
+            matcher = INLINE_PORTS.matcher(line);
+            if (matcher.matches()) {
+                out.append(matcher.group(1));
+                rewriteFlowSequence(matcher.group(2), hostPort, out);
+                continue;
+            }
+            if (portsIndent >= 0) {
+                matcher = SHORT_PORT.matcher(line);
+                if (!matcher.matches()) matcher = PUBLISHED.matcher(line);
+                if (matcher.matches()) {
+                    appendShifted(matcher, hostPort, out);
+                    continue;
+                }
+            }
+            if (nameSuffix != null) {
+                matcher = CONTAINER_NAME.matcher(line);
+                if (matcher.matches()) {
+                    out.append(matcher.group(1)).append(matcher.group(2)).append('-').append(nameSuffix)
+                            .append(matcher.group(3));
+                    continue;
+                }
+            }
+            out.append(line);
+        }
+        return out.toString();
+    }
+
+    /** Rewrites the entries of {@code ports: [...]}; anything but a one-line sequence of scalars is rejected. */
+    private static void rewriteFlowSequence(String value, IntUnaryOperator hostPort, StringBuilder out) throws IOException {
+        Matcher sequence = FLOW_SEQUENCE.matcher(value);
+        if (!sequence.matches()) {
+            throw new IOException("Cannot shift host ports written as 'ports: " + value + "'; use a block sequence");
+        }
+        out.append(sequence.group(1));
+        String[] entries = sequence.group(2).split(",", -1);
+        for (int i = 0; i < entries.length; i++) {
+            if (i > 0) out.append(',');
+            Matcher entry = FLOW_PORT.matcher(entries[i]);
+            if (entry.matches()) appendShifted(entry, hostPort, out);
+            else out.append(entries[i]);
+        }
+        out.append(sequence.group(3));
+    }
+
+    /** Appends an entry whose groups are: prefix, host port, optional range end, suffix. */
+    private static void appendShifted(Matcher matcher, IntUnaryOperator hostPort, StringBuilder out) {
+        out.append(matcher.group(1)).append(hostPort.applyAsInt(Integer.parseInt(matcher.group(2))));
+        if (matcher.group(3) != null) {
+            int from = Integer.parseInt(matcher.group(2));
+            int to = Integer.parseInt(matcher.group(3));
+            for (int port = from + 1; port < to; port++) hostPort.applyAsInt(port);
+            out.append('-').append(hostPort.applyAsInt(to));
+        }
+        out.append(matcher.group(4));
+    }
+}
@@ -0,0 +1,143 @@
+package container.kitty;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Working directories for running compose projects, so that several compositions (or several
+ * versions of one) can be started and stopped concurrently. Each directory is named after the
+ * composition, the version and the hash of the compose file in the {@link BlobStore}; its compose
+ * file is a hard link to the stored blob, and its files are never modified, so concurrent starts of
+ * different projects cannot step on each other and a restart of the same project reuses the directory.
+ * <p>
+ * Projects are also given a port slot. Slot 0 keeps the compose file's host ports; a project whose
+ * ports are taken (by another project or any other process) moves to the next slot whose shifted
+ * ports are all free, and runs from a rewritten copy of the file. Thread-safe.
+ */
+@SuppressWarnings({
+        "ClassWithoutLogger",
+        "MagicNumber"
+})
+public class ComposeWorkspaces {
+
+    static final int PORT_OFFSET_STEP = Integer.getInteger("container.kitty.portOffsetStep", 100);
+    private static final int MAX_SLOTS = 64;
+    private static final int HASH_CHARS = 12;
+
+    /** Where to run one project from. */
+    public record Workspace(Path dir, Path composeFile, Path envFile, int portOffset) { }
+
+    private final Path root;
+    private final Map<String, Integer> slots = new HashMap<>(16); // guarded by this
+
+    public ComposeWorkspaces(Path root) {
+        this.root = root;
+    }
+
+    public Path root() {
+        return root;
+    }
+
+    /**
+     * Prepares the directory for a project and picks its port slot.
+     *
+     * @throws IOException if the files cannot be written or no slot has all its ports free
+     */
+    public Workspace prepare(String project, String composition, String version, BlobStore.Blob composeBlob) throws IOException {
+        Workspace files = files(composition, version, composeBlob);
+        String yaml = Files.readString(files.composeFile()); // only the port rewrite needs the text
+        int offset = allocateSlot(project, ComposeRewriter.hostPorts(yaml)) * PORT_OFFSET_STEP;
+        if (offset == 0) return files;
+
+        String shifted = ComposeRewriter.offset(yaml, offset, project);
+        Path composeFile = writeOnce(files.dir().resolve("docker-compose.ports-" + offset + ".yml"),
+                shifted.getBytes(StandardCharsets.UTF_8));
+        return new Workspace(files.dir(), composeFile, files.envFile(), offset);
+    }
+
+    /** The directory with the unmodified compose file, without taking a port slot, e.g. for pulling images. */
+    public Workspace files(String composition, String version, BlobStore.Blob composeBlob) throws IOException {
+        String hash = composeBlob.id().substring(0, HASH_CHARS);
+        Path dir = root.resolve(ContainerKittyController.sanitizeProjectName(composition + "-" + version) + "-" + hash);
+        Files.createDirectories(dir);
+
+        Path composeFile = linkOnce(dir.resolve("docker-compose.yml"), composeBlob.path());
+        Path envFile = writeOnce(dir.resolve(".env"), ("IMAGE_TAG=" + version + "\n").getBytes(StandardCharsets.UTF_8));
+        return new Workspace(dir, composeFile, envFile, 0);
+    }
+
+    /** The project was stopped; its slot may be reused. */
+    public synchronized void release(String project) {
+        slots.remove(project);
+    }
+
+    private synchronized int allocateSlot(String project, Set<Integer> hostPorts) throws IOException {
+        Integer current = slots.get(project);
+        if (current != null) return current; // restarted without a stop: keep its ports
+
+        Collection<Integer> taken = slots.values();
+        for (int slot = 0; slot < MAX_SLOTS; slot++) {
+            if (taken.contains(slot)) continue;
+            if (portsFree(hostPorts, slot * PORT_OFFSET_STEP)) {
+                slots.put(project, slot);
+                return slot;
+            }
+        }
+        throw new IOException("No free host ports for " + project + " within " + MAX_SLOTS + " offsets of " + hostPorts);
+    }
+
+    private static boolean portsFree(Set<Integer> hostPorts, int offset) {
+        for (int port : hostPorts) {
+            int shifted = port + offset;
+            if (shifted > 65535) return false;
+            try (ServerSocket socket = new ServerSocket()) {
+                socket.setReuseAddress(false);
+                socket.bind(new InetSocketAddress(shifted));
+            } catch (IOException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Files are named by their content, so an existing file is already correct. */
+    private static Path writeOnce(Path file, byte[] content) throws IOException {
+        if (Files.isRegularFile(file) && Files.size(file) == content.length) return file;
+        Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            Files.write(tmp, content);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return file;
+    }
+
+    /** Links the file to its blob, or copies it where the two are on different file systems. */
+    private static Path linkOnce(Path file, Path blob) throws IOException {
+        if (Files.isRegularFile(file) && Files.size(file) == Files.size(blob)) return file;
+        Path tmp = file.resolveSibling(file.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            try {
+                Files.createLink(tmp, blob);
+            } catch (IOException | UnsupportedOperationException e) {
+                Files.copy(blob, tmp);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return file;
+    }
+
+    @Override
+    public final String toString() {
+        synchronized (this) {
+            return "ComposeWorkspaces{root=" + root + ", slots=" + slots + "}";
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package container.kitty;
+
+import javafx.collections.ObservableList;
+import javafx.scene.control.TreeItem;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * A composition row of the catalog tree. Its version rows are created the first time the children
+ * are asked for, normally when the row is expanded, so a collapsed composition costs one row no
+ * matter how many versions the manifest lists.
+ */
+@SuppressWarnings("ClassWithoutLogger")
+class CompositionTreeItem extends TreeItem<CompositionVersion> {
+
+    private final CatalogIndex index;
+    private final CatalogIndex.Match match;
+    private boolean loaded;
+
+    CompositionTreeItem(CatalogIndex index, CatalogIndex.Match match) {
+        super(new CompositionVersion(match.composition(), null));
+        this.index = index;
+        this.match = match;
+    }
+
+    /** Matching versions, without creating their rows. */
+    int versionCount() {
+        return match.versionCount();
+    }
+
+    @Override
+    public boolean isLeaf() {
+        return false; // a composition only appears in the tree with at least one matching version
+    }
+
+    @Override
+    public ObservableList<TreeItem<CompositionVersion>> getChildren() {
+        if (!loaded) {
+            loaded = true;
+            BitSet versions = match.versions();
+            List<TreeItem<CompositionVersion>> children = new ArrayList<>(match.versionCount());
+            for (int v = versions.nextSetBit(0); v >= 0; v = versions.nextSetBit(v + 1)) {
+                children.add(new TreeItem<>(new CompositionVersion(match.composition(), index.version(v))));
+            }
+            super.getChildren().setAll(children);
+        }
+        return super.getChildren();
+    }
+
+    @Override
+    public final String toString() {
+        return "CompositionTreeItem{" + match.composition().name() + ", versions=" + versionCount()
+                + ", loaded=" + loaded + "}";
+    }
+}
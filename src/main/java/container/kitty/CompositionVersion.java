@@ -18,19 +18,19 @@ public class CompositionVersion {
     }
 
     public String getCompositionName() {
-        return composition != null ? composition.getName() : "";
+        return composition != null ? composition.name() : "";
     }
 
     public String getVersionIdent() {
-        return version != null ? version.getIdent() : "";
+        return version != null ? version.ident() : "";
     }
 
     public String getCompositionComment() {
-        return composition != null ? composition.getComment() : "";
+        return composition != null ? composition.comment() : "";
     }
 
     public String getVersionComment() {
-        return version != null ? version.getComment() : "";
+        return version != null ? version.comment() : "";
     }
 
     @Override
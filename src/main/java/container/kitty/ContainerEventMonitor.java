@@ -0,0 +1,136 @@
+package container.kitty;
+
+import java.io.IOException;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the container table in sync with the Docker Engine event stream.
+ * A full container listing is only requested when the stream (re)connects; after that,
+ * each state-changing event triggers a lookup of just the affected container.
+ */
+@SuppressWarnings({
+        "ClassWithoutLogger",
+        "MagicNumber"
+})
+public class ContainerEventMonitor {
+
+    /** Receives container state changes; called on the monitor thread. */
+    public interface Listener {
+        void onResync(List<ContainerState> containers);
+
+        /** A running container was started or changed state. */
+        void onContainerUpdated(ContainerState container);
+
+        /** A container is no longer running. */
+        void onContainerRemoved(String containerId);
+
+        void onEvent(DockerEngineClient.DockerEvent event);
+
+        void onConnectionLost(IOException e);
+    }
+
+    private static final long MAX_BACKOFF_MILLIS = 30_000L;
+
+    private final DockerEngineClient client;
+    private final Listener listener;
+
+    private volatile boolean running;
+    private volatile boolean connected;
+    private volatile SocketChannel eventChannel;
+    private Thread thread;
+
+    public ContainerEventMonitor(DockerEngineClient client, Listener listener) {
+        this.client = client;
+        this.listener = listener;
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        thread = new Thread(this::run, "container-kitty-events");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** True while the event stream is connected and the table can be trusted to be current. */
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /** Re-lists all containers over the socket (no process fork). */
+    public void resync() throws IOException {
+        listener.onResync(client.listComposeContainers());
+    }
+
+    private void run() {
+        long backoff = 500L;
+        while (running) {
+            try (SocketChannel channel = client.connect()) {
+                eventChannel = channel;
+                // take the timestamp before listing so no event between list and subscribe is lost
+                long since = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+                resync();
+                connected = true;
+                backoff = 500L;
+                client.streamEvents(channel, since, this::handleEvent);
+            } catch (IOException e) {
+                if (running) {
+                    listener.onConnectionLost(e);
+                }
+            } finally {
+                connected = false;
+                eventChannel = null;
+            }
+
+            if (!running) break;
+            try {
+                TimeUnit.MILLISECONDS.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+        }
+    }
+
+    private void handleEvent(DockerEngineClient.DockerEvent event) {
+        listener.onEvent(event);
+        if (!event.changesState() || event.containerId().isEmpty()) return;
+
+        if ("destroy".equals(event.action())) {
+            listener.onContainerRemoved(event.containerId());
+            return;
+        }
+
+        try {
+            ContainerState container = client.findRunningContainer(event.containerId());
+            if (container == null) {
+                listener.onContainerRemoved(event.containerId());
+            } else {
+                listener.onContainerUpdated(container);
+            }
+        } catch (IOException e) {
+            listener.onConnectionLost(e);
+        }
+    }
+
+    public synchronized void stop() {
+        running = false;
+        SocketChannel channel = eventChannel;
+        if (channel != null) {
+            try {
+                channel.close(); // unblocks the reader thread
+            } catch (IOException ignored) {}
+        }
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    @Override
+    public final String toString() {
+        return "ContainerEventMonitor{client=" + client + ", connected=" + connected + "}";
+    }
+}
@@ -0,0 +1,131 @@
+package container.kitty;
+
+import java.util.*;
+
+/**
+ * Running and total container counts, overall and per compose project, kept up to date by
+ * {@link ContainerTableModel} as rows are added, changed and removed. Button and status bar updates
+ * read these instead of scanning the table, so they cost the same for 5 containers or 500.
+ * Also caches the sanitized compose project name of each composition/version pair.
+ * Must be used on the FX thread.
+ */
+@SuppressWarnings({
+        "ClassWithoutLogger",
+        "MagicNumber"
+})
+public class ContainerIndex {
+
+    /** Bound on cached compositions; the manifest rarely lists more than a few dozen. */
+    private static final int NAME_CACHE_CAPACITY = 1024;
+
+    /** Mutable so that a status change does not allocate. */
+    private static final class Counts {
+        int running;
+        int total;
+    }
+
+    private final Map<String, Counts> byProject = new HashMap<>(32);
+    private final Set<String> runningProjects = new LinkedHashSet<>(16);
+    private final Set<String> runningProjectsView = Collections.unmodifiableSet(runningProjects);
+    private final Map<String, Map<String, String>> projectNames = new HashMap<>(64);
+    private int running;
+    private int total;
+
+    static boolean isRunning(String status) {
+        return status != null && status.startsWith("Up");
+    }
+
+    /** A row was added to the table. */
+    void add(String project, String status) {
+        total++;
+        boolean up = isRunning(status);
+        if (up) running++;
+        if (project == null || project.isEmpty()) return;
+        Counts counts = byProject.computeIfAbsent(project, p -> new Counts());
+        counts.total++;
+        if (up) {
+            counts.running++;
+            runningProjects.add(project);
+        }
+    }
+
+    /** A row was removed from the table. */
+    void remove(String project, String status) {
+        total--;
+        boolean up = isRunning(status);
+        if (up) running--;
+        if (project == null || project.isEmpty()) return;
+        Counts counts = byProject.get(project);
+        if (counts == null) return;
+        counts.total--;
+        if (up && --counts.running == 0) {
+            runningProjects.remove(project);
+        }
+        if (counts.total == 0) {
+            byProject.remove(project);
+        }
+    }
+
+    /** A row's project or status changed in place. */
+    void update(String oldProject, String oldStatus, String project, String status) {
+        if (Objects.equals(oldProject, project) && isRunning(oldStatus) == isRunning(status)) return;
+        remove(oldProject, oldStatus);
+        add(project, status);
+    }
+
+    public int runningCount() {
+        return running;
+    }
+
+    public int totalCount() {
+        return total;
+    }
+
+    public boolean anyRunning() {
+        return running > 0;
+    }
+
+    public boolean isProjectRunning(String project) {
+        return runningProjects.contains(project);
+    }
+
+    public int runningCount(String project) {
+        Counts counts = byProject.get(project);
+        return counts == null ? 0 : counts.running;
+    }
+
+    public int totalCount(String project) {
+        Counts counts = byProject.get(project);
+        return counts == null ? 0 : counts.total;
+    }
+
+    /** Compose projects with at least one running container, in the order they started running. */
+    public Set<String> runningProjects() {
+        return runningProjectsView;
+    }
+
+    /**
+     * The compose project name for a composition/version pair, sanitized once and then cached.
+     * Keyed by composition and then version, so a cache hit builds no key string.
+     */
+    public String projectName(String composition, String version) {
+        Map<String, String> versions = projectNames.get(composition);
+        if (versions == null) {
+            if (projectNames.size() >= NAME_CACHE_CAPACITY) projectNames.clear();
+            versions = new HashMap<>(16);
+            projectNames.put(composition, versions);
+        }
+        String name = versions.get(version);
+        if (name == null) {
+            name = ContainerKittyController.sanitizeProjectName(composition + "-" + version);
+            versions.put(version, name);
+        }
+        return name;
+    }
+
+    @Override
+    public final String toString() {
+        return "ContainerIndex{running=" + running + "/" + total + ", projects=" + byProject.size()
+                + ", runningProjects=" + runningProjects + "}";
+    }
+}
@@ -3,45 +3,135 @@ package container.kitty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
 
+import java.util.Locale;
+
+/**
+ * A container table row: the latest {@link ContainerState} of one container plus its resource
+ * usage, kept as plain values. A JavaFX property is only created when a cell asks for it, which
+ * the table does for visible rows only, and is updated in place from then on. Rows scrolled out
+ * of view, or never shown, cost a few fields; stats are formatted only for columns on screen.
+ * Must be used on the FX thread.
+ */
+@SuppressWarnings({
+        "ClassWithoutLogger",
+        "MagicNumber"
+})
 public class ContainerInfo {
-    private final StringProperty name;
-    private final StringProperty image;
-    private final StringProperty status;
-    private final StringProperty project;
-    private final StringProperty memUsage;
-
-    public ContainerInfo(String name, String image, String status, String project, String memUsage) {
-        this.name = new SimpleStringProperty(name);
-        this.image = new SimpleStringProperty(image);
-        this.status = new SimpleStringProperty(status);
-        this.project = new SimpleStringProperty(project);
-        this.memUsage = new SimpleStringProperty(memUsage);
-    }
-
-    public StringProperty nameProperty() { return name; }
-    public StringProperty imageProperty() { return image; }
-    public StringProperty statusProperty() { return status; }
-    public StringProperty memUsageProperty() { return memUsage; }
-
-    // Convenience getters
-    public String getName() { return name.get(); }
-    public String getImage() { return image.get(); }
-    public String getStatus() { return status.get(); }
-    public String getMemUsage() { return memUsage.get(); }
-    public String getProject() { return project.get(); }
-
-    // Optional setters if needed
-    public void setName(String name) { this.name.set(name); }
-    public void setImage(String image) { this.image.set(image); }
-    public void setStatus(String status) { this.status.set(status); }
-    public void setMemUsage(String memUsage) { this.memUsage.set(memUsage); }
+
+    private static final int NAME = 0;
+    private static final int IMAGE = 1;
+    private static final int STATUS = 2;
+    private static final int PROJECT = 3;
+    private static final int CPU = 4;
+    private static final int MEM = 5;
+    private static final int NET = 6;
+    private static final String[] FIELD_NAMES = {"name", "image", "status", "project", "cpuUsage", "memUsage", "netIO"};
+
+    private ContainerState state;
+    private boolean hasStats;
+    private double cpuPercent;
+    private long memUsedBytes;
+    private long memLimitBytes;
+    private long netRxBytes;
+    private long netTxBytes;
+    private StringProperty[] properties; // created on the first bind, one slot per field
+
+    public ContainerInfo(ContainerState state) {
+        this.state = state;
+    }
+
+    /** Takes a newer snapshot of the same container; returns true if anything changed. */
+    public boolean update(ContainerState next) {
+        ContainerState previous = state;
+        if (previous.equals(next)) return false;
+        state = next;
+        if (properties != null) {
+            if (!previous.name().equals(next.name())) refresh(NAME);
+            if (!previous.image().equals(next.image())) refresh(IMAGE);
+            if (!previous.status().equals(next.status())) refresh(STATUS);
+            if (!previous.project().equals(next.project())) refresh(PROJECT);
+        }
+        return true;
+    }
+
+    /** Records a stats sample; a CPU of NaN or negative sizes show as "--". */
+    public void updateStats(double cpuPercent, long memUsedBytes, long memLimitBytes, long netRxBytes, long netTxBytes) {
+        this.cpuPercent = cpuPercent;
+        this.memUsedBytes = memUsedBytes;
+        this.memLimitBytes = memLimitBytes;
+        this.netRxBytes = netRxBytes;
+        this.netTxBytes = netTxBytes;
+        hasStats = true;
+        if (properties != null) {
+            refresh(CPU);
+            refresh(MEM);
+            refresh(NET);
+        }
+    }
+
+    public StringProperty nameProperty() { return property(NAME); }
+    public StringProperty imageProperty() { return property(IMAGE); }
+    public StringProperty statusProperty() { return property(STATUS); }
+    public StringProperty projectProperty() { return property(PROJECT); }
+    public StringProperty cpuUsageProperty() { return property(CPU); }
+    public StringProperty memUsageProperty() { return property(MEM); }
+    public StringProperty netIOProperty() { return property(NET); }
+
+    public ContainerState getState() { return state; }
+    public String getId() { return state.id(); }
+    public String getName() { return state.name(); }
+    public String getImage() { return state.image(); }
+    public String getStatus() { return state.status(); }
+    public String getProject() { return state.project(); }
+    public String getCpuUsage() { return value(CPU); }
+    public String getMemUsage() { return value(MEM); }
+    public String getNetIO() { return value(NET); }
+
+    private StringProperty property(int field) {
+        if (properties == null) properties = new StringProperty[FIELD_NAMES.length];
+        StringProperty property = properties[field];
+        if (property == null) {
+            property = new SimpleStringProperty(this, FIELD_NAMES[field], value(field));
+            properties[field] = property;
+        }
+        return property;
+    }
+
+    /** Updates a bound property; the property ignores values equal to its current one. */
+    private void refresh(int field) {
+        StringProperty property = properties[field];
+        if (property != null) property.set(value(field));
+    }
+
+    private String value(int field) {
+        return switch (field) {
+            case NAME -> state.name();
+            case IMAGE -> state.image();
+            case STATUS -> state.status();
+            case PROJECT -> state.project();
+            case CPU -> !hasStats ? null : Double.isNaN(cpuPercent) ? "--" : String.format(Locale.ROOT, "%.1f %%", cpuPercent);
+            case MEM -> !hasStats ? null : formatSize(memUsedBytes) + " / " + formatSize(memLimitBytes);
+            case NET -> !hasStats ? null : formatSize(netRxBytes) + " / " + formatSize(netTxBytes);
+            default -> throw new IllegalArgumentException("field " + field);
+        };
+    }
+
+    static String formatSize(long bytes) {
+        if (bytes < 0) return "--";
+        if (bytes < 1024) return bytes + " B";
+        int unit = (63 - Long.numberOfLeadingZeros(bytes)) / 10;
+        return String.format(Locale.ROOT, "%.1f %siB", bytes / (double) (1L << (unit * 10)), "KMGTPE".charAt(unit - 1));
+    }
 
     @Override
     public String toString() {
-        return "ContainerInfo{name=" + getName() +
+        return "ContainerInfo{id=" + getId() +
+                ", name=" + getName() +
                 ", image=" + getImage() +
                 ", status=" + getStatus() +
                 ", project=" + getProject() +
-                ", memUsage=" + getMemUsage() + "}";
+                ", cpuUsage=" + getCpuUsage() +
+                ", memUsage=" + getMemUsage() +
+                ", netIO=" + getNetIO() + "}";
     }
 }
@@ -41,5 +41,9 @@ public class ContainerKittyApplication extends Application {
         });
 
         primaryStage.show();
+
+        // Poll less while the window is hidden
+        ContainerKittyController controller = loader.getController();
+        controller.bindStage(primaryStage);
     }
 }
@@ -1,26 +1,39 @@
 package container.kitty;
 
+import javafx.animation.AnimationTimer;
 import javafx.animation.KeyFrame;
+import javafx.animation.PauseTransition;
 import javafx.animation.Timeline;
 import javafx.application.Platform;
 import javafx.beans.property.SimpleStringProperty;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
+import javafx.scene.chart.LineChart;
+import javafx.scene.chart.XYChart;
 import javafx.scene.control.*;
 import javafx.scene.image.ImageView;
+import javafx.geometry.Pos;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Pane;
 import javafx.scene.layout.Region;
+import javafx.scene.layout.VBox;
+import javafx.stage.Modality;
+import javafx.stage.Stage;
 import javafx.util.Duration;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.nio.file.StandardCopyOption;
-import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
+import java.nio.file.Path;
+import java.net.URI;
+import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
-
-import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.regex.PatternSyntaxException;
 
 /**
  * ContainerKittyController
@@ -38,9 +51,11 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 })
 public class ContainerKittyController {
 
-    // Remote URL for production
-    private static final String VERSIONS_JSON_URL =
-            "https://gitlab.com/<namespace>/<repo>/-/raw/main/docker/compose/versions.json";
+    // Remote URL for production, used by the http manifest source
+    private static final String VERSIONS_JSON_URL = System.getProperty("container.kitty.manifestUrl",
+            "https://gitlab.com/<namespace>/<repo>/-/raw/main/docker/compose/versions.json");
+    // git (default), http or classpath (default with --dev)
+    private static final String MANIFEST_SOURCE = System.getProperty("container.kitty.manifestSource");
 
     private static final String DOCKER_CMD = "docker";
     private static final String COMPOSE_CMD = "compose";
@@ -49,32 +64,164 @@ public class ContainerKittyController {
 
     private static final Pattern PATTERN = Pattern.compile("[^a-z0-9-_]");
     private static final String[] EMPTY_CMD = new String[0];
-    private static final CompletableFuture<?>[] EMPTY_FUTURES = new CompletableFuture[0];
+
+    // Log lines kept in the view; older lines are discarded
+    private static final int LOG_RETENTION = Integer.getInteger("container.kitty.logRetention", 10_000);
+    // Lines that may pile up before the FX thread drains them; the oldest are dropped beyond this
+    private static final int LOG_PENDING_CAPACITY = 8192;
+    private static final long STATS_RENDER_INTERVAL_MILLIS =
+            Long.getLong("container.kitty.statsIntervalMillis", 1000L);
+    private static final int CHART_POINTS = 300;
+    // A search matching at most this many pairs expands the matching compositions
+    private static final int CATALOG_AUTO_EXPAND_PAIRS = 200;
+    // How long a started stack may take until every service is healthy, and how many starts are kept
+    private static final long READY_TIMEOUT_SECONDS = Long.getLong("container.kitty.readyTimeoutSeconds", 300L);
+    private static final int STARTUP_HISTORY_SIZE = Integer.getInteger("container.kitty.startupHistorySize", 200);
+    // Pull the images of the selected version and of new versions in the background
+    private static final boolean PREFETCH = Boolean.parseBoolean(System.getProperty("container.kitty.prefetch", "true"));
+    // A manifest refresh may include the first clone of the git mirror, which git is allowed 5 minutes for
+    private static final java.time.Duration MANIFEST_REFRESH_TIMEOUT =
+            java.time.Duration.ofSeconds(Long.getLong("container.kitty.manifestTimeoutSeconds", 900L));
+    private static final long METRICS_EXPORT_SECONDS = Long.getLong("container.kitty.metricsExportSeconds", 60L);
+    // docker ps polling (only without the engine event stream): fast during transitions, backing off when idle
+    private static final long POLL_FAST_MILLIS = Long.getLong("container.kitty.pollFastMillis", 500L);
+    private static final long POLL_BASE_MILLIS = 5000L;
+    private static final long POLL_MAX_MILLIS = Long.getLong("container.kitty.pollMaxSeconds", 60L) * 1000L;
+
+    /** Time spans offered for the resource history charts. */
+    private enum HistoryWindow {
+        FIVE_MINUTES("Last 5 min", 5),
+        HOUR("Last hour", 60),
+        SIX_HOURS("Last 6 hours", 360),
+        DAY("Last 24 hours", 1440);
+
+        private final String label;
+        private final long minutes;
+
+        HistoryWindow(String label, long minutes) {
+            this.label = label;
+            this.minutes = minutes;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
 
     @FXML private Label statusLabel;
-    @FXML private TextArea logArea;
+    @FXML private Label manifestLabel;
+    @FXML private ListView<LogEntry> logView;
     @FXML private TableView<ContainerInfo> containerTable;
     @FXML private TableColumn<ContainerInfo, String> nameColumn;
     @FXML private TableColumn<ContainerInfo, String> imageColumn;
     @FXML private TableColumn<ContainerInfo, String> statusColumn;
     @FXML private TableColumn<ContainerInfo, String> projectColumn;
+    @FXML private TableColumn<ContainerInfo, String> cpuColumn;
+    @FXML private TableColumn<ContainerInfo, String> memColumn;
+    @FXML private TableColumn<ContainerInfo, String> netColumn;
+    @FXML private Label historyLabel;
+    @FXML private ComboBox<HistoryWindow> historyWindowBox;
+    @FXML private LineChart<Number, Number> cpuChart;
+    @FXML private LineChart<Number, Number> memChart;
     @FXML private Button startButton;
     @FXML private Button stopAllButton;
     @FXML private Button stopButton;
-    @FXML private TableView<CompositionVersion> compositionVersionTable;
-    @FXML private TableColumn<CompositionVersion, String> compositionColumn;
-    @FXML private TableColumn<CompositionVersion, String> versionColumn;
-    @FXML private TableColumn<CompositionVersion, String> commentColumn;
+    @FXML private MenuButton operationsButton;
+    @FXML private TextField catalogSearchField;
+    @FXML private TreeTableView<CompositionVersion> compositionVersionTable;
+    @FXML private TreeTableColumn<CompositionVersion, String> compositionColumn;
+    @FXML private TreeTableColumn<CompositionVersion, String> versionColumn;
+    @FXML private TreeTableColumn<CompositionVersion, String> imagesColumn;
+    @FXML private Button containerLogsButton;
+    @FXML private TreeTableColumn<CompositionVersion, String> commentColumn;
 
     // local cache of lists
     private List<Composition> availableCompositions = List.of();
-    private List<Version> availableVersions = List.of();
-    private Timeline statusUpdater;
-    private File tempComposeDir;
+    private CatalogIndex catalogIndex = new CatalogIndex(List.of(), List.of());
+    private final TreeItem<CompositionVersion> catalogRoot = new TreeItem<>();
+    private PauseTransition pollTimer;
+    private AdaptivePollPolicy pollPolicy;
+    private Map<String, String> lastPollState = Map.of();
+    private boolean windowIconified;
+    private ContainerEventMonitor containerMonitor;
+    private ContainerTableModel containerModel;
+    private DockerEngineClient engineClient;
+    private ContainerSnapshotService snapshotService;
+    private long appliedSnapshotVersion;
+    private StatsCollector statsCollector;
+    private Timeline statsRenderer;
+    private final MetricsRegistry metrics = MetricsRegistry.get();
+    private final AtomicInteger fxPending = new AtomicInteger();
+    private final LatencyHistogram fxDelay = metrics.histogram("container_kitty_fx_runlater_delay_seconds");
+    private MetricsExporter metricsExporter;
+    // per-container CPU/memory history; only touched on the FX thread
+    private final Map<String, ResourceHistory> histories = new HashMap<>(32);
+    private final XYChart.Series<Number, Number> cpuSeries = new XYChart.Series<>();
+    private final XYChart.Series<Number, Number> memSeries = new XYChart.Series<>();
+    private ManifestSnapshotStore manifestStore;
+    private volatile ManifestSnapshot currentManifest;
+    private volatile boolean manifestOffline;
+    private final LogBuffer logBuffer = new LogBuffer(LOG_PENDING_CAPACITY);
+    private final List<LogEntry> logBatch = new ArrayList<>(LOG_PENDING_CAPACITY);
+    private ComposeWorkspaces composeWorkspaces;
+    private BlobStore composeBlobs;
+    private ManifestSource manifestSource;
+    private StartupTracer startupTracer;
+    private ContainerLogStreams containerLogs;
+
+    // Container log window; only touched on the FX thread
+    private static final int LOG_VIEWER_LINES = 20_000;
+    private static final int LOG_VIEWER_LINES_PER_PULSE = 2_000; // per container, so one noisy service cannot starve the UI
+    private static final int LOG_SEARCH_MATCHES = 10_000;
+    private static final String ALL_SERVICES = "All services";
+    private Alert logViewerDialog;
+    private String logViewerProject;
+    private ListView<String> logViewerLines;
+    private ComboBox<String> logViewerService;
+    private TextField logViewerSearch;
+    private CheckBox logViewerRegex;
+    private Label logViewerStatus;
+    private AnimationTimer logViewerPump;
+    private boolean logViewerSearching;
+    private final Map<String, String> logViewerContainers = new LinkedHashMap<>(); // container ID to service
+    private final Map<String, Long> logViewerCursors = new HashMap<>(); // container ID to next line shown
+    private final TeardownEngine teardownEngine = new TeardownEngine(new TeardownEngine.Docker() {
+        @Override
+        public int run(String project, TeardownEngine.Step step, List<String> containerIds) {
+            return runTeardownStep(project, step, containerIds);
+        }
+
+        @Override
+        public List<String> containers(String project) throws IOException {
+            return listProjectContainerIds(project);
+        }
+    }, this::submitTeardownStep, TeardownEngine.MAX_PARALLEL, progress -> runOnFx(() -> onTeardownProgress(progress)));
+    private final PrefetchEngine prefetchEngine = new PrefetchEngine(new PrefetchEngine.Docker() {
+        @Override
+        public List<String> images(PrefetchEngine.Key key) throws IOException {
+            return composeImages(key);
+        }
+
+        @Override
+        public boolean present(List<String> images) {
+            return imagesPresent(images);
+        }
+
+        @Override
+        public int pull(PrefetchEngine.Key key) throws IOException {
+            return pullImages(key);
+        }
+    }, this::runQueryAsync, this::runPrefetchAsync, key -> runOnFx(() -> onPrefetchStateChanged(key)));
+    // Stop All progress window; only touched on the FX thread
+    private Alert teardownDialog;
+    private ListView<TeardownEngine.Progress> teardownList;
+    private ProgressBar teardownBar;
+    private int teardownTotal;
 
     @FXML
     private void handleAbout() {
-        String tempDirPath = (tempComposeDir != null) ? tempComposeDir.getAbsolutePath() : "Not initialized";
+        String tempDirPath = (composeWorkspaces != null) ? composeWorkspaces.root().toString() : "Not initialized";
         String dockerPath = detectDockerPath();
 
         String content = """
@@ -88,11 +235,14 @@ public class ContainerKittyController {
         OS: %s %s (%s)
         Docker Executable: %s
 
-        Docker Compose Versions JSON:
+        Manifest Source:
         %s
 
         Temporary Compose Directory:
         %s
+
+        Git Mirror:
+        %s
         """.formatted(
                 System.getProperty("java.version"),
                 System.getProperty("javafx.runtime.version", "Unknown"),
@@ -100,8 +250,9 @@ public class ContainerKittyController {
                 System.getProperty("os.version"),
                 System.getProperty("os.arch"),
                 dockerPath,
-                VERSIONS_JSON_URL,
-                tempDirPath
+                manifestSource != null ? manifestSource.describe() : "Not initialized",
+                tempDirPath,
+                gitMirror != null ? gitMirror.getMirrorDir() : "Not used"
         );
 
         TextArea textArea = new TextArea(content);
@@ -133,7 +284,7 @@ public class ContainerKittyController {
                 alert.setGraphic(imageView);
             }
         } catch (RuntimeException e) {
-            appendLog("Failed to load About logo: " + e.getMessage());
+            appendLog(LogEntry.Level.WARN, "app", "Failed to load About logo: " + e.getMessage());
         }
 
         alert.showAndWait();
@@ -154,6 +305,7 @@ public class ContainerKittyController {
 
             ProcessBuilder pb = new ProcessBuilder(cmd);
             Process process = pb.start();
+            MetricsRegistry.get().counter(MetricsRegistry.PROCESS_SPAWNS).increment();
 
             try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
                 String line = reader.readLine();
@@ -172,182 +324,752 @@ public class ContainerKittyController {
 
     @FXML
     private void handleClearLogs() {
-        logArea.clear();
+        logView.getItems().clear();
     }
 
-    private String activeComposeProject; // project name of the running composition
+    // projects whose start was submitted but has not finished; only touched on the FX thread
+    private final Set<String> startingProjects = new HashSet<>();
 
     @FXML
     private void handleStart() {
-        if (activeComposeProject != null) {
-            showError("Another composition is already running: " + activeComposeProject);
+        CompositionVersion selected = selectedCompositionVersion();
+        if (selected == null || selected.getComposition() == null) {
+            showError("No composition/version selected.");
             return;
         }
 
-        CompositionVersion selected = compositionVersionTable.getSelectionModel().getSelectedItem();
-        if (selected == null || selected.getComposition() == null || selected.getVersion() == null) {
-            showError("No composition/version selected.");
+        String compositionName = selected.getCompositionName();
+        String versionIdent = selected.getVersionIdent();
+        String projectName = containerModel.index().projectName(compositionName, versionIdent);
+        if (startingProjects.contains(projectName) || containerModel.index().isProjectRunning(projectName)) {
+            showError("Composition is already running: " + projectName);
             return;
         }
-
-        String projectName = sanitizeProjectName(selected.getCompositionName() + "-" + selected.getVersionIdent());
-        activeComposeProject = projectName;
+        startingProjects.add(projectName);
         updateButtons();
+        StartupTracer.Run trace = startupTracer.begin(projectName, compositionName, versionIdent);
 
-        runCommandAsync(() -> {
+        // Each project runs from its own directory, so starts of different projects can overlap
+        runMutationAsync(projectName, "start " + projectName, () -> {
             try {
-                File composeFile = downloadComposeFile(selected.getCompositionName());
-                if (composeFile == null) {
-                    String msg = "Failed to download compose file for " + selected.getCompositionName();
-                    appendLog("ERROR: " + msg);
-                    showError(msg);
-                    activeComposeProject = null;
-                    Platform.runLater(this::updateButtons);
-                    return;
+                long phase = System.currentTimeMillis();
+                BlobStore.Blob composeFile = downloadComposeFile(compositionName);
+                trace.phase("fetch compose file", phase);
+
+                phase = System.currentTimeMillis();
+                ComposeWorkspaces.Workspace workspace = composeWorkspaces.prepare(projectName, compositionName, versionIdent, composeFile);
+                trace.phase("write workspace", phase);
+                appendLog("Prepared " + workspace.dir() + " with IMAGE_TAG=" + versionIdent);
+                if (workspace.portOffset() > 0) {
+                    appendLog(LogEntry.Level.WARN, "app", "Host ports of " + projectName + " are taken; publishing them shifted by +"
+                            + workspace.portOffset());
                 }
 
-                // Write .env file
-                File envFile = new File(tempComposeDir, ".env");
-                Files.writeString(envFile.toPath(), "IMAGE_TAG=" + selected.getVersionIdent() + "\n", StandardCharsets.UTF_8);
-                appendLog("Wrote environment file with IMAGE_TAG=" + selected.getVersionIdent());
+                // Pull separately, and only if something is missing, so the waterfall shows pull and create apart
+                List<String> composeArgs = composeArgs(projectName, workspace);
+                phase = System.currentTimeMillis();
+                trace.expect(composeConfig(composeArgs, "--services"));
+                boolean warm = imagesPresent(composeConfig(composeArgs, "--images"));
+                trace.phase("check images", phase);
+                if (!warm) {
+                    phase = System.currentTimeMillis();
+                    int pulled = _runCommand(composeCmd(composeArgs, "pull", "--quiet", "--ignore-buildable"), null, null);
+                    trace.phase("pull images", phase);
+                    if (pulled != 0) appendLog(LogEntry.Level.WARN, "app", "Pulling images of " + projectName + " failed; compose up retries");
+                }
 
                 // Run docker-compose up
-                String[] cmd = dockerCmd(
-                        COMPOSE_CMD,
-                        "-p", projectName,
-                        "--env-file", envFile.getAbsolutePath(),
-                        "-f", composeFile.getAbsolutePath(),
-                        UP_CMD, "-d"
-                );
-
-                _runCommand(cmd, null, "Failed to start composition " + projectName);
-
-                appendLog("Started " + selected.getCompositionName() + " version " + selected.getVersionIdent());
+                phase = System.currentTimeMillis();
+                int exitCode = _runCommand(composeCmd(composeArgs, UP_CMD, "-d"), null, "Failed to start composition " + projectName);
+                trace.phase("compose up", phase);
+                trace.upFinished(exitCode);
+                if (exitCode == 0) {
+                    appendLog("Started " + compositionName + " version " + versionIdent + "; waiting for services to become ready");
+                    prefetchEngine.markWarm(new PrefetchEngine.Key(compositionName, versionIdent));
+                } else {
+                    composeWorkspaces.release(projectName);
+                }
             } catch (IOException e) {
                 String msg = "Error starting composition: " + e.getMessage();
-                appendLog("ERROR: " + msg);
+                appendLog(LogEntry.Level.ERROR, "app", msg);
                 showError(msg);
-                activeComposeProject = null;
-                Platform.runLater(this::updateButtons);
+                trace.fail(e.getMessage());
+                composeWorkspaces.release(projectName);
+            }
+        }).completion().whenComplete((r, e) -> {
+            if (e != null) {
+                trace.fail("start " + (e instanceof CancellationException ? "cancelled or timed out" : "failed"));
+                composeWorkspaces.release(projectName);
             }
+            refreshContainers();
+            runOnFx(() -> {
+                startingProjects.remove(projectName);
+                updateButtons();
+                onContainersTransition();
+            });
         });
+        onContainersTransition();
     }
 
-    private static String sanitizeProjectName(String name) {
+    static String sanitizeProjectName(String name) {
         // Lowercase, replace non-alphanumeric chars with dash
         return PATTERN.matcher(name.toLowerCase(Locale.ROOT)).replaceAll("-");
     }
 
-    private void detectActiveComposeProject() {
+    /** Logs the compose projects that were already running when the app started. */
+    private void logRunningProjects(ContainerSnapshotService.Snapshot snapshot) {
+        snapshot.containers().stream()
+                .map(ContainerState::project)
+                .filter(project -> !project.isEmpty())
+                .distinct()
+                .forEach(project -> appendLog("Detected running composition project: " + project));
+    }
+
+    @FXML
+    private void handleStop() {
+        CompositionVersion selected = selectedCompositionVersion();
+        String projectToStop = selected == null ? null
+                : containerModel.index().projectName(selected.getCompositionName(), selected.getVersionIdent());
+        if (projectToStop == null || !containerModel.index().isProjectRunning(projectToStop)) {
+            appendLog("The selected composition is not running.");
+            return;
+        }
+
+        stopProject(projectToStop).whenComplete((r, e) -> {
+            refreshContainers();
+            runOnFx(this::onContainersTransition);
+        });
+        onContainersTransition();
+    }
+
+    /** Tears one project down, escalating from down to kill to rm -f; completes once its containers are gone. */
+    private CompletableFuture<List<TeardownEngine.Progress>> stopProject(String project) {
+        return teardownEngine.teardown(List.of(project));
+    }
+
+    @FXML
+    private void handleStopAll() {
+        List<String> runningProjects = List.copyOf(containerModel.index().runningProjects());
+
+        if (runningProjects.isEmpty()) return;
+
+        showTeardownProgress(runningProjects.size());
+        teardownEngine.teardown(runningProjects).whenComplete((results, e) -> {
+            refreshContainers();
+            runOnFx(() -> {
+                onContainersTransition();
+                if (results != null) finishTeardownProgress(results);
+            });
+        });
+
+        refreshContainers();
+        onContainersTransition();
+    }
+
+    /** Lane submission for teardown steps; each step gets its own deadline. */
+    private CommandHandle submitTeardownStep(String project, String description, java.time.Duration timeout, Runnable task) {
+        return logTermination(scheduler.submitMutation(project, description, timeout, guarded(task)));
+    }
+
+    private int runTeardownStep(String project, TeardownEngine.Step step, List<String> containerIds) {
+        List<String> args = new ArrayList<>(containerIds.size() + 4);
+        switch (step) {
+            case DOWN -> args.addAll(List.of(COMPOSE_CMD, "-p", project, DOWN_CMD));
+            case KILL -> args.add("kill");
+            case REMOVE -> args.addAll(List.of("rm", "-f"));
+        }
+        args.addAll(containerIds);
+        // failures are reported by the teardown progress, not one popup per step
+        return _runCommand(dockerCmd(args.toArray(EMPTY_CMD)), null, null);
+    }
+
+    /** IDs of all containers of a compose project, including stopped ones. */
+    private List<String> listProjectContainerIds(String project) throws IOException {
+        return readCommandLines(dockerCmd("ps", "-a", "-q", "--no-trunc",
+                "--filter", "label=com.docker.compose.project=" + project));
+    }
+
+    /** Runs a short command quietly and returns its non-blank output lines; a non-zero exit is an IOException. */
+    private static List<String> readCommandLines(String... command) throws IOException {
+        ProcessBuilder pb = new ProcessBuilder(command);
+        pb.redirectError(ProcessBuilder.Redirect.DISCARD);
+        Process process = CommandHandle.track(pb.start());
+
+        List<String> lines = new ArrayList<>(8);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            //noinspection MethodCallInLoopCondition,NestedAssignment
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) lines.add(line.strip());
+            }
+        }
         try {
-            ProcessBuilder pb = new ProcessBuilder(DOCKER_CMD, "ps", "--format",
-                    "{{.Names}}|{{.Label \"com.docker.compose.project\"}}|{{.Label \"com.docker.compose.service\"}}|{{.Label \"com.docker.compose.version\"}}");
-            String command = String.join(" ", pb.command());
-            appendLog("Command: " + command);
-            Process process = pb.start();
+            int exitCode = process.waitFor();
+            if (exitCode != 0) throw new IOException(String.join(" ", command) + " exited with code " + exitCode);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(command[1] + " interrupted", e);
+        }
+        return lines;
+    }
 
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
-                String line;
-                //noinspection MethodCallInLoopCondition,NestedAssignment
-                while ((line = reader.readLine()) != null) {
-                    String[] parts = line.split("\\|");
-                    if (parts.length >= 2) {
-                        String project = parts[1];
-                        if (project != null && !project.isEmpty()) {
-                            activeComposeProject = project;
-                            appendLog("Detected active composition project: " + activeComposeProject);
-                            Platform.runLater(this::updateButtons);
-                            break;
-                        }
-                    }
+    /** docker compose arguments that address a pair's unmodified compose file. */
+    private List<String> composeArgs(PrefetchEngine.Key key) throws IOException {
+        ComposeWorkspaces.Workspace files = composeWorkspaces.files(key.composition(), key.version(),
+                readComposeFile(key.composition()));
+        return composeArgs(sanitizeProjectName(key.composition() + "-" + key.version()), files);
+    }
+
+    private static List<String> composeArgs(String project, ComposeWorkspaces.Workspace workspace) {
+        return List.of(COMPOSE_CMD, "-p", project,
+                "--env-file", workspace.envFile().toString(), "-f", workspace.composeFile().toString());
+    }
+
+    private static String[] composeCmd(List<String> composeArgs, String... subcommand) {
+        List<String> args = new ArrayList<>(composeArgs);
+        args.addAll(Arrays.asList(subcommand));
+        return dockerCmd(args.toArray(EMPTY_CMD));
+    }
+
+    /** {@code compose config} with one listing flag, e.g. {@code --images} or {@code --services}. */
+    private static List<String> composeConfig(List<String> composeArgs, String listing) throws IOException {
+        return readCommandLines(composeCmd(composeArgs, "config", listing));
+    }
+
+    private List<String> composeImages(PrefetchEngine.Key key) throws IOException {
+        return composeConfig(composeArgs(key), "--images");
+    }
+
+    private static boolean imagesPresent(List<String> images) {
+        if (images.isEmpty()) return false;
+        List<String> args = new ArrayList<>(images.size() + 3);
+        args.addAll(List.of("image", "inspect", "--format", "{{.Id}}"));
+        args.addAll(images);
+        try {
+            readCommandLines(dockerCmd(args.toArray(EMPTY_CMD)));
+            return true;
+        } catch (IOException e) {
+            return false; // at least one image is missing
+        }
+    }
+
+    private int pullImages(PrefetchEngine.Key key) throws IOException {
+        return _runCommand(composeCmd(composeArgs(key), "pull", "--quiet", "--ignore-buildable"), null, null);
+    }
+
+    private CommandHandle runPrefetchAsync(String description, Runnable task) {
+        return logTermination(scheduler.submitPrefetch(description, guarded(task)));
+    }
+
+    private void onPrefetchStateChanged(PrefetchEngine.Key key) {
+        PrefetchEngine.State state = prefetchEngine.state(key);
+        if (state == PrefetchEngine.State.WARM || state == PrefetchEngine.State.FAILED) {
+            appendLog(state == PrefetchEngine.State.WARM ? LogEntry.Level.DEBUG : LogEntry.Level.WARN, "prefetch",
+                    "Images of " + key + ": " + state.label());
+        }
+        compositionVersionTable.refresh();
+    }
+
+    private void onTeardownProgress(TeardownEngine.Progress progress) {
+        switch (progress.status()) {
+            case RUNNING -> {
+                if (progress.step() != TeardownEngine.Step.DOWN) {
+                    appendLog(LogEntry.Level.WARN, "app", "Stopping " + progress.project() + ": " + progress.detail());
                 }
             }
-        } catch (IOException e) {
-            appendLog("Failed to detect active composition: " + e.getMessage());
+            case DONE -> {
+                appendLog("Stopped composition: " + progress.project());
+                composeWorkspaces.release(progress.project());
+            }
+            case FAILED -> {
+                String msg = "Failed to stop composition " + progress.project() + ": " + progress.detail();
+                appendLog(LogEntry.Level.ERROR, "app", msg);
+                if (teardownDialog == null || !teardownDialog.isShowing()) showError(msg);
+            }
+            default -> { }
         }
+
+        if (teardownDialog == null || !teardownDialog.isShowing()) return;
+        ObservableList<TeardownEngine.Progress> rows = teardownList.getItems();
+        int row = 0;
+        while (row < rows.size() && !rows.get(row).project().equals(progress.project())) row++;
+        if (row < rows.size()) {
+            rows.set(row, progress);
+        } else {
+            rows.add(progress);
+        }
+        long finished = rows.stream().filter(TeardownEngine.Progress::isFinished).count();
+        teardownBar.setProgress((double) finished / Math.max(teardownTotal, rows.size()));
     }
 
+    /** Opens (or reuses) the non-modal Stop All progress window. */
+    private void showTeardownProgress(int projects) {
+        if (teardownDialog == null) {
+            teardownList = new ListView<>();
+            teardownList.setPrefSize(640, 240);
+            teardownBar = new ProgressBar(0);
+            teardownBar.setMaxWidth(Double.MAX_VALUE);
+
+            teardownDialog = new Alert(Alert.AlertType.INFORMATION);
+            teardownDialog.setTitle("Stop All");
+            teardownDialog.initModality(Modality.NONE);
+            teardownDialog.getDialogPane().setContent(new VBox(8, teardownBar, teardownList));
+            teardownDialog.setResizable(true);
+        }
+        teardownList.getItems().removeIf(TeardownEngine.Progress::isFinished); // rows of an earlier run
+        teardownTotal = projects + teardownList.getItems().size();
+        teardownBar.setProgress(0);
+        teardownDialog.setHeaderText("Stopping " + projects + (projects == 1 ? " composition" : " compositions"));
+        if (!teardownDialog.isShowing()) teardownDialog.show();
+    }
+
+    private void finishTeardownProgress(List<TeardownEngine.Progress> results) {
+        long failed = results.stream().filter(p -> p.status() != TeardownEngine.Status.DONE).count();
+        String summary = failed == 0
+                ? "All containers removed"
+                : failed + " of " + results.size() + " compositions could not be stopped";
+        appendLog(failed == 0 ? LogEntry.Level.INFO : LogEntry.Level.ERROR, "app", "Stop All finished: " + summary);
+        if (teardownDialog != null) {
+            teardownDialog.setHeaderText(summary);
+            teardownBar.setProgress(1);
+        }
+    }
+
+    private void onStartupTraced(StartupTracer.Trace trace) {
+        if (trace.outcome() == StartupTracer.Outcome.READY) {
+            metrics.histogram("container_kitty_start_to_ready_seconds").record(trace.totalMillis(), TimeUnit.MILLISECONDS);
+            StartupTracer.Span slowest = trace.slowestService();
+            appendLog(trace.project() + " is ready after " + formatMillis(trace.totalMillis())
+                    + (slowest == null ? "" : " (last ready: " + slowest.row() + " at " + formatMillis(slowest.end()) + ")"));
+        } else {
+            appendLog(LogEntry.Level.WARN, "app", trace.project() + " did not become ready (" + trace.outcome() + "): " + trace.detail());
+        }
+    }
+
+    /** Start-to-ready waterfalls of the selected composition's starts, newest first. */
     @FXML
-    private void handleStop() {
-        if (activeComposeProject == null) {
-            appendLog("No active composition to stop.");
+    private void handleStartupTimeline() {
+        TreeItem<CompositionVersion> item = compositionVersionTable.getSelectionModel().getSelectedItem();
+        String composition = item == null ? null : item.getValue().getCompositionName();
+        List<StartupTracer.Trace> traces = new ArrayList<>(composition == null ? startupTracer.history() : startupTracer.history(composition));
+        if (composition == null) Collections.reverse(traces);
+        if (traces.isEmpty()) {
+            showError("No starts recorded" + (composition == null ? "" : " for " + composition) + " yet.");
             return;
         }
 
-        String projectToStop = activeComposeProject;
-        // Reset immediately so UI updates
-        activeComposeProject = null;
-        updateButtons();
+        ListView<StartupTracer.Trace> runs = new ListView<>();
+        runs.setPrefSize(760, 160);
+        runs.setCellFactory(list -> new ListCell<>() {
+            @Override
+            protected void updateItem(StartupTracer.Trace trace, boolean empty) {
+                super.updateItem(trace, empty);
+                setText(empty || trace == null ? null : String.format(Locale.ROOT, "%tF %<tT   %-28s %-12s %-10s %8s",
+                        trace.startedAt(), trace.composition(), trace.version(), trace.outcome(), formatMillis(trace.totalMillis())));
+            }
+        });
+        runs.getItems().setAll(traces);
+        VBox waterfall = new VBox(4);
+        ScrollPane waterfallPane = new ScrollPane(waterfall);
+        waterfallPane.setPrefSize(760, 320);
+        runs.getSelectionModel().selectedItemProperty().addListener((obs, oldV, newV) -> renderWaterfall(waterfall, newV));
+        runs.getSelectionModel().select(0);
 
-        String[] cmd = dockerCmd(COMPOSE_CMD, "-p", projectToStop, DOWN_CMD);
-        _runCommand(cmd, null, "Failed to stop composition " + projectToStop);
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setTitle("Startup Timeline");
+        alert.setHeaderText("Time from Start until every service is healthy" + (composition == null ? "" : ": " + composition));
+        alert.initModality(Modality.NONE);
+        alert.getDialogPane().setContent(new VBox(8, runs, waterfallPane));
+        alert.setResizable(true);
+        alert.show();
+    }
 
-        appendLog("Stopped active composition: " + projectToStop);
-        refreshContainers();
+    private static final double WATERFALL_WIDTH = 480;
+
+    private static void renderWaterfall(VBox waterfall, StartupTracer.Trace trace) {
+        waterfall.getChildren().clear();
+        if (trace == null) return;
+        if (!trace.detail().isEmpty()) waterfall.getChildren().add(new Label(trace.outcome() + ": " + trace.detail()));
+
+        GridPane grid = new GridPane();
+        grid.setHgap(8);
+        grid.setVgap(3);
+        double scale = WATERFALL_WIDTH / Math.max(1L, trace.totalMillis());
+        Map<String, Pane> lanes = new HashMap<>();
+        Map<String, Label> ends = new HashMap<>();
+        for (StartupTracer.Span span : trace.spans()) {
+            Pane lane = lanes.get(span.row());
+            if (lane == null) {
+                int row = lanes.size();
+                lane = new Pane();
+                lane.setPrefSize(WATERFALL_WIDTH, 14);
+                lanes.put(span.row(), lane);
+                ends.put(span.row(), new Label());
+                grid.add(new Label(span.row()), 0, row);
+                grid.add(lane, 1, row);
+                grid.add(ends.get(span.row()), 2, row);
+            }
+            ends.get(span.row()).setText(formatMillis(span.end())); // a service's last bar ends when it is ready
+            Region bar = new Region();
+            bar.setLayoutX(span.start() * scale);
+            bar.setPrefSize(Math.max(2, span.duration() * scale), 14);
+            bar.setStyle("-fx-background-color: " + switch (span.kind()) {
+                case "phase" -> "#6c8ebf";
+                case "start" -> "#9e9e9e";
+                case "health", "run" -> "#4caf50";
+                case "waiting" -> "#ffb74d";
+                default -> "#e57373"; // unhealthy, crashed
+            } + ";");
+            Tooltip.install(bar, new Tooltip(span.row() + ": " + span.kind() + " " + formatMillis(span.start())
+                    + " - " + formatMillis(span.end()) + " (" + formatMillis(span.duration()) + ")"));
+            lane.getChildren().add(bar);
+        }
+        waterfall.getChildren().addAll(grid, new Label("blue: app phases   grey: create to start   green: start to healthy"
+                + "   orange: still starting   red: unhealthy or crashed"));
     }
 
+    private static String formatMillis(long millis) {
+        return millis < 10_000 ? String.format(Locale.ROOT, "%.1f s", millis / 1000.0) : (millis / 1000) + " s";
+    }
+
+    /** Opens the log window for the project of the selected container, showing that container. */
     @FXML
-    private void handleStopAll() {
-        // Reset immediately
-        activeComposeProject = null;
-        updateButtons();
+    private void handleContainerLogs() {
+        ContainerInfo selected = containerTable.getSelectionModel().getSelectedItem();
+        if (selected == null || selected.getProject() == null || selected.getProject().isEmpty()) return;
+        if (logViewerDialog == null) createLogViewer();
+
+        if (!selected.getProject().equals(logViewerProject)) {
+            logViewerProject = selected.getProject();
+            logViewerContainers.clear();
+        }
+        followProjectLogs(snapshotService.latest().containers());
+        String service = logViewerContainers.get(selected.getId());
+        logViewerService.setValue(service != null ? service : ALL_SERVICES);
+        resetLogViewer();
+        logViewerDialog.setHeaderText("Logs of " + logViewerProject);
+        if (!logViewerDialog.isShowing()) logViewerDialog.show();
+        logViewerPump.start();
+    }
 
-        List<String> runningProjects = containerTable.getItems().stream()
-                .filter(c -> c.getStatus().startsWith("Up"))
-                .map(ContainerInfo::getProject)
-                .distinct()
-                .toList();
+    private void createLogViewer() {
+        logViewerLines = new ListView<>();
+        logViewerLines.setPrefSize(900, 480);
+        logViewerLines.setStyle("-fx-font-family: monospace;");
+        logViewerService = new ComboBox<>();
+        logViewerService.setOnAction(event -> resetLogViewer());
+        logViewerSearch = new TextField();
+        logViewerSearch.setPromptText("Search all lines held (Enter); empty to follow");
+        logViewerSearch.setPrefWidth(360);
+        logViewerSearch.setOnAction(event -> searchContainerLogs());
+        logViewerRegex = new CheckBox("Regex");
+        logViewerStatus = new Label();
+        HBox controls = new HBox(8, logViewerService, logViewerSearch, logViewerRegex);
+        controls.setAlignment(Pos.CENTER_LEFT);
+
+        logViewerPump = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                pumpContainerLogs();
+            }
+        };
+        logViewerDialog = new Alert(Alert.AlertType.INFORMATION);
+        logViewerDialog.setTitle("Container Logs");
+        logViewerDialog.initModality(Modality.NONE);
+        logViewerDialog.getDialogPane().setContent(new VBox(8, controls, logViewerLines, logViewerStatus));
+        logViewerDialog.setResizable(true);
+        logViewerDialog.setOnHidden(event -> {
+            // keep the buffers of running containers, so reopening resumes where the streams stopped
+            logViewerPump.stop();
+            containerLogs.stopAll();
+            containerLogs.retain(snapshotService.latest().containers().stream().map(ContainerState::id).toList());
+        });
+    }
 
-        if (runningProjects.isEmpty()) return;
+    /** Follows every running container of the viewed project; called whenever the containers change. */
+    private void followProjectLogs(List<ContainerState> containers) {
+        for (ContainerState container : containers) {
+            if (!container.project().equals(logViewerProject) || !container.isRunning()) continue;
+            String service = container.service().isEmpty() ? container.name() : container.service();
+            logViewerContainers.putIfAbsent(container.id(), service);
+            containerLogs.follow(container.id(), service);
+        }
+        List<String> choices = new ArrayList<>(logViewerContainers.size() + 1);
+        choices.add(ALL_SERVICES);
+        logViewerContainers.values().stream().distinct().forEach(choices::add);
+        if (!choices.equals(logViewerService.getItems())) {
+            String value = logViewerService.getValue();
+            logViewerService.getItems().setAll(choices);
+            logViewerService.setValue(value != null && choices.contains(value) ? value : ALL_SERVICES);
+        }
+    }
 
-        List<CompletableFuture<Void>> stopFutures = runningProjects.stream()
-                .map(project -> CompletableFuture.runAsync(() -> _runCommand(dockerCmd(COMPOSE_CMD, "-p", project, DOWN_CMD), null, "Failed to stop " + project), executor))
-                .toList();
+    /** Shows the shown services from the oldest line held again, and resumes following. */
+    private void resetLogViewer() {
+        logViewerSearching = false;
+        logViewerLines.getItems().clear();
+        logViewerCursors.clear();
+        logViewerStatus.setText("");
+    }
 
-        CompletableFuture.allOf(stopFutures.toArray(EMPTY_FUTURES))
-                .thenRun(this::refreshContainers);
+    private boolean isLogViewerShown(String service) {
+        String selected = logViewerService.getValue();
+        return selected == null || ALL_SERVICES.equals(selected) || selected.equals(service);
+    }
 
-        refreshContainers();
+    /** Moves new lines of the shown services into the list, at most a fixed number per container and pulse. */
+    private void pumpContainerLogs() {
+        if (logViewerSearching) return;
+        boolean all = ALL_SERVICES.equals(logViewerService.getValue());
+        List<ContainerLogBuffer.Line> batch = new ArrayList<>(64);
+        List<String> added = new ArrayList<>(64);
+        for (Map.Entry<String, String> entry : logViewerContainers.entrySet()) {
+            if (!isLogViewerShown(entry.getValue())) continue;
+            ContainerLogStreams.Stream stream = containerLogs.get(entry.getKey());
+            if (stream == null) continue;
+            long cursor = logViewerCursors.getOrDefault(entry.getKey(), 0L);
+            if (stream.buffer().nextSeq() <= cursor) continue;
+
+            stream.buffer().readFrom(cursor, LOG_VIEWER_LINES_PER_PULSE, batch);
+            if (batch.isEmpty()) continue;
+            String prefix = all ? "[" + entry.getValue() + "] " : "";
+            long skipped = batch.get(0).seq() - cursor;
+            if (cursor > 0 && skipped > 0) {
+                added.add(prefix + "... " + skipped + " line(s) dropped; the service logs faster than "
+                        + ContainerInfo.formatSize(stream.buffer().capacityBytes()) + " are kept");
+            }
+            for (ContainerLogBuffer.Line line : batch) added.add(prefix + line.text());
+            logViewerCursors.put(entry.getKey(), batch.get(batch.size() - 1).seq() + 1);
+            batch.clear();
+        }
+        if (added.isEmpty()) return;
+
+        ObservableList<String> items = logViewerLines.getItems();
+        items.addAll(added);
+        int excess = items.size() - LOG_VIEWER_LINES;
+        if (excess > 0) items.remove(0, excess);
+        logViewerLines.scrollTo(items.size() - 1);
+    }
+
+    /** Searches everything the buffers of the shown services hold, off the FX thread. */
+    private void searchContainerLogs() {
+        String text = logViewerSearch.getText();
+        if (text == null || text.isBlank()) {
+            resetLogViewer();
+            return;
+        }
+        LogQuery query;
+        try {
+            query = logViewerRegex.isSelected() ? LogQuery.regex(text) : LogQuery.substring(text);
+        } catch (PatternSyntaxException e) {
+            logViewerStatus.setText("Invalid pattern: " + e.getDescription());
+            return;
+        }
+        Map<String, ContainerLogStreams.Stream> streams = new LinkedHashMap<>();
+        logViewerContainers.forEach((id, service) -> {
+            ContainerLogStreams.Stream stream = containerLogs.get(id);
+            if (stream != null && isLogViewerShown(service)) streams.put(service + " " + id, stream);
+        });
+        logViewerSearching = true;
+        logViewerStatus.setText("Searching...");
+
+        runQueryAsync("search container logs", () -> {
+            long started = System.nanoTime();
+            List<String> matches = new ArrayList<>(256);
+            List<ContainerLogBuffer.Line> found = new ArrayList<>(256);
+            int blocks = 0;
+            int scanned = 0;
+            for (ContainerLogStreams.Stream stream : streams.values()) {
+                ContainerLogBuffer.SearchStats stats = stream.buffer().search(query.trigrams(), query, LOG_SEARCH_MATCHES - matches.size(), found);
+                blocks += stats.blocks();
+                scanned += stats.blocksScanned();
+                for (ContainerLogBuffer.Line line : found) matches.add("[" + stream.name() + "] " + line.text());
+                found.clear();
+            }
+            String status = matches.size() + (matches.size() >= LOG_SEARCH_MATCHES ? "+" : "") + " matching line(s) in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) + " ms; " + scanned + " of " + blocks
+                    + " blocks scanned. Clear the search to follow again.";
+            runOnFx(() -> {
+                if (!logViewerSearching) return; // the search was cleared meanwhile
+                logViewerLines.getItems().setAll(matches);
+                logViewerStatus.setText(status);
+            });
+        });
     }
 
-    @SuppressWarnings("OverlyComplexBooleanExpression")
     @FXML
     private void handleRefresh() {
-        runCommandAsync(() -> {
-            try {
-                VersionsManifest manifest = fetchVersionManifest();
-                if (manifest == null ||
-                        manifest.compositions == null || manifest.compositions.isEmpty() ||
-                        manifest.versions == null || manifest.versions.isEmpty()) {
-                    appendLog("No compositions or versions available from server.");
-                    showError("No compositions or versions available from server.");
-                    return;
-                }
+        runQueryAsync("refresh manifest", MANIFEST_REFRESH_TIMEOUT, () -> {
+            revalidateManifest();
+            refreshContainers();
+        });
+    }
 
-                availableCompositions = manifest.compositions;
-                availableVersions = manifest.versions;
+    /**
+     * Checks the manifest source for a newer revision and applies only what changed.
+     * If the source cannot be reached, the app keeps working from the cached snapshot.
+     */
+    @SuppressWarnings("OverlyComplexBooleanExpression")
+    private void revalidateManifest() {
+        ManifestSnapshot cached = currentManifest;
+        try {
+            long started = System.nanoTime();
+            ManifestSnapshot fetched = fetchManifestSnapshot(cached != null ? cached.revision() : null);
+            metrics.histogram("container_kitty_manifest_fetch_seconds").recordSince(started);
+            manifestOffline = false;
+
+            if (fetched == null) {
+                currentManifest = cached.revalidatedAt(Instant.now());
+                saveManifestSnapshot(currentManifest);
+                appendLog("Compositions and versions are up to date.");
+                runOnFx(this::updateManifestLabel);
+                return;
+            }
 
-                // Create all composition-version pairs
-                List<CompositionVersion> combined = availableCompositions.stream()
-                        .flatMap(comp -> availableVersions.stream()
-                                .map(ver -> new CompositionVersion(comp, ver)))
-                        .toList();
+            VersionsManifest manifest = fetched.manifest();
+            if (manifest == null ||
+                    manifest.compositions().isEmpty() || manifest.versions().isEmpty()) {
+                appendLog(LogEntry.Level.WARN, "manifest", "No compositions or versions available from server.");
+                showError("No compositions or versions available from server.");
+                return;
+            }
 
-                Platform.runLater(() -> {
-                    compositionVersionTable.getItems().setAll(combined);
-                    compositionVersionTable.getSelectionModel().clearSelection();
-                });
+            currentManifest = fetched;
+            applyManifest(manifest);
+            saveManifestSnapshot(fetched);
+            appendLog("Refreshed compositions and versions.");
 
-                appendLog("Refreshed compositions and versions.");
-            } catch (IOException e) {
-                appendLog("ERROR fetching manifest: " + e.getMessage());
+            prefetchComposeFiles(availableCompositions);
+        } catch (IOException e) {
+            appendLog(LogEntry.Level.ERROR, "manifest", "Failed to fetch manifest: " + e.getMessage());
+            if (cached != null) {
+                manifestOffline = true;
+                appendLog(LogEntry.Level.WARN, "manifest", "Working offline from cached manifest fetched " + describeAge(cached.fetchedAt()));
+                runOnFx(this::updateManifestLabel);
+            } else {
                 showError("Failed to fetch compositions/versions: " + e.getMessage());
             }
+        }
+    }
 
-            refreshContainers();
+    /** Publishes a manifest to the composition/version catalog. */
+    private void applyManifest(VersionsManifest manifest) {
+        availableCompositions = manifest.compositions();
+        CatalogIndex index = new CatalogIndex(manifest.compositions(), manifest.versions());
+
+        runOnFx(() -> {
+            prefetchNewVersions(catalogIndex, index);
+            catalogIndex = index;
+            applyCatalog();
+            updateManifestLabel();
         });
     }
 
+    /** Warms versions that appeared since the last manifest, for the compositions this user runs. */
+    private void prefetchNewVersions(CatalogIndex previous, CatalogIndex next) {
+        if (!PREFETCH || previous.versions().isEmpty()) return; // first load: nothing is "new"
+        Set<String> known = new HashSet<>();
+        for (Version version : previous.versions()) known.add(version.ident());
+        Set<String> compositions = prefetchEngine.warmCompositions();
+        for (Version version : next.versions()) {
+            if (known.contains(version.ident())) continue;
+            for (String composition : compositions) {
+                appendLog(LogEntry.Level.INFO, "prefetch", "New version " + version.ident() + "; pulling images of " + composition);
+                prefetchEngine.prefetch(new PrefetchEngine.Key(composition, version.ident()));
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the catalog tree for the current search, one row per matching composition; version
+     * rows are only created on expansion. Keeps the selection and the expanded compositions.
+     */
+    private void applyCatalog() {
+        CompositionVersion selected = Optional.ofNullable(compositionVersionTable.getSelectionModel().getSelectedItem())
+                .map(TreeItem::getValue).orElse(null);
+        Set<String> expanded = new HashSet<>();
+        for (TreeItem<CompositionVersion> item : catalogRoot.getChildren()) {
+            if (item.isExpanded()) expanded.add(item.getValue().getCompositionName());
+        }
+
+        String query = catalogSearchField.getText();
+        List<CatalogIndex.Match> matches = catalogIndex.search(query);
+        long pairs = 0;
+        for (CatalogIndex.Match match : matches) {
+            pairs += match.versionCount();
+        }
+        boolean expandAll = query != null && !query.isBlank() && pairs <= CATALOG_AUTO_EXPAND_PAIRS;
+
+        List<TreeItem<CompositionVersion>> items = new ArrayList<>(matches.size());
+        TreeItem<CompositionVersion> reselect = null;
+        for (CatalogIndex.Match match : matches) {
+            CompositionTreeItem item = new CompositionTreeItem(catalogIndex, match);
+            String name = item.getValue().getCompositionName();
+            boolean holdsSelection = selected != null && name.equals(selected.getCompositionName());
+            if (expandAll || expanded.contains(name) || (holdsSelection && selected.getVersion() != null)) {
+                item.setExpanded(true);
+            }
+            if (holdsSelection) {
+                reselect = selected.getVersion() == null ? item : findVersion(item, selected.getVersionIdent());
+            }
+            items.add(item);
+        }
+
+        catalogRoot.getChildren().setAll(items);
+        if (reselect != null) {
+            compositionVersionTable.getSelectionModel().select(reselect);
+        } else {
+            compositionVersionTable.getSelectionModel().clearSelection();
+        }
+    }
+
+    private static TreeItem<CompositionVersion> findVersion(TreeItem<CompositionVersion> composition, String ident) {
+        for (TreeItem<CompositionVersion> child : composition.getChildren()) {
+            if (child.getValue().getVersionIdent().equals(ident)) return child;
+        }
+        return null;
+    }
+
+    /** The selected composition/version pair, or null if nothing or only a composition is selected. */
+    private CompositionVersion selectedCompositionVersion() {
+        TreeItem<CompositionVersion> item = compositionVersionTable.getSelectionModel().getSelectedItem();
+        return item == null || item.getValue().getVersion() == null ? null : item.getValue();
+    }
+
+    private void saveManifestSnapshot(ManifestSnapshot snapshot) {
+        if (manifestStore == null) return;
+        try {
+            manifestStore.save(snapshot);
+        } catch (IOException e) {
+            appendLog(LogEntry.Level.WARN, "manifest", "Could not cache manifest: " + e.getMessage());
+        }
+    }
+
+    /** Shows where the table contents come from and how old they are. */
+    private void updateManifestLabel() {
+        ManifestSnapshot snapshot = currentManifest;
+        if (snapshot == null) {
+            manifestLabel.setText("Manifest: not loaded");
+            manifestLabel.setStyle("-fx-text-fill: gray;");
+        } else if (manifestOffline) {
+            manifestLabel.setText("Manifest: offline, cached " + describeAge(snapshot.fetchedAt()));
+            manifestLabel.setStyle("-fx-text-fill: orange;");
+        } else {
+            String revision = snapshot.revision();
+            manifestLabel.setText("Manifest: " + revision.substring(0, Math.min(12, revision.length()))
+                    + ", checked " + describeAge(snapshot.fetchedAt()));
+            manifestLabel.setStyle("-fx-text-fill: gray;");
+        }
+    }
+
+    private static String describeAge(Instant time) {
+        long seconds = java.time.Duration.between(time, Instant.now()).getSeconds();
+        if (seconds < 60) return "just now";
+        if (seconds < 3600) return (seconds / 60) + " min ago";
+        if (seconds < 86400) return (seconds / 3600) + " h ago";
+        return (seconds / 86400) + " days ago";
+    }
+
     private static String[] dockerCmd(String... args) {
         List<String> cmd = new ArrayList<>(16);
         cmd.add(DOCKER_CMD);
@@ -364,13 +1086,24 @@ public class ContainerKittyController {
         stopButton.setDisable(true); // default
 
         // cell value factories
-        compositionColumn.setCellValueFactory(data ->
-                new SimpleStringProperty(data.getValue().getCompositionName()));
-        versionColumn.setCellValueFactory(data ->
-                new SimpleStringProperty(data.getValue().getVersionIdent()));
-        commentColumn.setCellValueFactory(data ->
-                new SimpleStringProperty(data.getValue().getCompositionComment()));
-        projectColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().getProject()));
+        // composition rows carry the composition's name and comment, version rows the version's
+        compositionColumn.setCellValueFactory(data -> new SimpleStringProperty(
+                data.getValue() instanceof CompositionTreeItem ? data.getValue().getValue().getCompositionName() : ""));
+        versionColumn.setCellValueFactory(data -> new SimpleStringProperty(
+                data.getValue() instanceof CompositionTreeItem item
+                        ? item.versionCount() + (item.versionCount() == 1 ? " version" : " versions")
+                        : data.getValue().getValue().getVersionIdent()));
+        imagesColumn.setCellValueFactory(data -> {
+            CompositionVersion cv = data.getValue().getValue();
+            PrefetchEngine.State state = cv.getVersion() == null ? null
+                    : prefetchEngine.state(new PrefetchEngine.Key(cv.getCompositionName(), cv.getVersionIdent()));
+            return new SimpleStringProperty(state == null ? "" : state.label());
+        });
+        commentColumn.setCellValueFactory(data -> new SimpleStringProperty(
+                data.getValue() instanceof CompositionTreeItem
+                        ? data.getValue().getValue().getCompositionComment()
+                        : data.getValue().getValue().getVersionComment()));
+        projectColumn.setCellValueFactory(data -> data.getValue().projectProperty());
 
         // pref width
         compositionColumn.setPrefWidth(200);
@@ -379,14 +1112,26 @@ public class ContainerKittyController {
                 compositionVersionTable.widthProperty()
                         .subtract(compositionColumn.widthProperty())
                         .subtract(versionColumn.widthProperty())
+                        .subtract(imagesColumn.widthProperty())
                         .subtract(35) // small adjustment for scrollbar/margins
         );
         projectColumn.setPrefWidth(150); // adjust as needed
 
         // selection model
+        compositionVersionTable.setRoot(catalogRoot);
+        compositionVersionTable.setShowRoot(false);
+        catalogRoot.setExpanded(true);
+        catalogSearchField.textProperty().addListener((obs, oldV, newV) -> applyCatalog());
         compositionVersionTable.getSelectionModel().setSelectionMode(SelectionMode.SINGLE);
-        compositionVersionTable.getSelectionModel().selectedItemProperty().addListener((obs, oldV, newV) -> updateButtons());
+        compositionVersionTable.getSelectionModel().selectedItemProperty().addListener((obs, oldV, newV) -> {
+            updateButtons();
+            CompositionVersion selected = selectedCompositionVersion();
+            if (PREFETCH && selected != null) {
+                prefetchEngine.prefetchSelected(new PrefetchEngine.Key(selected.getCompositionName(), selected.getVersionIdent()));
+            }
+        });
         containerTable.getSelectionModel().setSelectionMode(SelectionMode.SINGLE);
+        containerModel = new ContainerTableModel(containerTable.getItems());
 
         // Table bindings
         nameColumn.setCellValueFactory(data -> data.getValue().nameProperty());
@@ -409,199 +1154,372 @@ public class ContainerKittyController {
                 }
             }
         });
-        projectColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().getProject()));
+        projectColumn.setCellValueFactory(data -> data.getValue().projectProperty());
+        cpuColumn.setCellValueFactory(data -> data.getValue().cpuUsageProperty());
+        memColumn.setCellValueFactory(data -> data.getValue().memUsageProperty());
+        netColumn.setCellValueFactory(data -> data.getValue().netIOProperty());
+
+        // One docker stats stream for all compose containers, restarted only when the set of rows changes
+        statsCollector = new StatsCollector(DOCKER_CMD, message -> appendLog(LogEntry.Level.DEBUG, "stats", message));
+        containerTable.getItems().addListener((ListChangeListener<ContainerInfo>) change -> trackContainerStats());
+        statsRenderer = new Timeline(new KeyFrame(Duration.millis(STATS_RENDER_INTERVAL_MILLIS), event -> renderStats()));
+        statsRenderer.setCycleCount(Timeline.INDEFINITE);
+        statsRenderer.play();
+
+        // Resource history of the selected container
+        cpuChart.getData().add(cpuSeries);
+        memChart.getData().add(memSeries);
+        historyWindowBox.getItems().setAll(HistoryWindow.values());
+        historyWindowBox.setValue(HistoryWindow.HOUR);
+        historyWindowBox.setOnAction(event -> renderHistory());
+        containerTable.getSelectionModel().selectedItemProperty().addListener((obs, oldV, newV) -> {
+            renderHistory();
+            containerLogsButton.setDisable(newV == null || newV.getProject() == null || newV.getProject().isEmpty());
+        });
+
+        // Log view: virtualized list, colored by level, fed in batches from the log buffer
+        logView.setCellFactory(list -> new ListCell<>() {
+            @Override
+            protected void updateItem(LogEntry entry, boolean empty) {
+                super.updateItem(entry, empty);
+                if (empty || entry == null) {
+                    setText(null);
+                    setStyle("");
+                } else {
+                    setText(entry.toString());
+                    setStyle(switch (entry.level()) {
+                        case ERROR -> "-fx-text-fill: #ff6b6b;";
+                        case WARN -> "-fx-text-fill: orange;";
+                        case DEBUG -> "-fx-text-fill: gray;";
+                        case INFO -> "-fx-text-fill: lightgray;";
+                    });
+                }
+            }
+        });
+        // Lane statistics are only computed when the tooltip is about to show
+        Tooltip laneTooltip = new Tooltip();
+        laneTooltip.setOnShowing(event -> laneTooltip.setText(describeLanes()));
+        statusLabel.setTooltip(laneTooltip);
+
+        // In-flight operations, each cancellable from the menu
+        operationsButton.setOnShowing(event -> populateOperationsMenu());
+        scheduler.setChangeListener(() -> runOnFx(this::updateOperationsButton));
+
+        // Metrics for the diagnostics dialog, also written to the cache dir for comparison across machines
+        metrics.gauge("container_kitty_fx_pending_runlater", fxPending::get);
+        metrics.gauge("container_kitty_commands_in_flight", () -> scheduler.inFlight().size());
+        try {
+            metricsExporter = new MetricsExporter(metrics, AppDirs.userCacheDir().resolve("metrics.prom"),
+                    java.time.Duration.ofSeconds(METRICS_EXPORT_SECONDS),
+                    message -> appendLog(LogEntry.Level.WARN, "metrics", message));
+            metricsExporter.start();
+        } catch (IOException e) {
+            appendLog(LogEntry.Level.WARN, "metrics", "Metrics export disabled: " + e.getMessage());
+        }
+
+        // Start-to-ready traces, kept across sessions so versions can be compared
+        Path startupHistory = null;
+        try {
+            startupHistory = AppDirs.userCacheDir().resolve("startup-history.jsonl");
+        } catch (IOException e) {
+            appendLog(LogEntry.Level.WARN, "app", "Startup history will not be saved: " + e.getMessage());
+        }
+        startupTracer = new StartupTracer(startupHistory, STARTUP_HISTORY_SIZE, java.time.Duration.ofSeconds(READY_TIMEOUT_SECONDS),
+                trace -> runOnFx(() -> onStartupTraced(trace)));
 
         try {
-            tempComposeDir = Files.createTempDirectory("docker-compose-temp").toFile();
+            File tempComposeDir = Files.createTempDirectory("docker-compose-temp").toFile();
             tempComposeDir.deleteOnExit();
+            composeWorkspaces = new ComposeWorkspaces(tempComposeDir.toPath());
+            composeBlobs = createComposeBlobs(tempComposeDir.toPath());
         } catch (IOException e) {
             String msg = "Cannot create temporary folder for compose files: " + e.getMessage();
-            appendLog("ERROR: " + msg);
+            appendLog(LogEntry.Level.ERROR, "app", msg);
             showError(msg);
         }
 
-        CompletableFuture.runAsync(() -> {
-            detectActiveComposeProject(); // detect before populating
-            refreshContainers();
-            Platform.runLater(this::updateButtons);
-        }, executor).thenRunAsync(() -> {
-            try {
-                TimeUnit.MILLISECONDS.sleep(500);
-            } catch (InterruptedException ignored) {}
-            handleRefresh();
-        }, executor);
+        try {
+            manifestSource = createManifestSource();
+            appendLog("Reading compositions and versions from " + manifestSource.describe());
+        } catch (IOException | IllegalArgumentException e) {
+            String msg = "Cannot set up manifest source: " + e.getMessage();
+            appendLog(LogEntry.Level.ERROR, "manifest", msg);
+            showError(msg);
+        }
 
-        statusUpdater = new Timeline(new KeyFrame(Duration.seconds(5), event -> {
-            refreshContainers();
-            updateStatus();
-        }));
-        statusUpdater.setCycleCount(Timeline.INDEFINITE);
-        statusUpdater.play();
+        // Serve the last good manifest immediately, then revalidate it in the background
+        if (manifestSource != null) {
+            try {
+                // revisions are only comparable within one source
+                String snapshotFile = switch (manifestSource.name()) {
+                    case "git" -> "manifest.snapshot";
+                    case "classpath" -> "manifest-dev.snapshot";
+                    default -> "manifest-" + manifestSource.name() + ".snapshot";
+                };
+                manifestStore = new ManifestSnapshotStore(AppDirs.userCacheDir().resolve(snapshotFile));
+                ManifestSnapshot snapshot = manifestStore.load();
+                if (snapshot != null && !snapshot.manifest().compositions().isEmpty()) {
+                    currentManifest = snapshot;
+                    applyManifest(snapshot.manifest());
+                    appendLog("Loaded cached compositions and versions (fetched " + describeAge(snapshot.fetchedAt()) + ")");
+                }
+            } catch (IOException e) {
+                appendLog(LogEntry.Level.WARN, "manifest", "Manifest cache unavailable: " + e.getMessage());
+            }
+        }
+        updateManifestLabel();
+
+        // One shared container snapshot; the listing goes over the engine socket while the event stream is up
+        engineClient = DockerEngineClient.fromEnvironment();
+        containerLogs = new ContainerLogStreams(engineClient, DOCKER_CMD, message -> appendLog(LogEntry.Level.WARN, "logs", message));
+        snapshotService = new ContainerSnapshotService(this::listContainers,
+                task -> runQueryAsync("list containers", task));
+        snapshotService.addListener(snapshot -> runOnFx(() -> applySnapshot(snapshot)));
+        snapshotService.addListener(snapshot -> startupTracer.onSnapshot(snapshot.containers()));
+
+        refreshContainers().thenAccept(this::logRunningProjects);
+        runQueryAsync("refresh manifest", MANIFEST_REFRESH_TIMEOUT, this::revalidateManifest);
+
+        // Prefer the engine event stream; fall back to polling docker ps where the socket is unavailable
+        if (engineClient.isAvailable()) {
+            appendLog("Tracking containers via Docker Engine events on " + engineClient.getSocketPath());
+            containerMonitor = new ContainerEventMonitor(engineClient, new ContainerTableUpdater());
+            containerMonitor.start();
+        } else {
+            pollPolicy = new AdaptivePollPolicy(POLL_FAST_MILLIS, POLL_BASE_MILLIS, POLL_MAX_MILLIS);
+            metrics.gauge("container_kitty_polls_saved", pollPolicy::pollsSaved);
+            pollTimer = new PauseTransition(Duration.millis(POLL_BASE_MILLIS));
+            pollTimer.setOnFinished(event -> pollContainers());
+            pollTimer.playFromStart();
+        }
     }
 
-    @SuppressWarnings("OverlyBroadThrowsClause")
-    private static VersionsManifest fetchVersionManifest(String json) throws IOException {
-        ObjectMapper mapper = new ObjectMapper();
-
-        // Deserialize into simple POJO
-        VersionsManifestData data = mapper.readValue(json, VersionsManifestData.class);
+    /**
+     * Pauses polling while the window is minimized or in the background, and the stats stream while
+     * it is minimized. Called once the stage is shown.
+     */
+    final void bindStage(Stage stage) {
+        stage.iconifiedProperty().addListener((obs, was, iconified) -> updateWindowState(stage));
+        stage.focusedProperty().addListener((obs, was, focused) -> updateWindowState(stage));
+        updateWindowState(stage);
+    }
 
-        // Convert to JavaFX-friendly classes
-        List<Composition> compositions = data.compositions.stream()
-                .map(d -> new Composition(d.name, d.comment))
-                .toList();
+    private void updateWindowState(Stage stage) {
+        if (windowIconified != stage.isIconified()) {
+            windowIconified = stage.isIconified();
+            trackContainerStats();
+        }
+        if (pollPolicy == null) return;
+        long now = System.currentTimeMillis();
+        boolean hidden = stage.isIconified() || !stage.isFocused();
+        if (hidden && !pollPolicy.isSuspended()) {
+            pollPolicy.suspend(now);
+            pollTimer.stop();
+            appendLog(LogEntry.Level.DEBUG, "app", "Window hidden; container polling paused");
+        } else if (!hidden && pollPolicy.isSuspended()) {
+            pollPolicy.resume(now);
+            pollContainers(); // the snapshot may be arbitrarily old
+        }
+    }
 
-        List<Version> versions = data.versions.stream()
-                .map(d -> new Version(d.ident, d.comment))
-                .toList();
+    /** One docker ps poll; the policy picks the next delay from whether anything changed. */
+    private void pollContainers() {
+        if (pollPolicy == null || pollPolicy.isSuspended()) return;
+        pollTimer.stop();
+        refreshContainers().whenComplete((snapshot, e) -> runOnFx(() -> {
+            Map<String, String> state = snapshot != null ? AdaptivePollPolicy.pollState(snapshot.containers()) : null;
+            boolean changed = state != null && !state.equals(lastPollState);
+            boolean transitional = snapshot != null
+                    && snapshot.containers().stream().anyMatch(ContainerState::isTransitioning);
+            if (state != null) lastPollState = state;
+            schedulePoll(pollPolicy.onPollResult(changed, transitional, System.currentTimeMillis()));
+        }));
+    }
 
-        return new VersionsManifest(compositions, versions);
+    /** A start or stop was submitted or finished: poll fast until the containers settle. */
+    private void onContainersTransition() {
+        if (pollPolicy == null) return;
+        schedulePoll(pollPolicy.onTransition(System.currentTimeMillis()));
     }
 
-    private VersionsManifest fetchVersionManifest() throws IOException {
-        String json;
+    private void schedulePoll(long delayMillis) {
+        if (pollPolicy.isSuspended()) return;
+        pollTimer.stop();
+        pollTimer.setDuration(Duration.millis(delayMillis));
+        pollTimer.playFromStart();
+    }
 
-        if (ContainerKittyApplication.DEV_MODE) {
-            appendLog("DEV mode enabled: using dev-versions.json from resources");
-            try (InputStream in = getClass().getResourceAsStream("/dev-versions.json")) {
-                if (in == null) throw new IOException("dev-versions.json not found in resources");
-                json = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    private void trackContainerStats() {
+        List<String> ids = new ArrayList<>(containerTable.getItems().size());
+        for (ContainerInfo container : containerTable.getItems()) {
+            if (container.getProject() != null && !container.getProject().isEmpty()) {
+                ids.add(container.getId());
             }
-        } else {
-            appendLog("Fetching versions.json via git...");
-            json = fetchFileFromGit("docker/compose/versions.json");
         }
+        statsCollector.track(windowIconified ? List.of() : ids);
+        histories.keySet().retainAll(ids);
+    }
 
-        return fetchVersionManifest(json);
+    /** Copies stats samples that changed since the last frame into their rows; runs at most once per interval. */
+    private void renderStats() {
+        if (!statsCollector.hasUpdates()) return;
+        ContainerInfo selected = containerTable.getSelectionModel().getSelectedItem();
+        boolean[] selectedUpdated = {false};
+        statsCollector.drainUpdates(sample -> {
+            ContainerInfo row = containerModel.get(sample.getContainerId());
+            if (row == null) return;
+            histories.computeIfAbsent(sample.getContainerId(), id -> new ResourceHistory())
+                    .record(sample.getSampledAtMillis(), sample.getCpuPercent(), sample.getMemUsedBytes());
+            selectedUpdated[0] |= row == selected;
+            // formatted only for rows whose cells are on screen
+            row.updateStats(sample.getCpuPercent(), sample.getMemUsedBytes(), sample.getMemLimitBytes(),
+                    sample.getNetRxBytes(), sample.getNetTxBytes());
+        });
+        if (selectedUpdated[0]) {
+            renderHistory();
+        }
     }
 
-    /** Downloads (or loads from classpath in dev mode) the compose file for the given composition. */
-    private File downloadComposeFile(String composition) throws IOException {
-        // clean old .yml files optionally
-        File[] oldFiles = tempComposeDir.listFiles((d, name) -> name.endsWith(".yml"));
-        if (oldFiles != null) {
-            for (File f : oldFiles) f.delete();
+    /** Redraws the history charts for the selected container, downsampled to a few hundred points. */
+    private void renderHistory() {
+        ContainerInfo selected = containerTable.getSelectionModel().getSelectedItem();
+        ResourceHistory history = selected == null ? null : histories.get(selected.getId());
+        if (history == null) {
+            historyLabel.setText(selected == null ? "Select a container to see its history" : selected.getName() + ": no samples yet");
+            cpuSeries.getData().clear();
+            memSeries.getData().clear();
+            return;
         }
+        historyLabel.setText(selected.getName());
 
-        String fileName = String.format("docker-compose-%s.yml", composition);
-        File outFile = new File(tempComposeDir, fileName);
+        long now = System.currentTimeMillis();
+        long from = now - historyWindowBox.getValue().minutes * 60_000L;
+        fillSeries(cpuSeries, history.series(ResourceHistory.Metric.CPU, from, CHART_POINTS), now, 1.0);
+        fillSeries(memSeries, history.series(ResourceHistory.Metric.MEMORY, from, CHART_POINTS), now, 1.0 / (1024 * 1024));
+    }
 
-        if (ContainerKittyApplication.DEV_MODE) {
-            // In dev mode: load compose from classpath resource
-            String resourcePath = "/docker/compose/" + fileName;
-            appendLog("DEV mode: loading compose from classpath: " + resourcePath);
+    private static void fillSeries(XYChart.Series<Number, Number> series, ResourceHistory.Series points, long now, double scale) {
+        List<XYChart.Data<Number, Number>> data = new ArrayList<>(points.size());
+        for (int i = 0; i < points.size(); i++) {
+            double minutesAgo = (points.times()[i] - now) / 60_000.0;
+            data.add(new XYChart.Data<>(minutesAgo, points.values()[i] * scale));
+        }
+        series.getData().setAll(data);
+    }
 
-            try (InputStream in = getClass().getResourceAsStream(resourcePath)) {
-                if (in == null) {
-                    appendLog("Compose resource not found in classpath: " + resourcePath);
-                    throw new IOException("Compose resource not found in classpath: " + resourcePath);
-                }
-                // Copy resource stream into temporary file for docker-compose to read
-                Files.copy(in, outFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
-            }
+    /** Applies engine event stream updates to the container table on the FX thread. */
+    private final class ContainerTableUpdater implements ContainerEventMonitor.Listener {
+        @Override
+        public void onResync(List<ContainerState> containers) {
+            snapshotService.replace(containers);
+        }
 
-            appendLog("Loaded compose file from resources: " + outFile.getAbsolutePath());
-            return outFile;
-        } else {
-            // Production: fetch the compose file from git
-            appendLog("Fetching compose file via git show...");
-            String yaml = fetchFileFromGit("docker/compose/" + fileName);
-            Files.writeString(outFile.toPath(), yaml, StandardCharsets.UTF_8);
-            appendLog("Fetched compose file: " + outFile.getName());
-            return outFile;
+        @Override
+        public void onContainerUpdated(ContainerState container) {
+            snapshotService.upsert(container);
         }
-    }
 
-    private static final String REPO_URL = "git@gitlab.com:<namespace>/<repo>.git";
-    private static final String GIT_BRANCH = "main";
+        @Override
+        public void onContainerRemoved(String containerId) {
+            snapshotService.remove(containerId);
+        }
 
-    private String fetchFileFromGit(String pathInRepo) throws IOException {
-        File tempDir = Files.createTempDirectory("ck_git_fetch").toFile();
+        @Override
+        public void onEvent(DockerEngineClient.DockerEvent event) {
+            // state is applied through onContainerUpdated/onContainerRemoved; the tracer wants the exact event times
+            startupTracer.onEvent(event);
+        }
 
-        // Initialize empty git repo
-        runAndLogCommand(new String[]{"git", "init"}, tempDir, "git init failed");
-        runAndLogCommand(new String[]{"git", "remote", "add", "origin", REPO_URL}, tempDir, "git remote add failed");
+        @Override
+        public void onConnectionLost(IOException e) {
+            appendLog(LogEntry.Level.WARN, "events", "Docker event stream interrupted (" + e.getMessage() + "); reconnecting...");
+        }
+    }
 
-        // Fetch just the branch head (no checkout)
-        runAndLogCommand(new String[]{"git", "fetch", "--depth", "1", "origin", GIT_BRANCH}, tempDir, "git fetch failed");
+    /**
+     * Fetches the manifest from its source, tagged with the source revision.
+     * Returns null without downloading or parsing if the revision equals {@code knownRevision}.
+     */
+    private ManifestSnapshot fetchManifestSnapshot(String knownRevision) throws IOException {
+        if (manifestSource == null) throw new IOException("No manifest source");
+        appendLog("Fetching versions.json via " + manifestSource.name() + "...");
+        ManifestSource.Fetched fetched = manifestSource.fetch(knownRevision);
+        if (fetched == null) return null;
+        return new ManifestSnapshot(VersionsManifestParser.parse(fetched.json()), fetched.revision(), Instant.now());
+    }
 
-        // Show the single file content
-        ProcessBuilder pb = new ProcessBuilder("git", "show", GIT_BRANCH + ":" + pathInRepo);
-        pb.directory(tempDir);
-        pb.redirectErrorStream(true);
-        Process process = pb.start();
+    /** Picks the source named by {@code container.kitty.manifestSource}; git, or the classpath in dev mode, by default. */
+    private ManifestSource createManifestSource() throws IOException {
+        String name = MANIFEST_SOURCE != null ? MANIFEST_SOURCE : ContainerKittyApplication.DEV_MODE ? "classpath" : "git";
+        return switch (name) {
+            case "git" -> new GitManifestSource(gitMirror());
+            case "http" -> new HttpManifestSource(URI.create(VERSIONS_JSON_URL), message -> appendLog(LogEntry.Level.INFO, "http", message));
+            case "classpath" -> new ClasspathManifestSource();
+            default -> throw new IllegalArgumentException("Unknown manifest source '" + name + "' (expected git, http or classpath)");
+        };
+    }
 
-        @SuppressWarnings("StringBufferWithoutInitialCapacity") StringBuilder sb = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
-            String line;
-            //noinspection NestedAssignment,MethodCallInLoopCondition
-            while ((line = reader.readLine()) != null) {
-                sb.append(line).append("\n");
-            }
+    /** Compose files are kept across sessions, so a file fetched once is never fetched or written again. */
+    private BlobStore createComposeBlobs(Path fallbackDir) throws IOException {
+        try {
+            return new BlobStore(AppDirs.userCacheDir().resolve("compose-files"));
+        } catch (IOException e) {
+            appendLog(LogEntry.Level.WARN, "app", "Compose files will not be kept across sessions: " + e.getMessage());
+            return new BlobStore(fallbackDir.resolve("blobs"));
         }
+    }
 
+    /** Downloads (or loads from classpath in dev mode) the compose file for the given composition. */
+    private BlobStore.Blob downloadComposeFile(String composition) throws IOException {
+        long started = System.nanoTime();
+        String fileName = ManifestSource.composeFileName(composition);
+        appendLog("Reading compose file " + fileName + " via " + (manifestSource != null ? manifestSource.name() : "none") + "...");
         try {
-            int exit = process.waitFor();
-            if (exit != 0) {
-                throw new IOException("git show failed for " + pathInRepo + " (exit=" + exit + ")");
-            }
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new IOException("git show interrupted for " + pathInRepo, e);
+            BlobStore.Blob blob = readComposeFile(composition);
+            appendLog("Fetched compose file: " + fileName + " (" + blob.id().substring(0, 12) + ")");
+            return blob;
+        } catch (IOException e) {
+            appendLog(LogEntry.Level.ERROR, "app", e.getMessage());
+            throw e;
         } finally {
-            deleteRecursive(tempDir);
+            metrics.histogram("container_kitty_compose_download_seconds").recordSince(started);
         }
+    }
 
-        return sb.toString();
+    /** Stores a compose file without logging, e.g. for background image checks. */
+    private BlobStore.Blob readComposeFile(String composition) throws IOException {
+        if (manifestSource == null) throw new IOException("No manifest source");
+        return manifestSource.composeFile(composition, composeBlobs);
     }
 
-    private void runAndLogCommand(String[] command, File directory, String errorMessage) throws IOException {
-        appendLog(String.join(" ", command));
-        ProcessBuilder pb = new ProcessBuilder(command);
-        pb.directory(directory);
-        pb.redirectErrorStream(true);
+    private static final String REPO_URL = "git@gitlab.com:<namespace>/<repo>.git";
+    private static final String GIT_BRANCH = "main";
 
-        Process process = pb.start();
-        @SuppressWarnings("StringBufferWithoutInitialCapacity") StringBuilder output = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
-            String line;
-            //noinspection NestedAssignment,MethodCallInLoopCondition
-            while ((line = reader.readLine()) != null) {
-                output.append(line).append('\n');
-            }
-        }
+    private GitMirror gitMirror;
 
-        try {
-            int exitCode = process.waitFor();
-            if (exitCode != 0) {
-                appendLog(errorMessage + ": " + output);
-            }
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new IOException(errorMessage + " (interrupted)", e);
+    /** Returns the persistent git mirror, creating it in the user cache dir on first use. */
+    private synchronized GitMirror gitMirror() throws IOException {
+        if (gitMirror == null) {
+            gitMirror = new GitMirror(REPO_URL, GIT_BRANCH, AppDirs.userCacheDir().resolve("git-mirror"),
+                    message -> appendLog(LogEntry.Level.INFO, "git", message));
         }
+        return gitMirror;
     }
 
-    private void deleteRecursive(File file) {
-        if (file == null || !file.exists()) return;
-        File[] files = file.listFiles();
-        if (files != null) {
-            for (File f : files) {
-                deleteRecursive(f);
-            }
-        }
-        if (!file.delete()) {
-            appendLog("Failed to delete file or directory: " + file.getAbsolutePath());
+    /** Stores the compose files of all compositions up front so a later start needs no round trip. */
+    private void prefetchComposeFiles(Collection<Composition> compositions) {
+        try {
+            manifestSource.prefetchComposeFiles(compositions.stream().map(Composition::name).toList(), composeBlobs);
+        } catch (IOException e) {
+            appendLog(LogEntry.Level.WARN, manifestSource.name(), "Could not prefetch compose files: " + e.getMessage());
         }
     }
 
     /** Updates status label with running containers count and tooltip for non-running containers */
     private void updateStatus() {
-        List<ContainerInfo> containers = containerTable.getItems();
-
-        long running = containers.stream()
-                .filter(c -> c.getStatus().startsWith("Up")).count();
-        long total = containers.size();
+        ContainerIndex index = containerModel.index();
+        int running = index.runningCount();
+        int total = index.totalCount();
 
         String statusText;
         String style;
@@ -611,8 +1529,8 @@ public class ContainerKittyController {
             style = "-fx-text-fill: red; -fx-font-weight: bold;";
         } else {
             statusText = "Status: " + running + "/" + total + " running";
-            if (activeComposeProject != null) {
-                statusText += " | Active Composition: " + activeComposeProject;
+            if (!index.runningProjects().isEmpty()) {
+                statusText += " | Active Compositions: " + String.join(", ", index.runningProjects());
             }
             style = running == total
                     ? "-fx-text-fill: green; -fx-font-weight: bold;"
@@ -620,120 +1538,194 @@ public class ContainerKittyController {
         }
 
         String s = statusText;
-        Platform.runLater(() -> {
+        runOnFx(() -> {
             statusLabel.setText(s);
             statusLabel.setStyle(style);
         });
     }
 
-    private void refreshContainers() {
-        runCommandAsync(() -> {
-            try {
-                Collection<ContainerInfo> containers = new ArrayList<>(256);
-                ContainerInfo selected = containerTable.getSelectionModel().getSelectedItem();
-                String selectedName = selected != null ? selected.getName() : null;
-
-                ProcessBuilder pb = new ProcessBuilder(
-                        DOCKER_CMD, "ps", "--format",
-                        "{{.Names}}|{{.Image}}|{{.Status}}|{{.Label \"com.docker.compose.project\"}}|{{.RunningFor}}"
-                );
-                Process process = pb.start();
-
-                try (BufferedReader reader = new BufferedReader(
-                        new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
-                    String line;
-                    //noinspection NestedAssignment,MethodCallInLoopCondition
-                    while ((line = reader.readLine()) != null) {
-                        String[] parts = line.split("\\|");
-                        if (parts.length >= 4) {
-                            containers.add(new ContainerInfo(parts[0], parts[1], parts[2], parts[3], null));
-                        }
-                    }
-                }
-
-                process.waitFor();
-
-                Platform.runLater(() -> {
-                    containerTable.getItems().setAll(containers);
-                    if (selectedName != null) {
-                        containers.stream()
-                                .filter(c -> selectedName.equals(c.getName()))
-                                .findFirst()
-                                .ifPresent(container -> containerTable.getSelectionModel().select(container));
-                    }
-                    updateButtons();
-                });
-            } catch (IOException | InterruptedException e) {
-                Thread.currentThread().interrupt();
-                String errorMessage = "Error fetching containers: " + e.getMessage();
-                appendLog(errorMessage);
+    /**
+     * Requests a fresh container snapshot. Requests made while a listing is pending are coalesced,
+     * so bursts of clicks do not queue redundant listings.
+     */
+    private CompletableFuture<ContainerSnapshotService.Snapshot> refreshContainers() {
+        CompletableFuture<ContainerSnapshotService.Snapshot> refresh = snapshotService.refresh();
+        refresh.whenComplete((snapshot, e) -> {
+            if (e != null && !(e instanceof CancellationException)) {
+                appendLog(LogEntry.Level.ERROR, "docker", "Error fetching containers: " + e.getMessage());
             }
         });
+        return refresh;
     }
 
-    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
-        Thread t = new Thread(r, "container-kitty-cmd");
-        t.setDaemon(true);
-        return t;
-    });
+    /** Reconciles the table rows in place by container ID, so the selection stays on the same row. */
+    private void applySnapshot(ContainerSnapshotService.Snapshot snapshot) {
+        if (snapshot.version() <= appliedSnapshotVersion) return; // an older snapshot delivered late
+        appliedSnapshotVersion = snapshot.version();
+        if (containerModel.reconcile(snapshot.containers())) {
+            updateStatus();
+        }
+        updateButtons();
+        if (logViewerDialog != null && logViewerDialog.isShowing()) followProjectLogs(snapshot.containers());
+    }
 
-    // This queue guarantees sequential execution, never overlap
-    private CompletableFuture<Void> commandQueue = CompletableFuture.completedFuture(null);
+    /** Lists running containers over the engine socket if the event stream is up, else with docker ps. */
+    private List<ContainerState> listContainers() throws IOException {
+        long started = System.nanoTime();
+        boolean viaSocket = containerMonitor != null && containerMonitor.isConnected();
+        List<ContainerState> containers = viaSocket ? engineClient.listComposeContainers() : listContainersWithPs();
+        metrics.histogram("container_kitty_refresh_containers_seconds", "source", viaSocket ? "events" : "ps").recordSince(started);
+        return containers;
+    }
 
-    @SuppressWarnings("MethodMayBeSynchronized")
-    private void runCommandAsync(Runnable task) {
-        if (executor.isShutdown()) {
-            appendLog("Executor is shutting down; skipping command.");
-            return;
+    /** Lists running containers with a single {@code docker ps}, streamed through the shared parser. */
+    private List<ContainerState> listContainersWithPs() throws IOException {
+        ProcessBuilder pb = new ProcessBuilder(DOCKER_CMD, "ps", "--no-trunc", "--format", DockerPsParser.FORMAT);
+        pb.redirectError(ProcessBuilder.Redirect.DISCARD);
+        Process process = CommandHandle.track(pb.start());
+
+        List<ContainerState> containers;
+        try (InputStream in = process.getInputStream()) {
+            containers = psParser.parse(in);
+        }
+        try {
+            process.waitFor();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("docker ps interrupted", e);
         }
+        return containers;
+    }
 
-        synchronized (this) {
-            commandQueue = commandQueue.thenRunAsync(() -> {
-                try {
-                    task.run();
-                } catch (Throwable t) {
-                    appendLog("Command failed: " + t.getMessage());
-                    Platform.runLater(() -> showError("Command failed: " + t.getMessage()));
-                } finally {
-                    Platform.runLater(this::updateButtons);
-                }
-            }, executor);
+    private final CommandScheduler scheduler = new CommandScheduler();
+    private final DockerPsParser psParser = new DockerPsParser();
+
+    /** Runs a read-only task (ps, manifest, ...) concurrently with other queries and mutations */
+    private CommandHandle runQueryAsync(String description, Runnable task) {
+        return logTermination(scheduler.submitQuery(description, guarded(task)));
+    }
+
+    /** Like {@link #runQueryAsync(String, Runnable)}, for queries that may legitimately outlast the query timeout */
+    private CommandHandle runQueryAsync(String description, java.time.Duration timeout, Runnable task) {
+        return logTermination(scheduler.submitQuery(description, timeout, guarded(task)));
+    }
+
+    /** Runs a mutating task after earlier mutations of the same compose project; other projects are not blocked */
+    private CommandHandle runMutationAsync(String project, String description, Runnable task) {
+        return logTermination(scheduler.submitMutation(project, description, guarded(task)));
+    }
+
+    private CommandHandle logTermination(CommandHandle handle) {
+        handle.completion().whenComplete((r, e) -> {
+            if (e instanceof CancellationException) {
+                appendLog(LogEntry.Level.WARN, "app", e.getMessage());
+            }
+        });
+        return handle;
+    }
+
+    /** Lists in-flight commands in the operations menu, each entry cancelling its command */
+    private void populateOperationsMenu() {
+        List<CommandHandle> handles = scheduler.inFlight();
+        List<MenuItem> items = new ArrayList<>(Math.max(1, handles.size()));
+        for (CommandHandle handle : handles) {
+            MenuItem item = new MenuItem("Cancel " + handle);
+            item.setOnAction(event -> handle.cancel());
+            items.add(item);
+        }
+        if (items.isEmpty()) {
+            MenuItem none = new MenuItem("No operations in flight");
+            none.setDisable(true);
+            items.add(none);
         }
+        operationsButton.getItems().setAll(items);
     }
 
-    /** Executes a command synchronously inside the sequential queue */
-    private void _runCommand(String[] command, File workingDir, String errorMessage) {
-        runCommandAsync(() -> {
-            appendLog("Command: " + String.join(" ", command));
-            ProcessBuilder pb = new ProcessBuilder(command);
-            if (workingDir != null) pb.directory(workingDir);
-            pb.redirectErrorStream(true);
-            pb.environment().put("BUILDKIT_PROGRESS", "plain");
+    private void updateOperationsButton() {
+        int count = scheduler.inFlight().size();
+        operationsButton.setText(count == 0 ? "Operations" : "Operations (" + count + ")");
+    }
 
+    private Runnable guarded(Runnable task) {
+        return () -> {
             try {
-                Process process = pb.start();
-                try (BufferedReader reader = new BufferedReader(
-                        new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
-                    String line;
-                    //noinspection MethodCallInLoopCondition,NestedAssignment
-                    while ((line = reader.readLine()) != null) {
-                        appendLog(line);
-                    }
-                }
+                task.run();
+            } catch (Throwable t) {
+                appendLog(LogEntry.Level.ERROR, "app", "Command failed: " + t.getMessage());
+                runOnFx(() -> showError("Command failed: " + t.getMessage()));
+            } finally {
+                runOnFx(this::updateButtons);
+            }
+        };
+    }
 
-                int exitCode = process.waitFor();
-                appendLog("Command exited with code: " + exitCode);
-                if (exitCode != 0 && errorMessage != null) {
-                    showError(errorMessage);
-                }
-            } catch (IOException | InterruptedException e) {
-                Thread.currentThread().interrupt();
-                appendLog("Error executing command: " + e.getMessage());
-                if (errorMessage != null) {
-                    showError(errorMessage + "\n" + e.getMessage());
+    /**
+     * Executes a command synchronously on the calling lane thread, streaming its output to the log.
+     *
+     * @return the exit code, or -1 if the command could not be run
+     */
+    private int _runCommand(String[] command, File workingDir, String errorMessage) {
+        String source = commandSource(command);
+        if (CommandHandle.isCurrentTerminated()) {
+            appendLog(LogEntry.Level.WARN, source, "Skipped (cancelled): " + String.join(" ", command));
+            return -1;
+        }
+        appendLog(LogEntry.Level.INFO, source, "Command: " + String.join(" ", command));
+        ProcessBuilder pb = new ProcessBuilder(command);
+        if (workingDir != null) pb.directory(workingDir);
+        pb.redirectErrorStream(true);
+        pb.environment().put("BUILDKIT_PROGRESS", "plain");
+
+        try {
+            // tracked so that cancel/timeout kills the whole process tree, which also unblocks readLine()
+            long started = System.nanoTime();
+            Process process = CommandHandle.track(pb.start());
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                //noinspection MethodCallInLoopCondition,NestedAssignment
+                while ((line = reader.readLine()) != null) {
+                    appendLog(LogEntry.Level.INFO, source, line);
                 }
             }
-        });
+
+            int exitCode = process.waitFor();
+            metrics.histogram(MetricsRegistry.COMMAND_SECONDS, "command", describeCommand(command)).recordSince(started);
+            if (CommandHandle.isCurrentTerminated()) {
+                appendLog(LogEntry.Level.WARN, source, "Command terminated: " + String.join(" ", command));
+                return -1;
+            }
+            appendLog(exitCode == 0 ? LogEntry.Level.INFO : LogEntry.Level.WARN, source, "Command exited with code: " + exitCode);
+            if (exitCode != 0 && errorMessage != null) {
+                showError(errorMessage);
+            }
+            return exitCode;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            appendLog(LogEntry.Level.ERROR, source, "Interrupted while waiting for command: " + e.getMessage());
+            if (errorMessage != null) {
+                showError(errorMessage + "\n" + e.getMessage());
+            }
+            return -1;
+        } catch (IOException e) {
+            // e.g. docker not found; later commands of the same task must still be able to wait
+            appendLog(LogEntry.Level.ERROR, source, "Error executing command: " + e.getMessage());
+            if (errorMessage != null) {
+                showError(errorMessage + "\n" + e.getMessage());
+            }
+            return -1;
+        }
+    }
+
+    /** Describes queue depth and wait times of every scheduler lane */
+    private String describeLanes() {
+        List<CommandScheduler.LaneStats.Snapshot> lanes = scheduler.laneStats();
+        if (lanes.isEmpty()) return "No commands run yet";
+        StringJoiner joiner = new StringJoiner("\n");
+        for (CommandScheduler.LaneStats.Snapshot lane : lanes) {
+            joiner.add(lane.toString());
+        }
+        return joiner.toString();
     }
 
     /** Shows an error dialog */
@@ -744,47 +1736,130 @@ public class ContainerKittyController {
         });
     }
 
-    /** Appends a log message with timestamp */
+    /** Appends an informational log message with timestamp */
     private void appendLog(String message) {
-        String timestamp = LocalTime.now().format(DateTimeFormatter.ofPattern("HH:mm:ss"));
+        appendLog(LogEntry.Level.INFO, "app", message);
+    }
+
+    /** Queues a log entry; safe from any thread. The first entry after a drain schedules the next one */
+    private void appendLog(LogEntry.Level level, String source, String message) {
+        if (logBuffer.append(new LogEntry(System.currentTimeMillis(), level, source, message))) {
+            runOnFx(this::drainLogs);
+        }
+    }
+
+    /** Moves queued log entries into the list view in one batch and enforces the retention cap */
+    private void drainLogs() {
+        if (!logBuffer.hasPending()) return;
+
+        long dropped = logBuffer.drainTo(logBatch);
+        ObservableList<LogEntry> items = logView.getItems();
+        if (dropped > 0) {
+            items.add(new LogEntry(System.currentTimeMillis(), LogEntry.Level.WARN, "log",
+                    dropped + " line(s) dropped; output arrived faster than it could be displayed"));
+        }
+        items.addAll(logBatch);
+        logBatch.clear();
+
+        int excess = items.size() - LOG_RETENTION;
+        if (excess > 0) {
+            items.remove(0, excess);
+        }
+        logView.scrollTo(items.size() - 1);
+    }
+
+    private static String commandSource(String[] command) {
+        return command.length > 1 && DOCKER_CMD.equals(command[0]) ? command[0] + " " + command[1] : command[0];
+    }
+
+    /** Label for command latency metrics: the executable and its subcommand, e.g. "docker compose up". */
+    private static String describeCommand(String[] command) {
+        String source = commandSource(command);
+        if (command.length > 2 && "compose".equals(command[1])) {
+            for (int i = 2; i < command.length; i++) {
+                // first word that is not an option or an option value is the compose subcommand
+                if (!command[i].startsWith("-") && !command[i - 1].startsWith("-")) {
+                    return source + " " + command[i];
+                }
+            }
+        }
+        return source;
+    }
+
+    /** Platform.runLater, counting the backlog and how long actions wait for the FX thread. */
+    private void runOnFx(Runnable action) {
+        fxPending.incrementAndGet();
+        long queuedAt = System.nanoTime();
         Platform.runLater(() -> {
-            logArea.appendText(timestamp + " - " + message + "\n");
-            logArea.setScrollTop(Double.MAX_VALUE);
+            fxPending.decrementAndGet();
+            fxDelay.recordSince(queuedAt);
+            action.run();
         });
     }
 
+    @FXML
+    private void handleDiagnostics() {
+        StringBuilder content = new StringBuilder(metrics.describe());
+        content.append("\nLanes\n");
+        for (CommandScheduler.LaneStats.Snapshot lane : scheduler.laneStats()) {
+            content.append("  ").append(lane).append('\n');
+        }
+        if (metricsExporter != null) {
+            content.append("\nExported to ").append(metricsExporter.getFile()).append('\n');
+        }
+
+        TextArea textArea = new TextArea(content.toString());
+        textArea.setEditable(false);
+        textArea.setWrapText(false);
+        textArea.setStyle("-fx-font-family: monospace;");
+        textArea.setPrefSize(800, 450);
+
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setTitle("Diagnostics");
+        alert.setHeaderText("Timings, counters and queue depths since startup");
+        alert.getDialogPane().setContent(textArea);
+        alert.setResizable(true);
+        alert.showAndWait();
+    }
+
     @Override
     public final String toString() {
         return "ContainerKittyController{}";
     }
 
     final void shutdown() {
-        if (statusUpdater != null) {
-            statusUpdater.stop();
+        if (pollTimer != null) {
+            pollTimer.stop();
         }
-        executor.shutdown();
-        try {
-            if (!executor.awaitTermination(2, TimeUnit.SECONDS)) {
-                executor.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+        if (containerMonitor != null) {
+            containerMonitor.stop();
+        }
+        if (statsRenderer != null) {
+            statsRenderer.stop();
+        }
+        if (statsCollector != null) {
+            statsCollector.stop();
+        }
+        if (containerLogs != null) {
+            containerLogs.stopAll();
+        }
+        if (metricsExporter != null) {
+            metricsExporter.stop();
         }
+        scheduler.shutdown(2, TimeUnit.SECONDS);
     }
 
     private void updateButtons() {
-        CompositionVersion selected = compositionVersionTable.getSelectionModel().getSelectedItem();
+        CompositionVersion selected = selectedCompositionVersion();
 
-        boolean anyRunning = containerTable.getItems().stream()
-                .anyMatch(c -> c.getStatus().startsWith("Up"));
+        ContainerIndex index = containerModel.index();
 
-        boolean selectedRunning = selected != null && containerTable.getItems().stream()
-                .anyMatch(c -> c.getProject().equals(
-                        sanitizeProjectName(selected.getCompositionName() + "-" + selected.getVersionIdent()))
-                        && c.getStatus().startsWith("Up"));
+        String selectedProject = selected == null ? null
+                : index.projectName(selected.getCompositionName(), selected.getVersionIdent());
+        boolean selectedRunning = selectedProject != null && index.isProjectRunning(selectedProject);
 
-        startButton.setDisable(activeComposeProject != null || selected == null);
+        startButton.setDisable(selectedProject == null || selectedRunning || startingProjects.contains(selectedProject));
         stopButton.setDisable(!selectedRunning);
-        stopAllButton.setDisable(!anyRunning);
+        stopAllButton.setDisable(!index.anyRunning());
     }
 }
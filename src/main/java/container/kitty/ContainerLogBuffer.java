@@ -0,0 +1,219 @@
+package container.kitty;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Bounded byte ring of one container's log lines. Lines are stored as UTF-8 in a single byte
+ * array and numbered by a sequence that keeps counting across evictions, so a reader can resume
+ * where it stopped and learn how many lines it missed. Appending never blocks: once the byte or
+ * line capacity is reached the oldest lines are dropped.
+ * <p>
+ * Lines are grouped into blocks of {@value #BLOCK_LINES}; each block keeps a 1024-bit signature
+ * of the (ASCII-lowercased) trigrams of its lines. A search only decodes and matches the lines
+ * of blocks whose signature contains every trigram the query requires, which skips most of the
+ * buffer for selective queries at 128 bytes per block. Thread-safe.
+ */
+@SuppressWarnings({
+        "ClassWithoutLogger",
+        "MagicNumber"
+})
+public class ContainerLogBuffer {
+
+    static final int BLOCK_LINES = 64;
+    private static final int SIGNATURE_WORDS = 16; // 1024 bits
+    private static final int MIN_LINE_BYTES = 16; // sizes the line table; shorter lines evict by count
+
+    /** A line and its sequence number. */
+    public record Line(long seq, String text) { }
+
+    /** How many blocks a search covered, and how many of them the signatures could not rule out. */
+    public record SearchStats(int blocks, int blocksScanned) { }
+
+    private final byte[] data;
+    private final long[] starts; // absolute byte position of each line, by seq % length
+    private final int[] lengths;
+    private final long[] signatures; // SIGNATURE_WORDS per block slot
+    private final long[] blockIds; // which block (seq / BLOCK_LINES) a signature slot holds
+
+    private long firstSeq; // oldest line still held
+    private long nextSeq;
+    private long writePos; // absolute position of the next byte
+    private volatile long appended; // nextSeq, readable without the lock
+
+    public ContainerLogBuffer(int capacityBytes) {
+        data = new byte[capacityBytes];
+        int maxLines = Math.max(BLOCK_LINES, capacityBytes / MIN_LINE_BYTES);
+        starts = new long[maxLines];
+        lengths = new int[maxLines];
+        int blocks = maxLines / BLOCK_LINES + 2;
+        signatures = new long[blocks * SIGNATURE_WORDS];
+        blockIds = new long[blocks];
+        Arrays.fill(blockIds, -1L);
+    }
+
+    /** Appends one line (without its terminator); lines longer than the capacity are truncated. */
+    public synchronized void append(byte[] buf, int off, int len) {
+        len = Math.min(len, data.length);
+        while (nextSeq > firstSeq
+                && (nextSeq - firstSeq == starts.length || writePos + len - starts[slot(firstSeq)] > data.length)) {
+            firstSeq++;
+        }
+        int slot = slot(nextSeq);
+        starts[slot] = writePos;
+        lengths[slot] = len;
+        int pos = (int) (writePos % data.length);
+        int first = Math.min(len, data.length - pos);
+        System.arraycopy(buf, off, data, pos, first);
+        System.arraycopy(buf, off + first, data, 0, len - first);
+        writePos += len;
+        sign(nextSeq, buf, off, len);
+        appended = ++nextSeq;
+    }
+
+    /** Sequence of the next line to be appended; cheap, for polling readers. */
+    public long nextSeq() {
+        return appended;
+    }
+
+    public synchronized long firstSeq() {
+        return firstSeq;
+    }
+
+    /** Bytes held by the buffer, independent of how many lines it contains. */
+    public int capacityBytes() {
+        return data.length;
+    }
+
+    /** Adds lines from {@code fromSeq} on (or the oldest held, if that was evicted), at most {@code max}. */
+    public synchronized void readFrom(long fromSeq, int max, List<Line> into) {
+        long end = Math.min(nextSeq, Math.max(fromSeq, firstSeq) + max);
+        for (long seq = Math.max(fromSeq, firstSeq); seq < end; seq++) {
+            into.add(new Line(seq, decode(seq)));
+        }
+    }
+
+    /**
+     * Adds the lines accepted by {@code matcher} to {@code into}, oldest first, skipping blocks
+     * whose signature lacks one of {@code trigrams} (see {@link #trigrams(String)}).
+     */
+    public synchronized SearchStats search(int[] trigrams, Predicate<String> matcher, int max, List<Line> into) {
+        int blocks = 0;
+        int scanned = 0;
+        long seq = firstSeq;
+        while (seq < nextSeq && into.size() < max) {
+            long block = seq / BLOCK_LINES;
+            long blockEnd = Math.min(nextSeq, (block + 1) * BLOCK_LINES);
+            blocks++;
+            if (mayContain(block, trigrams)) {
+                scanned++;
+                for (; seq < blockEnd && into.size() < max; seq++) {
+                    String text = decode(seq);
+                    if (matcher.test(text)) into.add(new Line(seq, text));
+                }
+            }
+            seq = blockEnd;
+        }
+        return new SearchStats(blocks, scanned);
+    }
+
+    private String decode(long seq) {
+        int slot = slot(seq);
+        int pos = (int) (starts[slot] % data.length);
+        int len = lengths[slot];
+        if (pos + len <= data.length) return new String(data, pos, len, StandardCharsets.UTF_8);
+        byte[] line = new byte[len];
+        System.arraycopy(data, pos, line, 0, data.length - pos);
+        System.arraycopy(data, 0, line, data.length - pos, len - (data.length - pos));
+        return new String(line, StandardCharsets.UTF_8);
+    }
+
+    private int slot(long seq) {
+        return (int) (seq % starts.length);
+    }
+
+    private void sign(long seq, byte[] buf, int off, int len) {
+        long block = seq / BLOCK_LINES;
+        int blockSlot = (int) (block % blockIds.length);
+        int base = blockSlot * SIGNATURE_WORDS;
+        if (blockIds[blockSlot] != block) {
+            blockIds[blockSlot] = block;
+            Arrays.fill(signatures, base, base + SIGNATURE_WORDS, 0L);
+        }
+        int nonAscii = 0;
+        for (int i = off; i + 2 < off + len; i++) {
+            int bit = bit(lower(buf[i]), lower(buf[i + 1]), lower(buf[i + 2]));
+            signatures[base + (bit >>> 6)] |= 1L << bit;
+        }
+        for (int i = off; i < off + len; i++) {
+            nonAscii |= buf[i];
+        }
+        if (nonAscii < 0) signFolded(base, new String(buf, off, len, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Case-insensitive matching also pairs the ASCII letters i, k and s with non-ASCII characters
+     * (U+0130, U+0131, the Kelvin sign, the long s). For a line with non-ASCII text the trigrams
+     * are also taken from its characters folded that way, so an ASCII query cannot rule it out.
+     */
+    private void signFolded(int base, String text) {
+        int a = -1;
+        int b = -1;
+        for (int i = 0; i < text.length(); i++) {
+            int c = Character.toLowerCase(Character.toUpperCase(text.charAt(i)));
+            if (c >= 0x80) c = 0x80; // stands for any non-ASCII character; queries never ask for one
+            if (a >= 0) {
+                int bit = bit(a, b, c);
+                signatures[base + (bit >>> 6)] |= 1L << bit;
+            }
+            a = b;
+            b = c;
+        }
+    }
+
+    private boolean mayContain(long block, int[] trigrams) {
+        int blockSlot = (int) (block % blockIds.length);
+        if (blockIds[blockSlot] != block) return true; // cannot happen for held lines; be safe
+        int base = blockSlot * SIGNATURE_WORDS;
+        for (int bit : trigrams) {
+            if ((signatures[base + (bit >>> 6)] & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Signature bits of the trigrams of {@code literal}, as UTF-8 and ASCII-lowercased. Trigrams
+     * with non-ASCII bytes are left out, since a case-insensitive match may use other bytes there.
+     */
+    public static int[] trigrams(String literal) {
+        byte[] bytes = literal.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length < 3) return new int[0];
+        int[] bits = new int[bytes.length - 2];
+        int count = 0;
+        for (int i = 0; i + 2 < bytes.length; i++) {
+            if ((bytes[i] | bytes[i + 1] | bytes[i + 2]) < 0) continue;
+            bits[count++] = bit(lower(bytes[i]), lower(bytes[i + 1]), lower(bytes[i + 2]));
+        }
+        return Arrays.copyOf(bits, count);
+    }
+
+    private static int bit(int a, int b, int c) {
+        int h = (a * 31 + b) * 31 + c;
+        h ^= h >>> 7;
+        return (h * 0x9E3779B1 >>> 22) & 1023;
+    }
+
+    private static int lower(byte b) {
+        return b >= 'A' && b <= 'Z' ? b + 32 : b & 0xFF;
+    }
+
+    @Override
+    public final String toString() {
+        synchronized (this) {
+            long held = nextSeq > firstSeq ? writePos - starts[slot(firstSeq)] : 0L;
+            return "ContainerLogBuffer{lines=" + (nextSeq - firstSeq) + ", bytes=" + held + "/" + data.length + "}";
+        }
+    }
+}
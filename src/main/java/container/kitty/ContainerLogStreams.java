@@ -0,0 +1,277 @@
+package container.kitty;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Follows the logs of individual containers into per-container {@link ContainerLogBuffer}s. Each
+ * container has its own reader thread, so a noisy service only ever fills its own bounded buffer:
+ * it can neither block other streams nor the UI, which drains buffers at its own pace. Streams use
+ * the Engine API when the socket is available and {@code docker logs -f} otherwise.
+ * <p>
+ * Stopping a stream keeps its buffer; following the container again resumes from the timestamp of
+ * the last line received, so nothing is fetched twice. Thread-safe.
+ */
+@SuppressWarnings({
+        "ClassWithoutLogger",
+        "MagicNumber"
+})
+public class ContainerLogStreams {
+
+    static final int BUFFER_BYTES = Integer.getInteger("container.kitty.containerLogKiB", 1024) * 1024;
+    static final int TAIL_LINES = Integer.getInteger("container.kitty.containerLogTail", 1000);
+    private static final int MAX_LINE_BYTES = 16 * 1024;
+    private static final int HEADER_BYTES = 8;
+
+    /** One followed container. */
+    public static final class Stream {
+        private final String containerId;
+        private final String name;
+        private final ContainerLogBuffer buffer = new ContainerLogBuffer(BUFFER_BYTES);
+        private volatile Instant lastTimestamp;
+        private volatile boolean following;
+        // guarded by the ContainerLogStreams
+        private int generation;
+        private SocketChannel channel;
+        private Process process;
+
+        private Stream(String containerId, String name) {
+            this.containerId = containerId;
+            this.name = name;
+        }
+
+        public String containerId() {
+            return containerId;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public ContainerLogBuffer buffer() {
+            return buffer;
+        }
+
+        /** False once the container stopped or the stream was stopped. */
+        public boolean isFollowing() {
+            return following;
+        }
+
+        @Override
+        public String toString() {
+            return name + " " + buffer;
+        }
+    }
+
+    private final DockerEngineClient engine;
+    private final String dockerCommand;
+    private final Consumer<String> log;
+    private final Map<String, Stream> streams = new LinkedHashMap<>(16); // guarded by this
+
+    /**
+     * @param engine the engine client, used if its socket is available
+     * @param log    receives stream failures
+     */
+    public ContainerLogStreams(DockerEngineClient engine, String dockerCommand, Consumer<String> log) {
+        this.engine = engine;
+        this.dockerCommand = dockerCommand;
+        this.log = log;
+    }
+
+    /** Starts following the container unless it is already followed; returns its stream. */
+    public synchronized Stream follow(String containerId, String name) {
+        Stream stream = streams.computeIfAbsent(containerId, id -> new Stream(id, name));
+        if (!stream.following) {
+            stream.following = true;
+            int current = ++stream.generation;
+            Thread reader = new Thread(() -> read(stream, current), "container-kitty-logs-" + name);
+            reader.setDaemon(true);
+            reader.setPriority(Thread.NORM_PRIORITY - 1);
+            reader.start();
+        }
+        return stream;
+    }
+
+    public synchronized Stream get(String containerId) {
+        return streams.get(containerId);
+    }
+
+    /** Stops the reader threads but keeps the buffers, e.g. when the log window is closed. */
+    public synchronized void stopAll() {
+        streams.values().forEach(this::stop);
+    }
+
+    /** Drops the buffers of containers that are gone, keeping at most those listed. */
+    public synchronized void retain(Collection<String> containerIds) {
+        Iterator<Stream> it = streams.values().iterator();
+        while (it.hasNext()) {
+            Stream stream = it.next();
+            if (!containerIds.contains(stream.containerId)) {
+                stop(stream);
+                it.remove();
+            }
+        }
+    }
+
+    private void stop(Stream stream) {
+        stream.generation++;
+        stream.following = false;
+        close(stream);
+    }
+
+    private void read(Stream stream, int generation) {
+        try (InputStream in = open(stream, generation)) {
+            if (in != null) pump(stream, in);
+        } catch (IOException e) {
+            if (isCurrent(stream, generation)) log.accept("Log stream of " + stream.name + " failed: " + e.getMessage());
+        } finally {
+            synchronized (this) {
+                if (stream.generation == generation) {
+                    stream.following = false; // the container stopped; follow() resumes it
+                    close(stream);
+                }
+            }
+        }
+    }
+
+    /** Connects outside the lock, so a slow daemon cannot hold up {@link #follow} for other containers. */
+    private InputStream open(Stream stream, int generation) throws IOException {
+        // since is inclusive; resume one nanosecond after the last line received
+        Instant resume = stream.lastTimestamp == null ? null : stream.lastTimestamp.plusNanos(1);
+        String since = resume == null ? null : resume.getEpochSecond() + "." + String.format(Locale.ROOT, "%09d", resume.getNano());
+        if (engine != null && engine.isAvailable()) {
+            SocketChannel channel = engine.connect();
+            synchronized (this) {
+                if (stream.generation != generation) {
+                    channel.close();
+                    return null;
+                }
+                stream.channel = channel;
+            }
+            return engine.followLogs(channel, stream.containerId, since, TAIL_LINES); // stop() closes the channel
+        }
+        List<String> command = new ArrayList<>(8);
+        Collections.addAll(command, dockerCommand, "logs", "--follow", "--timestamps");
+        Collections.addAll(command, since != null ? new String[]{"--since", since} : new String[]{"--tail", String.valueOf(TAIL_LINES)});
+        command.add(stream.containerId);
+        ProcessBuilder pb = new ProcessBuilder(command);
+        pb.redirectErrorStream(true); // the container's stderr arrives on docker's stderr
+        Process process = pb.start();
+        MetricsRegistry.get().counter(MetricsRegistry.PROCESS_SPAWNS).increment();
+        synchronized (this) {
+            if (stream.generation != generation) {
+                CommandHandle.destroyTree(process);
+                return null;
+            }
+            stream.process = process;
+        }
+        return process.getInputStream();
+    }
+
+    private synchronized boolean isCurrent(Stream stream, int generation) {
+        return stream.generation == generation;
+    }
+
+    private static void close(Stream stream) {
+        if (stream.channel != null) {
+            try {
+                stream.channel.close(); // unblocks the reader
+            } catch (IOException ignored) {}
+            stream.channel = null;
+        }
+        if (stream.process != null) {
+            CommandHandle.destroyTree(stream.process);
+            stream.process = null;
+        }
+    }
+
+    /**
+     * Splits the stream into lines. Engine streams of containers without a TTY are multiplexed;
+     * that is detected from the first header instead of inspecting the container.
+     */
+    private static void pump(Stream stream, InputStream in) throws IOException {
+        LineSplitter lines = new LineSplitter(stream);
+        byte[] header = in.readNBytes(HEADER_BYTES);
+        boolean multiplexed = header.length == HEADER_BYTES && header[0] >= 0 && header[0] <= 2
+                && header[1] == 0 && header[2] == 0 && header[3] == 0;
+        byte[] buf = new byte[8192];
+        if (!multiplexed) {
+            lines.accept(header, header.length);
+            int n;
+            //noinspection NestedAssignment
+            while ((n = in.read(buf)) != -1) lines.accept(buf, n);
+            lines.flush();
+            return;
+        }
+        while (header.length == HEADER_BYTES) {
+            int remaining = ((header[4] & 0xFF) << 24) | ((header[5] & 0xFF) << 16) | ((header[6] & 0xFF) << 8) | (header[7] & 0xFF);
+            while (remaining > 0) {
+                int n = in.read(buf, 0, Math.min(buf.length, remaining));
+                if (n == -1) break;
+                lines.accept(buf, n);
+                remaining -= n;
+            }
+            header = in.readNBytes(HEADER_BYTES);
+        }
+        lines.flush();
+    }
+
+    /** Cuts bytes into lines of at most {@link #MAX_LINE_BYTES} and appends them to the stream's buffer. */
+    private static final class LineSplitter {
+        private final Stream stream;
+        private final byte[] line = new byte[MAX_LINE_BYTES];
+        private int length;
+        private boolean truncated;
+
+        LineSplitter(Stream stream) {
+            this.stream = stream;
+        }
+
+        void accept(byte[] buf, int n) {
+            for (int i = 0; i < n; i++) {
+                byte b = buf[i];
+                if (b == '\n') {
+                    flush();
+                } else if (length < line.length) {
+                    line[length++] = b;
+                } else {
+                    truncated = true; // the rest of an overlong line is dropped
+                }
+            }
+        }
+
+        void flush() {
+            if (length == 0 && !truncated) return;
+            int end = length > 0 && line[length - 1] == '\r' ? length - 1 : length;
+            Instant timestamp = parseTimestamp(line, end);
+            if (timestamp != null) stream.lastTimestamp = timestamp;
+            stream.buffer.append(line, 0, end);
+            length = 0;
+            truncated = false;
+        }
+    }
+
+    /** Parses the RFC 3339 timestamp docker puts in front of each line; null if there is none. */
+    static Instant parseTimestamp(byte[] line, int length) {
+        int space = StatsParser.indexOf(line, 0, Math.min(length, 40), (byte) ' ');
+        if (space < 20 || space >= Math.min(length, 40) || line[4] != '-' || line[10] != 'T') return null;
+        try {
+            return Instant.parse(new String(line, 0, space, StandardCharsets.US_ASCII));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public final String toString() {
+        synchronized (this) {
+            return "ContainerLogStreams{streams=" + streams.values() + "}";
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package container.kitty;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Owns the latest view of the running containers. Every consumer (table, status bar, buttons,
+ * active-project detection) reads from here instead of listing containers itself.
+ * <p>
+ * Refresh requests are coalesced: a request made while a listing is queued joins it, and any
+ * number of requests made while a listing is running share a single follow-up listing (which is
+ * guaranteed to start after the request). A burst of clicks therefore costs at most two queries.
+ * Engine events patch the snapshot in place without any query.
+ * <p>
+ * Listeners are called after the new snapshot is in place and without the service's lock, so a
+ * slow listener does not hold up {@link #latest()} or {@link #refresh()}. They see versions in
+ * increasing order; a snapshot that is already superseded when its turn comes is skipped.
+ */
+@SuppressWarnings("ClassWithoutLogger")
+public class ContainerSnapshotService {
+
+    /** An immutable list of running containers; versions increase with every change. */
+    public record Snapshot(long version, List<ContainerState> containers, Instant takenAt) {
+        static final Snapshot EMPTY = new Snapshot(0L, List.of(), Instant.EPOCH);
+    }
+
+    /** Lists the running containers, e.g. over the engine socket or with docker ps. */
+    public interface Source {
+        List<ContainerState> listContainers() throws IOException;
+    }
+
+    private final Source source;
+    private final Function<Runnable, CommandHandle> submitter;
+    private final List<Consumer<Snapshot>> listeners = new CopyOnWriteArrayList<>();
+    private final MetricsRegistry metrics = MetricsRegistry.get();
+    private final Object notifyLock = new Object();
+    private long notifiedVersion; // guarded by notifyLock
+
+    private Snapshot latest = Snapshot.EMPTY; // guarded by this
+    private CompletableFuture<Snapshot> queued; // waiters of a listing that has not started yet
+    private CompletableFuture<Snapshot> active; // waiters of the listing submitted or running now
+
+    /**
+     * @param submitter runs a listing task, normally on the query lane; the returned handle's
+     *                  completion is used to fail waiters when the task is cancelled before it runs
+     */
+    public ContainerSnapshotService(Source source, Function<Runnable, CommandHandle> submitter) {
+        this.source = source;
+        this.submitter = submitter;
+    }
+
+    /** Called with every new snapshot, on the thread that produced it. */
+    public void addListener(Consumer<Snapshot> listener) {
+        listeners.add(listener);
+    }
+
+    public synchronized Snapshot latest() {
+        return latest;
+    }
+
+    /**
+     * Requests a snapshot taken after this call. Joins a queued listing if there is one; otherwise
+     * queues a listing that starts as soon as the running one (if any) finishes.
+     */
+    public synchronized CompletableFuture<Snapshot> refresh() {
+        metrics.counter("container_kitty_snapshot_requests_total").increment();
+        if (queued != null) {
+            return queued;
+        }
+        queued = new CompletableFuture<>();
+        CompletableFuture<Snapshot> result = queued;
+        if (active == null) {
+            startQueued();
+        }
+        return result;
+    }
+
+    private void startQueued() {
+        CompletableFuture<Snapshot> waiters = queued;
+        active = waiters;
+        metrics.counter("container_kitty_snapshot_queries_total").increment();
+        CommandHandle handle = submitter.apply(() -> runListing(waiters));
+        handle.completion().whenComplete((r, e) -> {
+            if (e != null) {
+                // cancelled or timed out (possibly before it started): waiters must not hang
+                finishListing(waiters);
+                waiters.completeExceptionally(e);
+            }
+        });
+    }
+
+    private void runListing(CompletableFuture<Snapshot> waiters) {
+        synchronized (this) {
+            if (queued == waiters) queued = null; // later requests need a fresh listing
+        }
+        try {
+            List<ContainerState> containers = source.listContainers();
+            waiters.complete(replace(containers));
+        } catch (IOException e) {
+            waiters.completeExceptionally(e); // reported by whoever waits on the snapshot
+        } catch (RuntimeException e) {
+            waiters.completeExceptionally(e);
+            throw e;
+        } finally {
+            finishListing(waiters);
+        }
+    }
+
+    private synchronized void finishListing(CompletableFuture<Snapshot> waiters) {
+        if (active != waiters) return; // already finished
+        active = null;
+        if (queued == waiters) queued = null;
+        if (queued != null) {
+            startQueued();
+        }
+    }
+
+    /**
+     * Replaces the whole snapshot, e.g. after a full listing or an event stream resync. An identical
+     * listing keeps the current version, so pollers can tell whether anything changed.
+     */
+    public Snapshot replace(List<ContainerState> containers) {
+        Snapshot snapshot;
+        synchronized (this) {
+            if (latest.version() > 0 && latest.containers().equals(containers)) return latest;
+            snapshot = next(List.copyOf(containers));
+        }
+        notifyListeners(snapshot);
+        return snapshot;
+    }
+
+    /** Applies a single started or changed container reported by the event stream. */
+    public Snapshot upsert(ContainerState container) {
+        Snapshot snapshot;
+        synchronized (this) {
+            List<ContainerState> next = new ArrayList<>(latest.containers().size() + 1);
+            boolean found = false;
+            for (ContainerState existing : latest.containers()) {
+                if (existing.id().equals(container.id())) {
+                    if (existing.equals(container)) return latest;
+                    next.add(container);
+                    found = true;
+                } else {
+                    next.add(existing);
+                }
+            }
+            if (!found) next.add(container);
+            snapshot = next(Collections.unmodifiableList(next));
+        }
+        notifyListeners(snapshot);
+        return snapshot;
+    }
+
+    /** Applies a container that stopped or was removed. */
+    public Snapshot remove(String containerId) {
+        Snapshot snapshot;
+        synchronized (this) {
+            List<ContainerState> next = new ArrayList<>(latest.containers().size());
+            for (ContainerState existing : latest.containers()) {
+                if (!existing.id().equals(containerId)) next.add(existing);
+            }
+            if (next.size() == latest.containers().size()) return latest;
+            snapshot = next(Collections.unmodifiableList(next));
+        }
+        notifyListeners(snapshot);
+        return snapshot;
+    }
+
+    private synchronized Snapshot next(List<ContainerState> containers) {
+        latest = new Snapshot(latest.version() + 1, containers, Instant.now());
+        return latest;
+    }
+
+    private void notifyListeners(Snapshot snapshot) {
+        synchronized (notifyLock) {
+            if (snapshot.version() <= notifiedVersion) return; // a newer snapshot was already delivered
+            notifiedVersion = snapshot.version();
+            for (Consumer<Snapshot> listener : listeners) {
+                listener.accept(snapshot);
+            }
+        }
+    }
+
+    @Override
+    public final String toString() {
+        return "ContainerSnapshotService{version=" + latest().version() + ", containers=" + latest().containers().size() + "}";
+    }
+}
@@ -0,0 +1,21 @@
+package container.kitty;
+
+/**
+ * Immutable point-in-time view of a running container, as reported by docker ps or the engine API.
+ * Snapshots are reconciled into {@link ContainerInfo} table rows by {@link ContainerTableModel}.
+ *
+ * @param project the {@code com.docker.compose.project} label, or "" if there is none
+ * @param service the {@code com.docker.compose.service} label, or "" if there is none; unlike the
+ *                container name this is not changed by {@code container_name}
+ */
+public record ContainerState(String id, String name, String image, String status, String project, String service) {
+
+    public boolean isRunning() {
+        return status.startsWith("Up");
+    }
+
+    /** Starting, restarting or waiting for its first health check: the state is about to change. */
+    public boolean isTransitioning() {
+        return status.startsWith("Restarting") || status.startsWith("Created") || status.contains("health: starting");
+    }
+}
@@ -0,0 +1,140 @@
+package container.kitty;
+
+import javafx.collections.ObservableList;
+
+import java.util.*;
+
+/**
+ * Keeps the container table rows in step with container snapshots, keyed by container ID.
+ * Rows are created once per container and then mutated in place, so selection and cell
+ * bindings survive refreshes; when nothing changed, a reconcile allocates nothing. Rows hold
+ * flyweight strings: the names, images, statuses and project labels repeated across rows (and
+ * across refreshes from sources that do not intern, like the engine API) share one instance.
+ * Maintains a {@link ContainerIndex} of running counts alongside the rows.
+ * Must be used on the FX thread.
+ */
+@SuppressWarnings("ClassWithoutLogger")
+public class ContainerTableModel {
+
+    private final ObservableList<ContainerInfo> rows;
+    private final Map<String, ContainerInfo> rowsById = new HashMap<>(256);
+    private final ContainerIndex index = new ContainerIndex();
+    private final StringInterner interner = new StringInterner(2048);
+
+    public ContainerTableModel(ObservableList<ContainerInfo> rows) {
+        this.rows = rows;
+        for (ContainerInfo row : rows) {
+            rowsById.put(row.getId(), row);
+            index.add(row.getProject(), row.getStatus());
+        }
+    }
+
+    /**
+     * Reconciles the table against a complete snapshot: adds new containers, updates changed
+     * properties and removes rows whose container is no longer present.
+     *
+     * @return true if any row was added, removed or changed
+     */
+    public boolean reconcile(List<ContainerState> snapshot) {
+        boolean changed = false;
+        int matched = 0;
+        List<ContainerInfo> added = null;
+
+        for (int i = 0, n = snapshot.size(); i < n; i++) {
+            ContainerState state = snapshot.get(i);
+            ContainerInfo row = rowsById.get(state.id());
+            if (row != null) {
+                matched++;
+                changed |= update(row, state);
+            } else {
+                if (added == null) added = new ArrayList<>(n - i);
+                row = new ContainerInfo(flyweight(state));
+                rowsById.put(state.id(), row);
+                index.add(state.project(), state.status());
+                added.add(row);
+            }
+        }
+
+        // Every existing row was matched, so nothing can have disappeared
+        if (matched < rows.size()) {
+            Set<String> present = new HashSet<>(snapshot.size() * 2);
+            for (ContainerState state : snapshot) {
+                present.add(state.id());
+            }
+            rowsById.keySet().retainAll(present);
+            rows.removeIf(row -> {
+                if (present.contains(row.getId())) return false;
+                index.remove(row.getProject(), row.getStatus());
+                return true;
+            });
+            changed = true;
+        }
+
+        if (added != null) {
+            rows.addAll(added);
+            changed = true;
+        }
+        return changed;
+    }
+
+    /** Adds or updates a single container; returns true if the table changed. */
+    public boolean upsert(ContainerState state) {
+        ContainerInfo row = rowsById.get(state.id());
+        if (row != null) {
+            return update(row, state);
+        }
+        row = new ContainerInfo(flyweight(state));
+        rowsById.put(state.id(), row);
+        index.add(state.project(), state.status());
+        rows.add(row);
+        return true;
+    }
+
+    /** Removes a container's row; returns true if it was present. */
+    public boolean remove(String containerId) {
+        ContainerInfo row = rowsById.remove(containerId);
+        if (row == null) return false;
+        index.remove(row.getProject(), row.getStatus());
+        return rows.remove(row);
+    }
+
+    private boolean update(ContainerInfo row, ContainerState state) {
+        ContainerState old = row.getState();
+        if (old.equals(state)) return false; // unchanged rows are never interned again
+        row.update(flyweight(state));
+        index.update(old.project(), old.status(), state.project(), state.status());
+        return true;
+    }
+
+    /** The same state, with strings shared with the other rows; the state itself if all were pooled already. */
+    private ContainerState flyweight(ContainerState state) {
+        String name = interner.intern(state.name());
+        String image = interner.intern(state.image());
+        String status = interner.intern(state.status());
+        String project = interner.intern(state.project());
+        String service = interner.intern(state.service());
+        if (name == state.name() && image == state.image() && status == state.status() && project == state.project()
+                && service == state.service()) {
+            return state;
+        }
+        return new ContainerState(state.id(), name, image, status, project, service);
+    }
+
+    /** Running counts over the current rows. */
+    public ContainerIndex index() {
+        return index;
+    }
+
+    public ContainerInfo get(String containerId) {
+        return rowsById.get(containerId);
+    }
+
+    public int size() {
+        return rowsById.size();
+    }
+
+    @Override
+    public final String toString() {
+        return "ContainerTableModel{rows=" + rowsById.size() + "}";
+    }
+}
@@ -0,0 +1,339 @@
+package container.kitty;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.*;
+import java.net.StandardProtocolFamily;
+import java.net.URLEncoder;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Minimal HTTP/1.1 client for the Docker Engine API over a Unix-domain socket.
+ * Only the two endpoints needed for container state tracking are implemented.
+ */
+@SuppressWarnings({
+        "ClassWithoutLogger",
+        "MagicNumber",
+        "StandardVariableNames"
+})
+public class DockerEngineClient {
+
+    static final String COMPOSE_PROJECT_LABEL = "com.docker.compose.project";
+    static final String COMPOSE_SERVICE_LABEL = "com.docker.compose.service";
+
+    private static final Path DEFAULT_SOCKET = Path.of("/var/run/docker.sock");
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Path socketPath;
+
+    public DockerEngineClient(Path socketPath) {
+        this.socketPath = socketPath;
+    }
+
+    /** Resolves the engine socket from DOCKER_HOST (unix:// only), falling back to /var/run/docker.sock. */
+    public static DockerEngineClient fromEnvironment() {
+        String dockerHost = System.getenv("DOCKER_HOST");
+        if (dockerHost != null && dockerHost.startsWith("unix://")) {
+            return new DockerEngineClient(Path.of(dockerHost.substring("unix://".length())));
+        }
+        return new DockerEngineClient(DEFAULT_SOCKET);
+    }
+
+    /** True if the socket file exists; Windows named pipes and TCP hosts are not supported. */
+    public boolean isAvailable() {
+        return Files.exists(socketPath);
+    }
+
+    public Path getSocketPath() {
+        return socketPath;
+    }
+
+    /** Lists running containers that carry a compose project label. */
+    public List<ContainerState> listComposeContainers() throws IOException {
+        return listContainers("{\"label\":[\"" + COMPOSE_PROJECT_LABEL + "\"]}");
+    }
+
+    /** Looks up a single running container by ID; returns null if it is not running (or gone). */
+    public ContainerState findRunningContainer(String id) throws IOException {
+        List<ContainerState> found = listContainers("{\"id\":[\"" + id + "\"],\"label\":[\"" + COMPOSE_PROJECT_LABEL + "\"]}");
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    private List<ContainerState> listContainers(String filters) throws IOException {
+        try (SocketChannel channel = connect()) {
+            InputStream body = get(channel, "/containers/json?filters=" + encode(filters));
+            JsonNode root = MAPPER.readTree(body);
+            List<ContainerState> containers = new ArrayList<>(root.size());
+            for (JsonNode node : root) {
+                containers.add(toContainerState(node));
+            }
+            return containers;
+        }
+    }
+
+    /**
+     * Subscribes to container events for compose-managed containers and blocks, passing each
+     * event to the consumer, until the stream ends or the channel is closed.
+     *
+     * @param sinceEpochSeconds replay events from this point on (use the time of the last resync)
+     */
+    public void streamEvents(SocketChannel channel, long sinceEpochSeconds, Consumer<DockerEvent> consumer) throws IOException {
+        String filters = "{\"type\":[\"container\"],\"label\":[\"" + COMPOSE_PROJECT_LABEL + "\"]}";
+        InputStream body = get(channel, "/events?since=" + sinceEpochSeconds + "&filters=" + encode(filters));
+
+        try (JsonStreamReader events = new JsonStreamReader(body)) {
+            JsonNode node;
+            //noinspection NestedAssignment,MethodCallInLoopCondition
+            while ((node = events.next()) != null) {
+                JsonNode actor = node.path("Actor");
+                consumer.accept(new DockerEvent(
+                        node.path("Action").asText(""),
+                        actor.path("ID").asText(""),
+                        actor.path("Attributes").path(COMPOSE_PROJECT_LABEL).asText(""),
+                        actor.path("Attributes").path(COMPOSE_SERVICE_LABEL).asText(""),
+                        actor.path("Attributes").path("exitCode").asInt(-1),
+                        node.path("timeNano").asLong(0L)
+                ));
+            }
+        }
+    }
+
+    /**
+     * Follows a container's stdout and stderr with timestamps, blocking in reads until the
+     * container stops or the channel is closed. Unless the container has a TTY, the returned
+     * stream is multiplexed: each frame starts with an 8-byte header (stream type, 3 zero bytes,
+     * big-endian length).
+     *
+     * @param since Unix timestamp ({@code seconds.nanoseconds}) to resume from, or null for the last {@code tail} lines
+     */
+    public InputStream followLogs(SocketChannel channel, String containerId, String since, int tail) throws IOException {
+        String query = "follow=1&stdout=1&stderr=1&timestamps=1"
+                + (since != null ? "&since=" + encode(since) : "&tail=" + tail);
+        return get(channel, "/containers/" + encode(containerId) + "/logs?" + query);
+    }
+
+    /** Opens a new connection to the engine socket. Each request uses its own connection. */
+    public SocketChannel connect() throws IOException {
+        SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+        try {
+            channel.connect(UnixDomainSocketAddress.of(socketPath));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return channel;
+    }
+
+    private static InputStream get(SocketChannel channel, String pathAndQuery) throws IOException {
+        String request = "GET " + pathAndQuery + " HTTP/1.1\r\n" +
+                "Host: docker\r\n" +
+                "Accept: application/json\r\n" +
+                "\r\n";
+        OutputStream out = Channels.newOutputStream(channel);
+        out.write(request.getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+
+        InputStream in = new BufferedInputStream(Channels.newInputStream(channel), 8192);
+        String statusLine = readLine(in);
+        if (statusLine == null) throw new EOFException("Docker engine closed connection without a response");
+        String[] status = statusLine.split(" ", 3);
+        int code = status.length >= 2 ? Integer.parseInt(status[1]) : -1;
+
+        long contentLength = -1L;
+        boolean chunked = false;
+        String header;
+        //noinspection NestedAssignment,MethodCallInLoopCondition
+        while ((header = readLine(in)) != null && !header.isEmpty()) {
+            int colon = header.indexOf(':');
+            if (colon <= 0) continue;
+            String key = header.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+            String value = header.substring(colon + 1).trim();
+            if ("content-length".equals(key)) {
+                contentLength = Long.parseLong(value);
+            } else if ("transfer-encoding".equals(key) && value.toLowerCase(Locale.ROOT).contains("chunked")) {
+                chunked = true;
+            }
+        }
+
+        InputStream body = chunked ? new ChunkedInputStream(in)
+                : contentLength >= 0 ? new BoundedInputStream(in, contentLength)
+                : in;
+
+        if (code != 200) {
+            String message = new String(body.readNBytes(4096), StandardCharsets.UTF_8).trim();
+            throw new IOException("Docker engine returned " + code + " for " + pathAndQuery + ": " + message);
+        }
+        return body;
+    }
+
+    private static ContainerState toContainerState(JsonNode node) {
+        String name = node.path("Names").path(0).asText("");
+        if (name.startsWith("/")) name = name.substring(1);
+        return new ContainerState(
+                node.path("Id").asText(""),
+                name,
+                node.path("Image").asText(""),
+                node.path("Status").asText(""),
+                node.path("Labels").path(COMPOSE_PROJECT_LABEL).asText(""),
+                node.path("Labels").path(COMPOSE_SERVICE_LABEL).asText("")
+        );
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    /** Reads a CRLF-terminated line as ASCII; returns null at end of stream. */
+    static String readLine(InputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder(64);
+        int b;
+        //noinspection NestedAssignment
+        while ((b = in.read()) != -1) {
+            if (b == '\n') {
+                int len = sb.length();
+                if (len > 0 && sb.charAt(len - 1) == '\r') sb.setLength(len - 1);
+                return sb.toString();
+            }
+            sb.append((char) b);
+        }
+        return sb.isEmpty() ? null : sb.toString();
+    }
+
+    @Override
+    public final String toString() {
+        return "DockerEngineClient{socketPath=" + socketPath + "}";
+    }
+
+    /**
+     * A container lifecycle event as delivered by the /events stream.
+     *
+     * @param exitCode the container's exit code for {@code die} events, otherwise -1
+     */
+    public record DockerEvent(String action, String containerId, String project, String service, int exitCode,
+                              long timeNanos) {
+
+        /** True for actions that change whether or how a container shows up in the table. */
+        public boolean changesState() {
+            return switch (action) {
+                case "create", "start", "restart", "die", "stop", "kill", "oom",
+                     "pause", "unpause", "destroy", "rename" -> true;
+                default -> action.startsWith("health_status");
+            };
+        }
+    }
+
+    /** Decodes an HTTP/1.1 chunked body. */
+    static final class ChunkedInputStream extends InputStream {
+        private final InputStream in;
+        private final byte[] single = new byte[1];
+        private long remaining;
+        private boolean eof;
+
+        ChunkedInputStream(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int n = read(single, 0, 1);
+            return n == -1 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (eof) return -1;
+            if (remaining == 0 && !nextChunk()) return -1;
+            int n = in.read(b, off, (int) Math.min(len, remaining));
+            if (n == -1) {
+                eof = true;
+                return -1;
+            }
+            remaining -= n;
+            if (remaining == 0) readLine(in); // CRLF after chunk data
+            return n;
+        }
+
+        private boolean nextChunk() throws IOException {
+            String sizeLine = readLine(in);
+            if (sizeLine == null) {
+                eof = true;
+                return false;
+            }
+            int ext = sizeLine.indexOf(';');
+            String hex = (ext >= 0 ? sizeLine.substring(0, ext) : sizeLine).trim();
+            remaining = hex.isEmpty() ? 0 : Long.parseLong(hex, 16);
+            if (remaining == 0) {
+                eof = true;
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /** Limits reads to a Content-Length body. */
+    static final class BoundedInputStream extends InputStream {
+        private final InputStream in;
+        private long remaining;
+
+        BoundedInputStream(InputStream in, long length) {
+            this.in = in;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) return -1;
+            int b = in.read();
+            if (b != -1) remaining--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) return -1;
+            int n = in.read(b, off, (int) Math.min(len, remaining));
+            if (n > 0) remaining -= n;
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /** Reads a stream of concatenated JSON documents one at a time. */
+    static final class JsonStreamReader implements Closeable {
+        private final JsonParser parser;
+
+        JsonStreamReader(InputStream in) throws IOException {
+            this.parser = MAPPER.getFactory().createParser(in);
+        }
+
+        JsonNode next() throws IOException {
+            if (parser.nextToken() == null) return null;
+            return MAPPER.readTree(parser);
+        }
+
+        @Override
+        public void close() throws IOException {
+            parser.close();
+        }
+    }
+}
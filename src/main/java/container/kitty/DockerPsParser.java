@@ -0,0 +1,100 @@
+package container.kitty;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams {@code docker ps} output, one JSON object per container, into {@link ContainerState}s
+ * with Jackson's streaming parser. Values are interned straight from the parser's buffer, so the
+ * repeated IDs, names, images and project labels of a steady poll allocate no new strings.
+ * Unlike the old "|"-separated format this cannot be confused by separators inside names or labels.
+ */
+@SuppressWarnings({
+        "ClassWithoutLogger",
+        "MagicNumber"
+})
+public class DockerPsParser {
+
+    /**
+     * Per-container JSON with just the fields the table needs; {@code --format json} would print every
+     * field and pack all labels into one comma-separated string.
+     */
+    public static final String FORMAT = "{\"id\":{{json .ID}},\"name\":{{json .Names}},\"image\":{{json .Image}},"
+            + "\"status\":{{json .Status}},\"project\":{{json (.Label \"com.docker.compose.project\")}},"
+            + "\"service\":{{json (.Label \"com.docker.compose.service\")}}}";
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final StringInterner interner = new StringInterner(4096);
+
+    /**
+     * Reads every container object until end of stream. Blank lines and objects without an ID are
+     * skipped; output that ends inside an object (docker ps killed mid-write) throws, so a partial
+     * listing never replaces a complete one.
+     */
+    public synchronized List<ContainerState> parse(InputStream in) throws IOException {
+        List<ContainerState> containers = new ArrayList<>(64);
+        try (JsonParser parser = JSON.createParser(in)) {
+            JsonToken token;
+            //noinspection NestedAssignment
+            while ((token = parser.nextToken()) != null) {
+                if (token == JsonToken.START_OBJECT) {
+                    ContainerState container = readContainer(parser);
+                    if (container != null) {
+                        containers.add(container);
+                    }
+                }
+            }
+        }
+        return containers;
+    }
+
+    private ContainerState readContainer(JsonParser parser) throws IOException {
+        String id = null;
+        String name = "";
+        String image = "";
+        String status = "";
+        String project = "";
+        String service = "";
+
+        JsonToken token;
+        //noinspection NestedAssignment
+        while ((token = parser.nextToken()) != JsonToken.END_OBJECT) {
+            if (token == null) return null;
+            if (token != JsonToken.FIELD_NAME) continue;
+
+            // field names are canonicalized by Jackson, so this switch allocates nothing
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (value != JsonToken.VALUE_STRING) {
+                parser.skipChildren();
+                continue;
+            }
+            switch (field) {
+                case "id" -> id = text(parser);
+                case "name" -> name = text(parser);
+                case "image" -> image = text(parser);
+                case "status" -> status = text(parser);
+                case "project" -> project = text(parser);
+                case "service" -> service = text(parser);
+                default -> { }
+            }
+        }
+        return id == null || id.isEmpty() ? null : new ContainerState(id, name, image, status, project, service);
+    }
+
+    private String text(JsonParser parser) throws IOException {
+        return interner.intern(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+    }
+
+    @Override
+    public String toString() {
+        return "DockerPsParser{interner=" + interner + "}";
+    }
+}
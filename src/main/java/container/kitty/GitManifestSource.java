@@ -0,0 +1,60 @@
+package container.kitty;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Reads the manifest and compose files from a {@link GitMirror}. The revision is the commit, so an
+ * unchanged branch costs one {@code ls-remote} and nothing is read.
+ */
+@SuppressWarnings("ClassWithoutLogger")
+public class GitManifestSource implements ManifestSource {
+
+    private final GitMirror mirror;
+
+    public GitManifestSource(GitMirror mirror) {
+        this.mirror = mirror;
+    }
+
+    @Override
+    public String name() {
+        return "git";
+    }
+
+    @Override
+    public String describe() {
+        return "git mirror in " + mirror.getMirrorDir();
+    }
+
+    @Override
+    public Fetched fetch(String knownRevision) throws IOException {
+        String revision = mirror.refresh();
+        if (revision.equals(knownRevision)) return null;
+        return new Fetched(mirror.readFile(GitMirror.COMPOSE_DIR + "/versions.json"), revision);
+    }
+
+    @Override
+    public BlobStore.Blob composeFile(String composition, BlobStore store) throws IOException {
+        String path = path(composition);
+        long started = System.nanoTime();
+        BlobStore.Blob blob = mirror.exportFiles(List.of(path), store).get(path);
+        MetricsRegistry.get().histogram("container_kitty_git_read_seconds").recordSince(started);
+        return blob;
+    }
+
+    /** One batch for all files, so a later start needs no git round trip. */
+    @Override
+    public void prefetchComposeFiles(Collection<String> compositions, BlobStore store) throws IOException {
+        mirror.exportFiles(compositions.stream().map(GitManifestSource::path).toList(), store);
+    }
+
+    private static String path(String composition) {
+        return GitMirror.COMPOSE_DIR + "/" + ManifestSource.composeFileName(composition);
+    }
+
+    @Override
+    public final String toString() {
+        return "GitManifestSource{mirror=" + mirror + "}";
+    }
+}
@@ -0,0 +1,310 @@
+package container.kitty;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Long-lived blobless partial clone of the compose repository, kept in the user cache dir.
+ * Blobs are only downloaded for the files actually read (all under docker/compose/), a refresh
+ * fetches only when the remote branch head moved, and file contents are cached per commit.
+ */
+@SuppressWarnings({
+        "ClassWithoutLogger",
+        "UseOfProcessBuilder",
+        "MagicNumber"
+})
+public class GitMirror {
+
+    static final String COMPOSE_DIR = "docker/compose";
+
+    private final String remoteUrl;
+    private final String branch;
+    private final Path mirrorDir;
+    private final Consumer<String> log;
+
+    // "<commit>:<path>" -> file contents; only entries for the current head are retained
+    private final Map<String, byte[]> blobCache = new ConcurrentHashMap<>(16);
+    // "<commit>:<path>" -> blob object ID of every file under COMPOSE_DIR at the current head
+    private final Map<String, String> objectIds = new ConcurrentHashMap<>(64);
+    private volatile String headCommit;
+
+    public GitMirror(String remoteUrl, String branch, Path mirrorDir, Consumer<String> log) {
+        this.remoteUrl = remoteUrl;
+        this.branch = branch;
+        this.mirrorDir = mirrorDir;
+        this.log = log;
+    }
+
+    /** Clones the mirror if it does not exist yet and returns the local head commit. */
+    public synchronized String ensureCloned() throws IOException {
+        if (!Files.isDirectory(mirrorDir.resolve(".git"))) {
+            Files.createDirectories(mirrorDir.getParent());
+            run(null, "git", "clone", "--filter=blob:none", "--no-checkout", "--sparse",
+                    "--single-branch", "--branch", branch, remoteUrl, mirrorDir.toString());
+            run(mirrorDir, "git", "sparse-checkout", "set", COMPOSE_DIR);
+        }
+        if (headCommit == null) {
+            setHead(run(mirrorDir, "git", "rev-parse", remoteRef()).trim());
+        }
+        return headCommit;
+    }
+
+    /**
+     * Brings the mirror up to date with the remote branch. Only asks the remote for its head
+     * (ls-remote) and skips the fetch entirely when the head is unchanged.
+     *
+     * @return the (possibly new) head commit
+     */
+    public synchronized String refresh() throws IOException {
+        String localHead = ensureCloned();
+        String remoteHead = "";
+        // "<commit>\t<ref>" per line; the pattern also matches longer refs ending in the branch name
+        for (String line : run(mirrorDir, "git", "ls-remote", "origin", "refs/heads/" + branch).split("\n")) {
+            int tab = line.indexOf('\t');
+            if (tab > 0 && line.substring(tab + 1).trim().equals("refs/heads/" + branch)) {
+                remoteHead = line.substring(0, tab).trim();
+                break;
+            }
+        }
+
+        if (remoteHead.isEmpty()) {
+            throw new IOException("Branch " + branch + " not found on " + remoteUrl);
+        }
+        if (remoteHead.equals(localHead)) {
+            log.accept("git mirror up to date at " + abbreviate(localHead));
+            return localHead;
+        }
+
+        run(mirrorDir, "git", "fetch", "--filter=blob:none", "origin", branch);
+        setHead(run(mirrorDir, "git", "rev-parse", remoteRef()).trim());
+        log.accept("git mirror updated " + abbreviate(localHead) + " -> " + abbreviate(headCommit));
+        return headCommit;
+    }
+
+    /** Returns the head commit the cached contents belong to, or null before the first clone. */
+    public String getHeadCommit() {
+        return headCommit;
+    }
+
+    public Path getMirrorDir() {
+        return mirrorDir;
+    }
+
+    /** Reads one file at the current head. */
+    public byte[] readFile(String pathInRepo) throws IOException {
+        return readFiles(List.of(pathInRepo)).get(pathInRepo);
+    }
+
+    /**
+     * Reads several files at the current head with a single {@code git cat-file --batch} process.
+     * Files already read at this commit are served from memory.
+     */
+    public synchronized Map<String, byte[]> readFiles(Collection<String> pathsInRepo) throws IOException {
+        String commit = ensureCloned();
+        Map<String, byte[]> result = new LinkedHashMap<>(pathsInRepo.size() * 2);
+        List<String> missing = new ArrayList<>(pathsInRepo.size());
+
+        for (String path : pathsInRepo) {
+            byte[] cached = blobCache.get(commit + ":" + path);
+            if (cached != null) {
+                result.put(path, cached);
+            } else {
+                missing.add(path);
+            }
+        }
+        if (missing.isEmpty()) return result;
+
+        log.accept("git cat-file --batch (" + missing.size() + " file(s) at " + abbreviate(commit) + ")");
+        ProcessBuilder pb = new ProcessBuilder("git", "cat-file", "--batch");
+        pb.directory(mirrorDir.toFile());
+        pb.redirectError(ProcessBuilder.Redirect.DISCARD);
+        long started = System.nanoTime();
+        Process process = CommandHandle.track(pb.start());
+
+        try (OutputStream stdin = process.getOutputStream()) {
+            for (String path : missing) {
+                stdin.write((commit + ":" + path + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        try (InputStream stdout = new BufferedInputStream(process.getInputStream())) {
+            for (String path : missing) {
+                String header = readHeaderLine(stdout);
+                if (header == null) {
+                    throw new IOException("git cat-file ended early while reading " + path);
+                }
+                String[] parts = header.split(" ");
+                if (parts.length != 3) {
+                    throw new IOException("git cat-file could not read " + path + " at " + abbreviate(commit) + ": " + header);
+                }
+                byte[] content = stdout.readNBytes(Integer.parseInt(parts[2]));
+                //noinspection ResultOfMethodCallIgnored
+                stdout.read(); // trailing LF
+                blobCache.put(commit + ":" + path, content);
+                result.put(path, content);
+            }
+        }
+
+        waitFor(process, "git cat-file --batch");
+        MetricsRegistry.get().histogram(MetricsRegistry.COMMAND_SECONDS, "command", "git cat-file").recordSince(started);
+        return result;
+    }
+
+    /**
+     * Exports files at the current head into {@code store}, named by their blob object IDs. The IDs
+     * come from the local tree, so a file already exported at any commit is neither downloaded nor
+     * written again. The remaining blobs are streamed from one {@code git cat-file --batch} process
+     * straight into their files and verified against their IDs.
+     */
+    public synchronized Map<String, BlobStore.Blob> exportFiles(Collection<String> pathsInRepo, BlobStore store) throws IOException {
+        String commit = ensureCloned();
+        Map<String, BlobStore.Blob> result = new LinkedHashMap<>(pathsInRepo.size() * 2);
+        Map<String, String> missing = new LinkedHashMap<>(pathsInRepo.size() * 2); // object ID -> path
+        for (String path : pathsInRepo) {
+            String objectId = objectId(commit, path);
+            BlobStore.Blob stored = store.find(objectId);
+            if (stored != null) {
+                result.put(path, stored);
+            } else {
+                missing.putIfAbsent(objectId, path);
+            }
+        }
+        if (missing.isEmpty()) return result;
+
+        log.accept("git cat-file --batch (" + missing.size() + " file(s) at " + abbreviate(commit) + " into " + store.dir() + ")");
+        ProcessBuilder pb = new ProcessBuilder("git", "cat-file", "--batch");
+        pb.directory(mirrorDir.toFile());
+        pb.redirectError(ProcessBuilder.Redirect.DISCARD);
+        long started = System.nanoTime();
+        Process process = CommandHandle.track(pb.start());
+
+        try (OutputStream stdin = process.getOutputStream()) {
+            for (String objectId : missing.keySet()) {
+                stdin.write((objectId + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        // no buffering on top: the header is read byte by byte, then the content goes to the file by channel transfer
+        try (ReadableByteChannel stdout = Channels.newChannel(process.getInputStream())) {
+            InputStream headers = Channels.newInputStream(stdout);
+            for (Map.Entry<String, String> entry : missing.entrySet()) {
+                String header = readHeaderLine(headers);
+                String[] parts = header == null ? new String[0] : header.split(" ");
+                if (parts.length != 3 || !parts[0].equals(entry.getKey())) {
+                    throw new IOException("git cat-file could not read " + entry.getValue() + " at " + abbreviate(commit) + ": " + header);
+                }
+                BlobStore.Blob blob = store.putGitBlob(entry.getKey(), Long.parseLong(parts[2]), stdout);
+                //noinspection ResultOfMethodCallIgnored
+                headers.read(); // trailing LF
+                result.put(entry.getValue(), blob);
+            }
+        }
+
+        waitFor(process, "git cat-file --batch");
+        MetricsRegistry.get().histogram(MetricsRegistry.COMMAND_SECONDS, "command", "git cat-file").recordSince(started);
+        for (String path : pathsInRepo) {
+            result.computeIfAbsent(path, p -> store.find(objectIds.get(commit + ":" + p))); // duplicates of one blob
+        }
+        return result;
+    }
+
+    /** Object ID of a file under {@link #COMPOSE_DIR}; the whole directory is listed with one ls-tree per commit. */
+    private String objectId(String commit, String path) throws IOException {
+        String objectId = objectIds.get(commit + ":" + path);
+        if (objectId != null) return objectId;
+        if (objectIds.keySet().stream().noneMatch(key -> key.startsWith(commit + ":"))) {
+            // "<mode> blob <id>\t<path>" per entry; trees only, so nothing is downloaded
+            for (String line : run(mirrorDir, "git", "ls-tree", "--full-tree", "-r", commit, COMPOSE_DIR + "/").split("\n")) {
+                int tab = line.indexOf('\t');
+                String[] meta = tab < 0 ? new String[0] : line.substring(0, tab).split(" ");
+                if (meta.length == 3 && "blob".equals(meta[1])) objectIds.put(commit + ":" + line.substring(tab + 1), meta[2]);
+            }
+            objectId = objectIds.get(commit + ":" + path);
+        }
+        if (objectId == null) throw new FileNotFoundException(path + " does not exist at " + abbreviate(commit));
+        return objectId;
+    }
+
+    /** Reads one LF-terminated cat-file header line; returns null at end of stream. */
+    private static String readHeaderLine(InputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder(128);
+        int b;
+        //noinspection NestedAssignment
+        while ((b = in.read()) != -1 && b != '\n') {
+            sb.append((char) b);
+        }
+        return b == -1 && sb.isEmpty() ? null : sb.toString();
+    }
+
+    private void setHead(String commit) {
+        if (!commit.equals(headCommit)) {
+            // Contents of older commits are never asked for again
+            blobCache.keySet().removeIf(key -> !key.startsWith(commit + ":"));
+            objectIds.keySet().removeIf(key -> !key.startsWith(commit + ":"));
+        }
+        headCommit = commit;
+    }
+
+    private String remoteRef() {
+        return "refs/remotes/origin/" + branch;
+    }
+
+    private String run(Path directory, String... command) throws IOException {
+        log.accept(String.join(" ", command));
+        ProcessBuilder pb = new ProcessBuilder(command);
+        if (directory != null) pb.directory(directory.toFile());
+        // Only stdout is parsed; warnings, ssh banners and credential helper prompts go to stderr,
+        // which is kept in a file (so neither pipe can fill up) and only reported on failure
+        Path errors = Files.createTempFile("container-kitty-git", ".err");
+        pb.redirectError(errors.toFile());
+        try {
+            long started = System.nanoTime();
+            Process process = CommandHandle.track(pb.start());
+
+            String output;
+            try (InputStream in = process.getInputStream()) {
+                output = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            int exit = waitFor(process, command[0] + " " + command[1]);
+            MetricsRegistry.get().histogram(MetricsRegistry.COMMAND_SECONDS, "command", command[0] + " " + command[1]).recordSince(started);
+            if (exit != 0) {
+                String stderr = new String(Files.readAllBytes(errors), StandardCharsets.UTF_8);
+                throw new IOException(String.join(" ", command) + " failed (exit=" + exit + "): " + stderr.trim());
+            }
+            return output;
+        } finally {
+            Files.deleteIfExists(errors);
+        }
+    }
+
+    private static int waitFor(Process process, String what) throws IOException {
+        try {
+            if (!process.waitFor(5, TimeUnit.MINUTES)) {
+                process.destroyForcibly();
+                throw new IOException(what + " timed out");
+            }
+            return process.exitValue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            process.destroyForcibly();
+            throw new IOException(what + " interrupted", e);
+        }
+    }
+
+    private static String abbreviate(String commit) {
+        return commit == null ? "none" : commit.substring(0, Math.min(8, commit.length()));
+    }
+
+    @Override
+    public final String toString() {
+        return "GitMirror{remoteUrl=" + remoteUrl + ", branch=" + branch + ", mirrorDir=" + mirrorDir + "}";
+    }
+}
@@ -0,0 +1,191 @@
+package container.kitty;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Reads the manifest and compose files over plain HTTP(S), e.g. from a repository's raw file URLs.
+ * Compose files are looked up next to the manifest. One client is kept for the whole session, so
+ * requests reuse its connection (multiplexed over HTTP/2 where the server supports it).
+ * <p>
+ * Requests are conditional: the manifest revision is its {@code ETag} (or {@code Last-Modified}),
+ * and is sent back as {@code If-None-Match} (or {@code If-Modified-Since}), so an unchanged manifest
+ * costs a 304 without a body. Compose files are revalidated the same way against the validators
+ * of the copy in the {@link BlobStore}. Thread-safe.
+ */
+@SuppressWarnings({
+        "ClassWithoutLogger",
+        "MagicNumber"
+})
+public class HttpManifestSource implements ManifestSource {
+
+    static final int TIMEOUT_SECONDS = Integer.getInteger("container.kitty.httpTimeoutSeconds", 30);
+    private static final String ETAG = "etag:";
+    private static final String LAST_MODIFIED = "last-modified:";
+    private static final String CONTENT_HASH = "sha256:";
+
+    /** A stored compose file and the revision it was downloaded at. */
+    private record Cached(String revision, BlobStore.Blob blob) { }
+
+    private final URI manifestUri;
+    private final Consumer<String> log;
+    private final HttpClient client;
+    private final Map<URI, Cached> composeFiles = new ConcurrentHashMap<>(16);
+
+    /**
+     * @param manifestUri the versions.json; compose files are resolved against it
+     * @param log         receives one line per request
+     */
+    public HttpManifestSource(URI manifestUri, Consumer<String> log) {
+        this.manifestUri = manifestUri;
+        this.log = log;
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofSeconds(TIMEOUT_SECONDS))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    @Override
+    public String name() {
+        return "http";
+    }
+
+    @Override
+    public String describe() {
+        return manifestUri.toString();
+    }
+
+    @Override
+    public Fetched fetch(String knownRevision) throws IOException {
+        long started = System.nanoTime();
+        HttpResponse<byte[]> response = join(client.sendAsync(request(manifestUri, knownRevision), HttpResponse.BodyHandlers.ofByteArray()));
+        record(response, started);
+        if (response.statusCode() == 304) return null;
+        checkOk(response);
+
+        byte[] json = response.body();
+        String revision = revision(response);
+        if (revision == null) revision = CONTENT_HASH + sha256Hex(json);
+        return revision.equals(knownRevision) ? null : new Fetched(json, revision);
+    }
+
+    @Override
+    public BlobStore.Blob composeFile(String composition, BlobStore store) throws IOException {
+        return join(composeFileAsync(composition, store));
+    }
+
+    /** Requests all files at once; they share the client's connection instead of queuing behind each other. */
+    @Override
+    public void prefetchComposeFiles(Collection<String> compositions, BlobStore store) throws IOException {
+        List<CompletableFuture<BlobStore.Blob>> downloads = compositions.stream()
+                .map(composition -> composeFileAsync(composition, store))
+                .toList();
+        IOException failure = null;
+        for (CompletableFuture<BlobStore.Blob> download : downloads) {
+            try {
+                join(download);
+            } catch (IOException e) {
+                if (failure == null) failure = e;
+                else failure.addSuppressed(e);
+            }
+        }
+        if (failure != null) throw failure;
+    }
+
+    private CompletableFuture<BlobStore.Blob> composeFileAsync(String composition, BlobStore store) {
+        URI uri = manifestUri.resolve(ManifestSource.composeFileName(composition));
+        Cached cached = composeFiles.get(uri);
+        if (cached != null && store.find(cached.blob().id()) == null) cached = null; // removed from the store
+        Cached known = cached;
+        long started = System.nanoTime();
+        return client.sendAsync(request(uri, known != null ? known.revision() : null), HttpResponse.BodyHandlers.ofInputStream())
+                .thenApply(response -> {
+                    // the body is streamed into the store on the client's executor, not the caller's thread
+                    try (InputStream body = response.body()) {
+                        if (response.statusCode() == 304 && known != null) {
+                            record(response, started);
+                            return known.blob();
+                        }
+                        checkOk(response);
+                        BlobStore.Blob blob = store.putOnce(body);
+                        record(response, started);
+                        String revision = revision(response);
+                        if (revision != null) composeFiles.put(uri, new Cached(revision, blob));
+                        return blob;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    private static HttpRequest request(URI uri, String knownRevision) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofSeconds(TIMEOUT_SECONDS))
+                .header("User-Agent", "container-kitty")
+                .GET();
+        if (knownRevision != null && knownRevision.startsWith(ETAG)) {
+            builder.header("If-None-Match", knownRevision.substring(ETAG.length()));
+        } else if (knownRevision != null && knownRevision.startsWith(LAST_MODIFIED)) {
+            builder.header("If-Modified-Since", knownRevision.substring(LAST_MODIFIED.length()));
+        }
+        return builder.build();
+    }
+
+    /** The validator to send back next time, or null if the server gave none. */
+    private static String revision(HttpResponse<?> response) {
+        Optional<String> etag = response.headers().firstValue("ETag");
+        if (etag.isPresent()) return ETAG + etag.get();
+        return response.headers().firstValue("Last-Modified").map(date -> LAST_MODIFIED + date).orElse(null);
+    }
+
+    private void record(HttpResponse<?> response, long started) {
+        MetricsRegistry metrics = MetricsRegistry.get();
+        metrics.histogram("container_kitty_http_request_seconds").recordSince(started);
+        if (response.statusCode() == 304) metrics.counter("container_kitty_http_not_modified_total").increment();
+        log.accept("GET " + response.uri() + " -> " + response.statusCode() + " (" + response.version() + ")");
+    }
+
+    private static void checkOk(HttpResponse<?> response) throws IOException {
+        if (response.statusCode() != 200) {
+            throw new IOException("GET " + response.uri() + " returned HTTP " + response.statusCode());
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException unchecked) throw unchecked.getCause();
+            if (cause instanceof IOException io) throw io.getMessage() != null ? io : new IOException(io.toString(), io);
+            throw new IOException(cause != null ? cause.getMessage() : e.getMessage(), cause);
+        }
+    }
+
+    private static String sha256Hex(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    @Override
+    public final String toString() {
+        return "HttpManifestSource{uri=" + manifestUri + ", composeFiles=" + composeFiles.size() + "}";
+    }
+}
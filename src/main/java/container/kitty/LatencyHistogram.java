@@ -0,0 +1,106 @@
+package container.kitty;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with log-linear buckets in the style of HdrHistogram: every power
+ * of two is split into 8 sub-buckets, so any recorded value is reported within 12.5%, from one
+ * microsecond up to days, in a fixed 4 KB of counters.
+ */
+@SuppressWarnings({
+        "ClassWithoutLogger",
+        "MagicNumber"
+})
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS;
+
+    /** Point-in-time summary; all values in microseconds. */
+    public record Snapshot(long count, long sumMicros, long p50Micros, long p90Micros, long p99Micros, long maxMicros) {
+        @Override
+        public String toString() {
+            return count + " samples, p50 " + formatMicros(p50Micros) + ", p90 " + formatMicros(p90Micros)
+                    + ", p99 " + formatMicros(p99Micros) + ", max " + formatMicros(maxMicros);
+        }
+    }
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumMicros = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    public void record(long duration, TimeUnit unit) {
+        long micros = Math.max(unit.toMicros(duration), 0L);
+        counts.incrementAndGet(bucketOf(micros));
+        count.increment();
+        sumMicros.add(micros);
+        maxMicros.accumulateAndGet(micros, Math::max);
+    }
+
+    /** Records the time elapsed since {@code startNanos}, a value taken from {@link System#nanoTime()}. */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        long max = maxMicros.get();
+        return new Snapshot(total, sumMicros.sum(),
+                percentile(copy, total, 0.50, max), percentile(copy, total, 0.90, max),
+                percentile(copy, total, 0.99, max), max);
+    }
+
+    /** Returns the upper bound of the bucket holding the given quantile, capped at the observed maximum. */
+    private static long percentile(long[] buckets, long total, double quantile, long max) {
+        if (total == 0) return 0;
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                return Math.min(lowerBound(i + 1) - 1, max);
+            }
+        }
+        return max;
+    }
+
+    static int bucketOf(long micros) {
+        if (micros < SUB_BUCKETS) return (int) micros;
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return ((exponent - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) + sub;
+    }
+
+    static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int exponent = (bucket >>> SUB_BUCKET_BITS) + SUB_BUCKET_BITS - 1;
+        if (exponent >= 63) return Long.MAX_VALUE;
+        return (long) (SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1))) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    static String formatMicros(long micros) {
+        if (micros < 1_000L) return micros + " us";
+        if (micros < 1_000_000L) return String.format(Locale.ROOT, "%.1f ms", micros / 1_000.0);
+        return String.format(Locale.ROOT, "%.2f s", micros / 1_000_000.0);
+    }
+
+    @Override
+    public String toString() {
+        return snapshot().toString();
+    }
+}
@@ -0,0 +1,73 @@
+package container.kitty;
+
+import java.util.List;
+
+/**
+ * Fixed-size ring buffer between log producers (command threads) and the FX thread.
+ * Producers never block on the UI. The append that makes the buffer non-empty tells its caller to
+ * schedule one drain on the FX thread, which takes whatever accumulated by then; an idle buffer
+ * schedules nothing.
+ * If producers outrun the drain by more than the capacity, the oldest pending lines are dropped
+ * and reported as a single entry.
+ */
+@SuppressWarnings("ClassWithoutLogger")
+public class LogBuffer {
+
+    private final LogEntry[] ring;
+    private long writeSeq; // total entries ever appended
+    private long readSeq;  // total entries consumed or skipped
+    private volatile boolean pending;
+
+    public LogBuffer(int capacity) {
+        ring = new LogEntry[capacity];
+    }
+
+    /**
+     * Queues an entry.
+     *
+     * @return true if the buffer was empty, i.e. the caller should schedule a drain
+     */
+    public synchronized boolean append(LogEntry entry) {
+        ring[(int) (writeSeq % ring.length)] = entry;
+        writeSeq++;
+        boolean wasEmpty = !pending;
+        pending = true;
+        return wasEmpty;
+    }
+
+    /** Cheap unsynchronized check so a drain with nothing to do costs one volatile read. */
+    public boolean hasPending() {
+        return pending;
+    }
+
+    /**
+     * Moves all pending entries into {@code batch}, oldest first.
+     *
+     * @return the number of entries lost to overrun since the previous drain
+     */
+    public synchronized long drainTo(List<LogEntry> batch) {
+        long dropped = 0;
+        long oldestAvailable = writeSeq - ring.length;
+        if (readSeq < oldestAvailable) {
+            dropped = oldestAvailable - readSeq;
+            readSeq = oldestAvailable;
+        }
+        while (readSeq < writeSeq) {
+            int slot = (int) (readSeq % ring.length);
+            batch.add(ring[slot]);
+            ring[slot] = null;
+            readSeq++;
+        }
+        pending = false;
+        return dropped;
+    }
+
+    public int capacity() {
+        return ring.length;
+    }
+
+    @Override
+    public final String toString() {
+        return "LogBuffer{capacity=" + ring.length + "}";
+    }
+}
@@ -0,0 +1,23 @@
+package container.kitty;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/** One line in the log view, tagged with its severity and where it came from. */
+public record LogEntry(long timestampMillis, Level level, String source, String message) {
+
+    public enum Level { DEBUG, INFO, WARN, ERROR }
+
+    private static final DateTimeFormatter TIME_FORMAT =
+            DateTimeFormatter.ofPattern("HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    public String formattedTime() {
+        return TIME_FORMAT.format(Instant.ofEpochMilli(timestampMillis));
+    }
+
+    @Override
+    public String toString() {
+        return formattedTime() + " [" + source + "] " + message;
+    }
+}
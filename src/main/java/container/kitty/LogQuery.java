@@ -0,0 +1,163 @@
+package container.kitty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * A case-insensitive log search, either a plain substring or a regular expression, together with
+ * the trigrams every matching line must contain. For a regex those come from the literal runs the
+ * pattern requires; a pattern with alternation, or with syntax the scanner does not read (quoting,
+ * escapes with arguments, back references, comments mode), requires nothing and scans every block.
+ */
+@SuppressWarnings("ClassWithoutLogger")
+public final class LogQuery implements Predicate<String> {
+
+    // escapes that stand for a single character or position and take no argument
+    private static final String SIMPLE_ESCAPES = "tnrfaedDsSwWhHvVbBAGZzRX";
+
+    private final String text;
+    private final Predicate<String> matcher;
+    private final int[] trigrams;
+
+    private LogQuery(String text, Predicate<String> matcher, int[] trigrams) {
+        this.text = text;
+        this.matcher = matcher;
+        this.trigrams = trigrams;
+    }
+
+    public static LogQuery substring(String text) {
+        String needle = text.toLowerCase(Locale.ROOT);
+        return new LogQuery(text, line -> line.toLowerCase(Locale.ROOT).contains(needle), ContainerLogBuffer.trigrams(text));
+    }
+
+    /** @throws PatternSyntaxException if the pattern is invalid */
+    public static LogQuery regex(String pattern) {
+        Pattern compiled = Pattern.compile(pattern, Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+        List<String> literals = requiredLiterals(pattern);
+        int count = 0;
+        List<int[]> parts = new ArrayList<>(literals.size());
+        for (String literal : literals) {
+            int[] part = ContainerLogBuffer.trigrams(literal);
+            parts.add(part);
+            count += part.length;
+        }
+        int[] trigrams = new int[count];
+        int i = 0;
+        for (int[] part : parts) {
+            System.arraycopy(part, 0, trigrams, i, part.length);
+            i += part.length;
+        }
+        return new LogQuery(pattern, line -> compiled.matcher(line).find(), trigrams);
+    }
+
+    @Override
+    public boolean test(String line) {
+        return matcher.test(line);
+    }
+
+    /** Signature bits a block must have to possibly hold a match. */
+    public int[] trigrams() {
+        return trigrams;
+    }
+
+    /**
+     * Literal runs that every match of the pattern contains, read conservatively: anything the
+     * scanner does not understand ends the current run, and alternation or syntax whose extent it
+     * cannot tell gives up entirely. A literal that is not really required would make the search
+     * skip blocks holding matches, so when in doubt this returns fewer literals.
+     */
+    static List<String> requiredLiterals(String pattern) {
+        List<String> literals = new ArrayList<>(4);
+        StringBuilder run = new StringBuilder(16);
+        int depth = 0; // inside a group, a following quantifier may make the whole group optional
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            char literal = 0;
+            if (c == '|') return List.of();
+            if (c == '\\' && i + 1 < pattern.length()) {
+                char escaped = pattern.charAt(++i);
+                if (!Character.isLetterOrDigit(escaped)) {
+                    literal = escaped; // \. \( \\ ...
+                } else if (escaped == 'p' || escaped == 'P') {
+                    i = pattern.startsWith("{", i + 1) ? pattern.indexOf('}', i) : i + 1; // \p{Alpha} or \pL
+                    if (i < 0 || i >= pattern.length()) return List.of();
+                } else if (SIMPLE_ESCAPES.indexOf(escaped) < 0) {
+                    return List.of(); // \Q...\E, \x41, \u00e9, \0101, \cA, \k<name>, \N{...}, back references
+                }
+            } else if (c == '[') {
+                i = classEnd(pattern, i);
+                if (i < 0) return List.of();
+            } else if (c == '{') {
+                int close = pattern.indexOf('}', i + 1); // skip the counts of a quantifier
+                if (close < 0) return List.of();
+                i = close;
+            } else if (c == '(') {
+                if (pattern.startsWith("(?", i) && hasCommentsFlag(pattern, i + 2)) return List.of();
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (".^$+*?{}".indexOf(c) < 0) {
+                literal = c;
+            }
+
+            char next = i + 1 < pattern.length() ? pattern.charAt(i + 1) : 0;
+            boolean optional = next == '?' || next == '*' || next == '{';
+            if (literal != 0 && !optional && depth == 0) {
+                run.append(literal);
+                if (next == '+') flush(run, literals); // "ab+c" need not contain "abc"
+            } else {
+                flush(run, literals);
+            }
+        }
+        flush(run, literals);
+        return literals;
+    }
+
+    /**
+     * Index of the ']' closing the character class opened at {@code open}, or -1 if the class
+     * cannot be read. Escaped brackets, nested classes ({@code [a-z&&[^b]]}) and a ']' right
+     * after the opening bracket (which Java reads as a literal) do not close it.
+     */
+    private static int classEnd(String pattern, int open) {
+        int i = open + 1;
+        if (i < pattern.length() && pattern.charAt(i) == '^') i++;
+        if (i < pattern.length() && pattern.charAt(i) == ']') i++;
+        int depth = 1;
+        for (; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '\\') {
+                if (i + 1 < pattern.length() && pattern.charAt(i + 1) == 'Q') return -1; // quoted text, anything goes
+                i++;
+            } else if (c == '[') {
+                depth++;
+            } else if (c == ']' && --depth == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** True if the inline flags starting at {@code from} (after "(?") turn on comments mode, where whitespace and #... are ignored. */
+    private static boolean hasCommentsFlag(String pattern, int from) {
+        for (int i = from; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == 'x') return true;
+            if (!Character.isLetter(c) && c != '-') return false; // ':' or ')' ends the flags; '=' '!' '<' are not flags
+        }
+        return false;
+    }
+
+    private static void flush(StringBuilder run, List<String> literals) {
+        if (run.length() >= 3) literals.add(run.toString());
+        run.setLength(0);
+    }
+
+    @Override
+    public String toString() {
+        return "LogQuery{" + text + "}";
+    }
+}
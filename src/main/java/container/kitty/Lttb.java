@@ -0,0 +1,72 @@
+package container.kitty;
+
+/**
+ * Largest-Triangle-Three-Buckets downsampling: picks {@code threshold} points out of a series so
+ * that its visual shape (peaks, dips) survives, which plain averaging or striding would flatten.
+ */
+@SuppressWarnings("ClassWithoutLogger")
+public final class Lttb {
+
+    private Lttb() { }
+
+    /**
+     * Selects up to {@code threshold} points from the first {@code count} entries of {@code x}/{@code y}.
+     * The first and last points are always kept; NaN values (gaps) are only picked for a bucket that
+     * holds nothing else.
+     *
+     * @return the indices of the selected points, ascending
+     */
+    public static int[] select(long[] x, float[] y, int count, int threshold) {
+        if (threshold >= count || threshold < 3) {
+            int[] all = new int[count];
+            for (int i = 0; i < count; i++) all[i] = i;
+            return all;
+        }
+
+        int[] selected = new int[threshold];
+        int out = 0;
+        selected[out++] = 0;
+
+        // first and last point are fixed; the rest are split into threshold - 2 buckets
+        double bucketSize = (double) (count - 2) / (threshold - 2);
+        int a = 0;
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            int start = (int) (bucket * bucketSize) + 1;
+            int end = (int) ((bucket + 1) * bucketSize) + 1;
+
+            // average of the next bucket is the third triangle corner
+            int nextStart = end;
+            int nextEnd = Math.min((int) ((bucket + 2) * bucketSize) + 1, count);
+            double avgX = 0;
+            double avgY = 0;
+            int nextLen = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                if (Float.isNaN(y[i])) continue;
+                avgX += x[i];
+                avgY += y[i];
+                nextLen++;
+            }
+            avgX = nextLen > 0 ? avgX / nextLen : x[nextEnd - 1];
+            avgY = nextLen > 0 ? avgY / nextLen : Double.NaN;
+
+            double ax = x[a];
+            double ay = y[a];
+            double maxArea = -1;
+            int maxIndex = start;
+            for (int i = start; i < end; i++) {
+                if (Float.isNaN(y[i])) continue;
+                double area = Math.abs((ax - avgX) * (y[i] - ay) - (ax - x[i]) * (avgY - ay));
+                if (Double.isNaN(area)) area = 0; // gap at a corner: any real point will do
+                if (area > maxArea) {
+                    maxArea = area;
+                    maxIndex = i;
+                }
+            }
+            selected[out++] = maxIndex;
+            a = maxIndex;
+        }
+
+        selected[out] = count - 1;
+        return selected;
+    }
+}
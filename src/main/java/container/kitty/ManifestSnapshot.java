@@ -0,0 +1,17 @@
+package container.kitty;
+
+import java.time.Instant;
+
+/**
+ * A versions manifest together with where it came from.
+ *
+ * @param revision  identifies the source content (git commit, HTTP ETag or content hash); equal revisions mean equal manifests
+ * @param fetchedAt when the manifest was last confirmed against its source
+ */
+public record ManifestSnapshot(VersionsManifest manifest, String revision, Instant fetchedAt) {
+
+    /** Returns the same manifest, confirmed current at the given time. */
+    public ManifestSnapshot revalidatedAt(Instant time) {
+        return new ManifestSnapshot(manifest, revision, time);
+    }
+}
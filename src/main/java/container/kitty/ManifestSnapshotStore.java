@@ -0,0 +1,104 @@
+package container.kitty;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Persists the last good manifest as a compact binary snapshot so the composition table can be
+ * filled at launch without waiting for the network.
+ */
+@SuppressWarnings({
+        "ClassWithoutLogger",
+        "MagicNumber"
+})
+public class ManifestSnapshotStore {
+
+    private static final int MAGIC = 0x434B4D46; // "CKMF"
+    private static final int FORMAT_VERSION = 1;
+
+    private final Path file;
+
+    public ManifestSnapshotStore(Path file) {
+        this.file = file;
+    }
+
+    /** Loads the stored snapshot; returns null if there is none or it cannot be read. */
+    public ManifestSnapshot load() {
+        if (!Files.isRegularFile(file)) return null;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readUnsignedShort() != FORMAT_VERSION) {
+                return null;
+            }
+            String revision = in.readUTF();
+            Instant fetchedAt = Instant.ofEpochMilli(in.readLong());
+
+            int compositionCount = in.readInt();
+            List<Composition> compositions = new ArrayList<>(compositionCount);
+            for (int i = 0; i < compositionCount; i++) {
+                compositions.add(new Composition(readNullable(in), readNullable(in)));
+            }
+
+            int versionCount = in.readInt();
+            List<Version> versions = new ArrayList<>(versionCount);
+            for (int i = 0; i < versionCount; i++) {
+                versions.add(new Version(readNullable(in), readNullable(in)));
+            }
+
+            return new ManifestSnapshot(new VersionsManifest(compositions, versions), revision, fetchedAt);
+        } catch (IOException | RuntimeException e) {
+            // A truncated or foreign file is treated like a missing one; the next fetch overwrites it
+            return null;
+        }
+    }
+
+    /** Writes the snapshot atomically, replacing any previous one. */
+    public void save(ManifestSnapshot snapshot) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeShort(FORMAT_VERSION);
+                out.writeUTF(snapshot.revision());
+                out.writeLong(snapshot.fetchedAt().toEpochMilli());
+
+                List<Composition> compositions = snapshot.manifest().compositions();
+                out.writeInt(compositions.size());
+                for (Composition c : compositions) {
+                    writeNullable(out, c.name());
+                    writeNullable(out, c.comment());
+                }
+
+                List<Version> versions = snapshot.manifest().versions();
+                out.writeInt(versions.size());
+                for (Version v : versions) {
+                    writeNullable(out, v.ident());
+                    writeNullable(out, v.comment());
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static void writeNullable(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    private static String readNullable(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    @Override
+    public final String toString() {
+        return "ManifestSnapshotStore{file=" + file + "}";
+    }
+}
@@ -0,0 +1,37 @@
+package container.kitty;
+
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * Where the versions manifest and the compose files come from: a git mirror, a plain HTTP
+ * server, or the classpath in dev mode. Chosen with {@code -Dcontainer.kitty.manifestSource}.
+ */
+public interface ManifestSource {
+
+    /** The raw manifest and the revision that identifies its content. */
+    record Fetched(byte[] json, String revision) { }
+
+    /** Short name, e.g. for the snapshot file; revisions of different sources are not comparable. */
+    String name();
+
+    /** Where the source reads from, for the About dialog. */
+    String describe();
+
+    /**
+     * Fetches the manifest unless the source's revision still equals {@code knownRevision}.
+     *
+     * @return the manifest, or null if it is unchanged
+     */
+    Fetched fetch(String knownRevision) throws IOException;
+
+    /** Stores the compose file of one composition in {@code store}. */
+    BlobStore.Blob composeFile(String composition, BlobStore store) throws IOException;
+
+    /** Stores the compose files of several compositions ahead of their first start. */
+    void prefetchComposeFiles(Collection<String> compositions, BlobStore store) throws IOException;
+
+    static String composeFileName(String composition) {
+        return String.format("docker-compose-%s.yml", composition);
+    }
+}
@@ -0,0 +1,66 @@
+package container.kitty;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Periodically writes a {@link MetricsRegistry} to a local file in Prometheus text format, so that
+ * the numbers from different machines can be collected and compared (or scraped by a node exporter).
+ */
+@SuppressWarnings("ClassWithoutLogger")
+public class MetricsExporter {
+
+    private final MetricsRegistry registry;
+    private final Path file;
+    private final Duration interval;
+    private final Consumer<String> log;
+    private ScheduledExecutorService executor;
+
+    public MetricsExporter(MetricsRegistry registry, Path file, Duration interval, Consumer<String> log) {
+        this.registry = registry;
+        this.file = file;
+        this.interval = interval;
+        this.log = log;
+    }
+
+    public synchronized void start() {
+        if (executor != null || interval.isZero() || interval.isNegative()) return;
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "container-kitty-metrics");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.scheduleWithFixedDelay(this::export, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /** Writes the current values now. */
+    public void export() {
+        try {
+            registry.writePrometheus(file);
+        } catch (IOException e) {
+            log.accept("Could not write metrics to " + file + ": " + e.getMessage());
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /** Stops the periodic export after writing one final snapshot. */
+    public synchronized void stop() {
+        if (executor == null) return;
+        executor.shutdownNow();
+        executor = null;
+        export();
+    }
+
+    @Override
+    public final String toString() {
+        return "MetricsExporter{file=" + file + ", interval=" + interval + "}";
+    }
+}
@@ -0,0 +1,162 @@
+package container.kitty;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Process-wide counters, gauges and latency histograms for the hot paths (docker commands,
+ * git reads, manifest fetches, FX-thread backlog). Recording is lock-free; metrics are created
+ * on first use and identified by a Prometheus-style name plus optional label pairs.
+ */
+@SuppressWarnings({
+        "ClassWithoutLogger",
+        "MagicNumber"
+})
+public final class MetricsRegistry {
+
+    public static final String PROCESS_SPAWNS = "container_kitty_process_spawns_total";
+    public static final String COMMAND_SECONDS = "container_kitty_command_seconds";
+
+    private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+
+    private final Map<String, LongAdder> counters = new ConcurrentSkipListMap<>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentSkipListMap<>();
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentSkipListMap<>();
+
+    /** Returns the registry shared by the whole application. */
+    public static MetricsRegistry get() {
+        return DEFAULT;
+    }
+
+    /** Returns the counter for {@code name} and the given label name/value pairs, creating it on first use. */
+    public LongAdder counter(String name, String... labels) {
+        return counters.computeIfAbsent(key(name, labels), k -> new LongAdder());
+    }
+
+    /** Registers (or replaces) a gauge whose value is read at export time. */
+    public void gauge(String name, LongSupplier value, String... labels) {
+        gauges.put(key(name, labels), value);
+    }
+
+    public LatencyHistogram histogram(String name, String... labels) {
+        return histograms.computeIfAbsent(key(name, labels), k -> new LatencyHistogram());
+    }
+
+    private static String key(String name, String... labels) {
+        if (labels.length == 0) return name;
+        StringBuilder sb = new StringBuilder(name).append('{');
+        for (int i = 0; i + 1 < labels.length; i += 2) {
+            if (i > 0) sb.append(',');
+            sb.append(labels[i]).append("=\"").append(escapeLabelValue(labels[i + 1])).append('"');
+        }
+        return sb.append('}').toString();
+    }
+
+    /** Backslash first, so the escapes added for quotes and newlines are not escaped again. */
+    private static String escapeLabelValue(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /** Renders all metrics in the Prometheus text exposition format; histograms become summaries in seconds. */
+    public String toPrometheusText() {
+        StringBuilder sb = new StringBuilder(4096);
+        for (Map.Entry<String, List<Map.Entry<String, LongAdder>>> metric : byName(counters).entrySet()) {
+            typeLine(sb, metric.getKey(), "counter");
+            for (Map.Entry<String, LongAdder> e : metric.getValue()) {
+                sb.append(e.getKey()).append(' ').append(e.getValue().sum()).append('\n');
+            }
+        }
+        for (Map.Entry<String, List<Map.Entry<String, LongSupplier>>> metric : byName(gauges).entrySet()) {
+            typeLine(sb, metric.getKey(), "gauge");
+            for (Map.Entry<String, LongSupplier> e : metric.getValue()) {
+                sb.append(e.getKey()).append(' ').append(e.getValue().getAsLong()).append('\n');
+            }
+        }
+        for (Map.Entry<String, List<Map.Entry<String, LatencyHistogram>>> metric : byName(histograms).entrySet()) {
+            String name = metric.getKey();
+            typeLine(sb, name, "summary");
+            for (Map.Entry<String, LatencyHistogram> e : metric.getValue()) {
+                String labels = e.getKey().substring(name.length());
+                LatencyHistogram.Snapshot s = e.getValue().snapshot();
+                appendQuantile(sb, name, labels, "0.5", s.p50Micros());
+                appendQuantile(sb, name, labels, "0.9", s.p90Micros());
+                appendQuantile(sb, name, labels, "0.99", s.p99Micros());
+                sb.append(name).append("_sum").append(labels).append(' ').append(seconds(s.sumMicros())).append('\n');
+                sb.append(name).append("_count").append(labels).append(' ').append(s.count()).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Groups series by metric name. Keys are sorted as whole strings, so "foo_bar" lands between
+     * "foo" and "foo{...}"; Prometheus wants every series of a name in one block under one TYPE line.
+     */
+    private static <V> Map<String, List<Map.Entry<String, V>>> byName(Map<String, V> metrics) {
+        Map<String, List<Map.Entry<String, V>>> grouped = new TreeMap<>();
+        for (Map.Entry<String, V> e : metrics.entrySet()) {
+            grouped.computeIfAbsent(baseName(e.getKey()), k -> new ArrayList<>(4)).add(e);
+        }
+        return grouped;
+    }
+
+    private static void typeLine(StringBuilder sb, String name, String type) {
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void appendQuantile(StringBuilder sb, String name, String labels, String quantile, long micros) {
+        sb.append(name);
+        if (labels.isEmpty()) {
+            sb.append("{quantile=\"").append(quantile).append("\"}");
+        } else {
+            sb.append(labels, 0, labels.length() - 1).append(",quantile=\"").append(quantile).append("\"}");
+        }
+        sb.append(' ').append(seconds(micros)).append('\n');
+    }
+
+    private static String baseName(String key) {
+        int brace = key.indexOf('{');
+        return brace < 0 ? key : key.substring(0, brace);
+    }
+
+    private static String seconds(long micros) {
+        return String.format(Locale.ROOT, "%.6f", micros / 1_000_000.0);
+    }
+
+    /** Human-readable listing for the diagnostics dialog. */
+    public String describe() {
+        StringBuilder sb = new StringBuilder(4096);
+        sb.append("Latencies\n");
+        histograms.forEach((key, histogram) -> sb.append("  ").append(key).append(": ").append(histogram.snapshot()).append('\n'));
+        sb.append("\nCounters\n");
+        counters.forEach((key, counter) -> sb.append("  ").append(key).append(": ").append(counter.sum()).append('\n'));
+        sb.append("\nGauges\n");
+        gauges.forEach((key, gauge) -> sb.append("  ").append(key).append(": ").append(gauge.getAsLong()).append('\n'));
+        return sb.toString();
+    }
+
+    /** Writes the Prometheus text to {@code file}, replacing it atomically. */
+    public void writePrometheus(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(tmp, toPrometheusText(), StandardCharsets.UTF_8);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public String toString() {
+        return "MetricsRegistry{counters=" + counters.size() + ", gauges=" + gauges.size()
+                + ", histograms=" + histograms.size() + "}";
+    }
+}
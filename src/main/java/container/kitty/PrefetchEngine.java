@@ -0,0 +1,179 @@
+package container.kitty;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Pulls the images of composition/version pairs ahead of a start, so that starting a warm pair
+ * only has to create containers. A pair is first checked with a cheap local lookup on the query
+ * lane; only missing images are pulled, on the low-priority prefetch lane whose thread count caps
+ * concurrent pulls. A pull queued because of a selection is replaced by the next selection, so
+ * scrolling through the catalog does not queue a pull per row. Selecting a warm pair runs the
+ * local lookup again, since its images may have been pruned in the meantime. Thread-safe.
+ */
+@SuppressWarnings("ClassWithoutLogger")
+public class PrefetchEngine {
+
+    public record Key(String composition, String version) {
+        @Override
+        public String toString() {
+            return composition + " " + version;
+        }
+    }
+
+    public enum State {
+        CHECKING(""), QUEUED("queued"), PULLING("pulling..."), WARM("local"), FAILED("pull failed");
+
+        private final String label;
+
+        State(String label) {
+            this.label = label;
+        }
+
+        /** Short text for the catalog table. */
+        public String label() {
+            return label;
+        }
+    }
+
+    /** The docker side of a prefetch; called on lane threads. */
+    public interface Docker {
+        /** Image references of the pair's compose file, with its IMAGE_TAG applied. */
+        List<String> images(Key key) throws IOException;
+
+        /** True if every image is present locally. */
+        boolean present(List<String> images) throws IOException;
+
+        /** Pulls the pair's images; returns the exit code. */
+        int pull(Key key) throws IOException;
+    }
+
+    private final Docker docker;
+    private final BiFunction<String, Runnable, CommandHandle> querySubmitter;
+    private final BiFunction<String, Runnable, CommandHandle> prefetchSubmitter;
+    private final Consumer<Key> listener;
+    private final Map<Key, State> states = new ConcurrentHashMap<>(64);
+    // warm pairs being looked up again; they keep showing as warm until the lookup says otherwise
+    private final Set<Key> rechecks = ConcurrentHashMap.newKeySet();
+
+    private Key selectedKey; // guarded by this
+    private CommandHandle selectedPull; // guarded by this
+
+    /**
+     * @param listener called with the pair whenever its state changes, on whichever thread changed it
+     */
+    public PrefetchEngine(Docker docker, BiFunction<String, Runnable, CommandHandle> querySubmitter,
+                          BiFunction<String, Runnable, CommandHandle> prefetchSubmitter, Consumer<Key> listener) {
+        this.docker = docker;
+        this.querySubmitter = querySubmitter;
+        this.prefetchSubmitter = prefetchSubmitter;
+        this.listener = listener;
+    }
+
+    /** The user selected the pair: warm it, replacing a pull queued for the previous selection. */
+    public void prefetchSelected(Key key) {
+        request(key, true);
+    }
+
+    /** Warms the pair in the background, e.g. a version that just appeared in the manifest. */
+    public void prefetch(Key key) {
+        request(key, false);
+    }
+
+    private void request(Key key, boolean selected) {
+        State previous = states.putIfAbsent(key, State.CHECKING);
+        if (previous == State.WARM) {
+            if (selected && rechecks.add(key)) {
+                querySubmitter.apply("check images " + key, () -> check(key, true, true))
+                        .completion().whenComplete((r, e) -> rechecks.remove(key));
+            }
+            return;
+        }
+        if (previous != null) {
+            if (previous != State.FAILED || !states.replace(key, State.FAILED, State.CHECKING)) return; // busy
+        }
+        listener.accept(key);
+        querySubmitter.apply("check images " + key, () -> check(key, selected, false))
+                .completion().whenComplete((r, e) -> {
+                    if (e != null) clear(key, State.CHECKING);
+                });
+    }
+
+    private void check(Key key, boolean selected, boolean recheck) {
+        try {
+            if (docker.present(docker.images(key))) {
+                update(key, State.WARM);
+            } else if (!recheck || states.get(key) == State.WARM) {
+                enqueuePull(key, selected);
+            }
+        } catch (IOException | RuntimeException e) {
+            // a warm pair whose lookup failed (docker unreachable, say) is left as it was
+            if (!recheck) update(key, State.FAILED);
+        }
+    }
+
+    private void enqueuePull(Key key, boolean selected) {
+        synchronized (this) {
+            if (selected && selectedPull != null && states.get(selectedKey) == State.QUEUED) {
+                selectedPull.cancel(); // the user moved on before it started
+            }
+            update(key, State.QUEUED);
+            CommandHandle handle = prefetchSubmitter.apply("pull " + key, () -> pull(key));
+            handle.completion().whenComplete((r, e) -> {
+                if (e != null) {
+                    clear(key, State.QUEUED);
+                    clear(key, State.PULLING);
+                }
+            });
+            if (selected) {
+                selectedKey = key;
+                selectedPull = handle;
+            }
+        }
+    }
+
+    private void pull(Key key) {
+        update(key, State.PULLING);
+        try {
+            update(key, docker.pull(key) == 0 ? State.WARM : State.FAILED);
+        } catch (IOException | RuntimeException e) {
+            update(key, State.FAILED);
+        }
+    }
+
+    /** The pair was started, which pulls whatever was missing. */
+    public void markWarm(Key key) {
+        update(key, State.WARM);
+    }
+
+    /** The pair's state, or null if it was never checked. */
+    public State state(Key key) {
+        return states.get(key);
+    }
+
+    /** Compositions with at least one warm version, i.e. ones this user actually runs. */
+    public Set<String> warmCompositions() {
+        Set<String> compositions = new HashSet<>();
+        states.forEach((key, state) -> {
+            if (state == State.WARM) compositions.add(key.composition());
+        });
+        return compositions;
+    }
+
+    private void update(Key key, State state) {
+        if (states.put(key, state) != state) listener.accept(key);
+    }
+
+    /** Forgets a check or pull that was cancelled or failed to run, so the pair can be requested again. */
+    private void clear(Key key, State expected) {
+        if (states.remove(key, expected)) listener.accept(key);
+    }
+
+    @Override
+    public final String toString() {
+        return "PrefetchEngine{pairs=" + states.size() + "}";
+    }
+}
@@ -0,0 +1,143 @@
+package container.kitty;
+
+/**
+ * CPU and memory history of one container in fixed-size primitive ring buffers.
+ * Recent samples are kept as-is; older ones survive as one-minute averages, so a container
+ * costs the same ~52 KB whether it was watched for a minute or all day.
+ */
+@SuppressWarnings({
+        "ClassWithoutLogger",
+        "MagicNumber"
+})
+public final class ResourceHistory {
+
+    public enum Metric { CPU, MEMORY }
+
+    /** Selected points of one metric, oldest first; only the first {@code size} entries are valid. */
+    public record Series(long[] times, float[] values, int size) { }
+
+    static final int RECENT_CAPACITY = 1800;   // 30-60 min at docker stats' 1-2 s cadence
+    static final int MINUTE_CAPACITY = 1440;   // 24 h
+    private static final long MINUTE_MILLIS = 60_000L;
+
+    private final Ring recent = new Ring(RECENT_CAPACITY);
+    private final Ring minutes = new Ring(MINUTE_CAPACITY);
+
+    private long bucketStart = -1L;
+    private double bucketCpu;
+    private double bucketMem;
+    private int bucketCount;
+
+    /** Adds a sample; samples must arrive in time order. */
+    public void record(long timeMillis, double cpuPercent, long memBytes) {
+        if (Double.isNaN(cpuPercent) || memBytes < 0) return;
+
+        long bucket = timeMillis - timeMillis % MINUTE_MILLIS;
+        if (bucket != bucketStart) {
+            flushBucket();
+            bucketStart = bucket;
+        }
+        bucketCpu += cpuPercent;
+        bucketMem += memBytes;
+        bucketCount++;
+
+        recent.add(timeMillis, (float) cpuPercent, memBytes);
+    }
+
+    private void flushBucket() {
+        if (bucketCount > 0) {
+            minutes.add(bucketStart, (float) (bucketCpu / bucketCount), (float) (bucketMem / bucketCount));
+        }
+        bucketCpu = 0;
+        bucketMem = 0;
+        bucketCount = 0;
+    }
+
+    /**
+     * Returns the metric from {@code fromMillis} on, downsampled with LTTB to at most {@code maxPoints}.
+     * Minute averages cover the span before the oldest recent sample.
+     */
+    public Series series(Metric metric, long fromMillis, int maxPoints) {
+        int recentFirst = recent.firstIndexAtOrAfter(fromMillis);
+        int recentCount = recent.size - recentFirst;
+        long recentOldest = recent.size > 0 ? recent.time(0) : Long.MAX_VALUE;
+
+        int minuteFirst = minutes.firstIndexAtOrAfter(fromMillis);
+        int minuteEnd = minutes.firstIndexAtOrAfter(recentOldest);
+        int minuteCount = Math.max(minuteEnd - minuteFirst, 0);
+
+        int count = minuteCount + recentCount;
+        long[] times = new long[count];
+        float[] values = new float[count];
+        minutes.copy(metric, minuteFirst, minuteCount, times, values, 0);
+        recent.copy(metric, recentFirst, recentCount, times, values, minuteCount);
+
+        int[] selected = Lttb.select(times, values, count, maxPoints);
+        for (int i = 0; i < selected.length; i++) {
+            times[i] = times[selected[i]];
+            values[i] = values[selected[i]];
+        }
+        return new Series(times, values, selected.length);
+    }
+
+    public int size() {
+        return recent.size + minutes.size;
+    }
+
+    @Override
+    public String toString() {
+        return "ResourceHistory{recent=" + recent.size + ", minutes=" + minutes.size + "}";
+    }
+
+    /** Ring of (time, cpu, memory) triples; index 0 is the oldest entry. */
+    private static final class Ring {
+        private final long[] times;
+        private final float[] cpu;
+        private final float[] mem;
+        private int head; // next write position
+        private int size;
+
+        Ring(int capacity) {
+            times = new long[capacity];
+            cpu = new float[capacity];
+            mem = new float[capacity];
+        }
+
+        void add(long time, float cpuValue, float memValue) {
+            times[head] = time;
+            cpu[head] = cpuValue;
+            mem[head] = memValue;
+            head = (head + 1) % times.length;
+            if (size < times.length) size++;
+        }
+
+        private int slot(int index) {
+            return (head - size + index + times.length) % times.length;
+        }
+
+        long time(int index) {
+            return times[slot(index)];
+        }
+
+        /** Binary search for the first entry at or after {@code time}; returns size if there is none. */
+        int firstIndexAtOrAfter(long time) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (time(mid) < time) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+
+        void copy(Metric metric, int from, int count, long[] timesOut, float[] valuesOut, int offset) {
+            float[] source = metric == Metric.CPU ? cpu : mem;
+            for (int i = 0; i < count; i++) {
+                int s = slot(from + i);
+                timesOut[offset + i] = times[s];
+                valuesOut[offset + i] = source[s];
+            }
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package container.kitty;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Records how long a start takes until the stack is usable. The start itself reports its phases
+ * (compose fetch, workspace, image pull, {@code compose up}); per-service creation, start and
+ * health come from container events, so readiness is known the moment the last service turns
+ * healthy rather than at the next poll. A service without a healthcheck is ready once started; a
+ * service that exits on its own (an init or migration job) does not hold readiness up.
+ * <p>
+ * Finished runs are appended to a JSON-lines history file, keeping the most recent
+ * {@code historySize}. Thread-safe.
+ */
+@SuppressWarnings({
+        "ClassWithoutLogger",
+        "MagicNumber"
+})
+public class StartupTracer {
+
+    public enum Outcome { READY, FAILED, UNHEALTHY, TIMED_OUT }
+
+    /** One bar of the waterfall, in milliseconds since the start was requested. */
+    public record Span(String row, String kind, long start, long end) {
+        public long duration() {
+            return end - start;
+        }
+    }
+
+    /** A finished start, as shown and persisted. */
+    public record Trace(String project, String composition, String version, long startedAt, Outcome outcome,
+                        long totalMillis, String detail, List<Span> spans) {
+
+        /** The service that became ready last, or null. */
+        public Span slowestService() {
+            Span slowest = null;
+            for (Span span : spans) {
+                if (!"phase".equals(span.kind()) && (slowest == null || span.end() > slowest.end())) slowest = span;
+            }
+            return slowest;
+        }
+    }
+
+    private static final class Service {
+        long created;
+        long started;
+        long healthy;
+        long exited;
+        Boolean healthcheck; // null until the container's status was seen
+        boolean unhealthy;
+        boolean crashed;
+        int restarts;
+
+        boolean isCompleted() {
+            return started > 0 && exited > started && !crashed;
+        }
+
+        boolean isReady() {
+            if (isCompleted()) return true; // a job that ran to completion
+            if (healthcheck == null || started == 0) return false;
+            return !healthcheck || healthy > 0;
+        }
+
+        long readyAt() {
+            return isCompleted() ? exited : healthcheck != null && healthcheck ? healthy : started;
+        }
+    }
+
+    /** A start in progress; the start task reports its phases here. */
+    public final class Run {
+        private final String project;
+        private final String composition;
+        private final String version;
+        private final long startedAt = System.currentTimeMillis();
+        private final List<Span> phases = new ArrayList<>(8);
+        private final Map<String, Service> services = new LinkedHashMap<>(8);
+        private boolean upFinished;
+        private Trace trace;
+
+        private Run(String project, String composition, String version) {
+            this.project = project;
+            this.composition = composition;
+            this.version = version;
+        }
+
+        public String project() {
+            return project;
+        }
+
+        /** Records a phase that began at {@code startedMillis} (epoch) and ends now. */
+        public void phase(String name, long startedMillis) {
+            synchronized (StartupTracer.this) {
+                phases.add(new Span(name, "phase", startedMillis - startedAt, System.currentTimeMillis() - startedAt));
+            }
+        }
+
+        /**
+         * The services the compose file defines. Events can trail {@code compose up} by a few
+         * milliseconds, so readiness waits for each of them rather than only for those seen so far.
+         */
+        public void expect(Collection<String> serviceNames) {
+            synchronized (StartupTracer.this) {
+                for (String name : serviceNames) services.computeIfAbsent(name, s -> new Service());
+            }
+        }
+
+        /** {@code compose up} returned; from here on the run waits for its services. */
+        public void upFinished(int exitCode) {
+            Trace finished;
+            synchronized (StartupTracer.this) {
+                if (trace != null) return;
+                if (exitCode != 0) {
+                    finished = finish(this, Outcome.FAILED, "compose up exited with code " + exitCode);
+                } else {
+                    upFinished = true;
+                    finished = evaluate(this);
+                }
+            }
+            if (finished == null) {
+                CompletableFuture.delayedExecutor(readyTimeout.toMillis(), TimeUnit.MILLISECONDS).execute(() -> expire(this));
+            } else {
+                completed(finished);
+            }
+        }
+
+        /** The start failed before {@code compose up} finished. */
+        public void fail(String reason) {
+            Trace finished;
+            synchronized (StartupTracer.this) {
+                if (trace != null) return;
+                finished = finish(this, Outcome.FAILED, reason);
+            }
+            completed(finished);
+        }
+    }
+
+    private final Path historyFile;
+    private final int historySize;
+    private final Duration readyTimeout;
+    private final Consumer<Trace> listener;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final Map<String, Run> active = new HashMap<>(8); // guarded by this
+    private List<Trace> history; // guarded by this; loaded on first use
+    private int fileLines; // guarded by this; lines in the history file, compacted at twice the kept history
+
+    /**
+     * @param historyFile JSON-lines file, or null to keep the history in memory only
+     * @param listener    called with every finished trace, on whichever thread finished it
+     */
+    public StartupTracer(Path historyFile, int historySize, Duration readyTimeout, Consumer<Trace> listener) {
+        this.historyFile = historyFile;
+        this.historySize = Math.max(1, historySize);
+        this.readyTimeout = readyTimeout;
+        this.listener = listener;
+    }
+
+    /** Starts tracing a start of the project; replaces any unfinished trace of the same project. */
+    public synchronized Run begin(String project, String composition, String version) {
+        Run run = new Run(project, composition, version);
+        active.put(project, run);
+        return run;
+    }
+
+    /** Feeds a container event; events of projects that are not starting are ignored. */
+    public void onEvent(DockerEngineClient.DockerEvent event) {
+        Trace finished;
+        synchronized (this) {
+            Run run = active.get(event.project());
+            if (run == null || event.service().isEmpty()) return;
+            Service service = run.services.computeIfAbsent(event.service(), s -> new Service());
+            long time = event.timeNanos() > 0 ? TimeUnit.NANOSECONDS.toMillis(event.timeNanos()) : System.currentTimeMillis();
+            switch (event.action()) {
+                case "create" -> {
+                    if (service.created == 0) service.created = time;
+                }
+                case "start" -> {
+                    if (service.started > 0) service.restarts++;
+                    service.started = time;
+                    service.crashed = false;
+                    if (service.created == 0) service.created = time;
+                }
+                case "die" -> {
+                    service.exited = time;
+                    service.crashed = event.exitCode() != 0;
+                }
+                case "health_status: healthy" -> {
+                    service.healthcheck = true;
+                    service.unhealthy = false;
+                    if (service.healthy == 0) service.healthy = time;
+                }
+                case "health_status: unhealthy" -> {
+                    service.healthcheck = true;
+                    service.unhealthy = true;
+                }
+                default -> { }
+            }
+            finished = evaluate(run);
+        }
+        completed(finished);
+    }
+
+    /**
+     * Feeds the running containers. Their status tells whether a service has a healthcheck at
+     * all; without an event stream it is also the only (coarser) source of start and health times.
+     */
+    public void onSnapshot(List<ContainerState> containers) {
+        List<Trace> finished = new ArrayList<>(1);
+        synchronized (this) {
+            if (active.isEmpty()) return;
+            long now = System.currentTimeMillis();
+            for (ContainerState container : containers) {
+                Run run = active.get(container.project());
+                // keyed like the events, by label: container_name makes the name unrelated to the service
+                if (run == null || !container.isRunning() || container.service().isEmpty()) continue;
+                Service service = run.services.computeIfAbsent(container.service(), s -> new Service());
+                service.healthcheck = container.status().contains("(health");
+                if (service.started == 0) service.started = now;
+                if (service.created == 0) service.created = service.started;
+                if (service.healthy == 0 && container.status().contains("(healthy)")) service.healthy = now;
+            }
+            for (Run run : List.copyOf(active.values())) {
+                Trace trace = evaluate(run);
+                if (trace != null) finished.add(trace);
+            }
+        }
+        finished.forEach(this::completed);
+    }
+
+    /** Finished traces, oldest first, including those of earlier sessions. */
+    public synchronized List<Trace> history() {
+        return List.copyOf(loadedHistory());
+    }
+
+    /** Finished traces of one composition, newest first, e.g. to compare versions. */
+    public synchronized List<Trace> history(String composition) {
+        List<Trace> traces = new ArrayList<>(16);
+        for (Trace trace : loadedHistory()) {
+            if (trace.composition().equals(composition)) traces.add(0, trace);
+        }
+        return traces;
+    }
+
+    private void expire(Run run) {
+        Trace finished;
+        synchronized (this) {
+            if (run.trace != null) return;
+            boolean unhealthy = run.services.values().stream().anyMatch(s -> s.unhealthy || s.crashed);
+            List<String> waiting = run.services.entrySet().stream()
+                    .filter(e -> !e.getValue().isReady())
+                    .map(e -> e.getKey() + (e.getValue().crashed ? " (crashed)" : e.getValue().unhealthy ? " (unhealthy)" : ""))
+                    .toList();
+            finished = finish(run, unhealthy ? Outcome.UNHEALTHY : Outcome.TIMED_OUT,
+                    "not ready after " + readyTimeout.toSeconds() + " s: " + String.join(", ", waiting));
+        }
+        completed(finished);
+    }
+
+    /** Finishes the run if every service is ready; returns the trace, or null while still waiting. */
+    private Trace evaluate(Run run) {
+        if (run.trace != null || !run.upFinished || run.services.isEmpty()) return null;
+        for (Service service : run.services.values()) {
+            if (!service.isReady()) return null;
+        }
+        return finish(run, Outcome.READY, "");
+    }
+
+    private Trace finish(Run run, Outcome outcome, String detail) {
+        List<Span> spans = new ArrayList<>(run.phases);
+        long last = spans.stream().mapToLong(Span::end).max().orElse(0L);
+        for (Map.Entry<String, Service> entry : run.services.entrySet()) {
+            Service service = entry.getValue();
+            String row = entry.getKey() + (service.restarts > 0 ? " (" + service.restarts + " restarts)" : "");
+            if (service.created > 0 && service.started >= service.created) {
+                spans.add(new Span(row, "start", service.created - run.startedAt, service.started - run.startedAt));
+            }
+            if (service.isReady() && service.readyAt() > service.started) {
+                spans.add(new Span(row, service.isCompleted() ? "run" : "health",
+                        service.started - run.startedAt, service.readyAt() - run.startedAt));
+                last = Math.max(last, service.readyAt() - run.startedAt);
+            } else if (!service.isReady() && service.started > 0) {
+                long now = System.currentTimeMillis() - run.startedAt;
+                long end = service.crashed ? service.exited - run.startedAt : now;
+                spans.add(new Span(row, service.crashed ? "crashed" : service.unhealthy ? "unhealthy" : "waiting",
+                        service.started - run.startedAt, end));
+                last = Math.max(last, end);
+            }
+        }
+        run.trace = new Trace(run.project, run.composition, run.version, run.startedAt, outcome, last, detail, List.copyOf(spans));
+        active.remove(run.project, run);
+        return run.trace;
+    }
+
+    private void completed(Trace trace) {
+        if (trace == null) return;
+        synchronized (this) {
+            List<Trace> traces = loadedHistory();
+            traces.add(trace);
+            if (traces.size() > historySize) traces.subList(0, traces.size() - historySize).clear();
+            persist(trace);
+        }
+        listener.accept(trace);
+    }
+
+    private List<Trace> loadedHistory() {
+        if (history != null) return history;
+        history = new ArrayList<>(historySize);
+        if (historyFile != null && Files.isRegularFile(historyFile)) {
+            try {
+                List<String> lines = Files.readAllLines(historyFile, StandardCharsets.UTF_8);
+                fileLines = lines.size();
+                for (String line : lines) {
+                    try {
+                        if (!line.isBlank()) history.add(mapper.readValue(line, Trace.class));
+                    } catch (IOException e) {
+                        // a line from an older format or a torn write; the next compaction drops it
+                    }
+                }
+            } catch (IOException e) {
+                // unreadable history starts over
+            }
+            if (history.size() > historySize) history.subList(0, history.size() - historySize).clear();
+        }
+        return history;
+    }
+
+    /** Appends the trace; rewrites the file once it holds twice the kept history. */
+    private void persist(Trace trace) {
+        if (historyFile == null) return;
+        try {
+            Files.createDirectories(historyFile.getParent());
+            if (++fileLines > 2 * historySize) {
+                Path tmp = Files.createTempFile(historyFile.getParent(), historyFile.getFileName().toString(), ".tmp");
+                try {
+                    try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                        for (Trace kept : history) {
+                            out.write(mapper.writeValueAsString(kept));
+                            out.newLine();
+                        }
+                    }
+                    Files.move(tmp, historyFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(tmp);
+                }
+                fileLines = history.size();
+            } else {
+                Files.writeString(historyFile, mapper.writeValueAsString(trace) + System.lineSeparator(), StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+        } catch (IOException e) {
+            // the trace is still shown; only its persistence is lost
+        }
+    }
+
+    @Override
+    public final String toString() {
+        synchronized (this) {
+            return "StartupTracer{active=" + active.keySet() + ", historyFile=" + historyFile + "}";
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package container.kitty;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Keeps a single long-lived {@code docker stats} stream open for the tracked containers and
+ * records the latest sample per container. Lines are parsed in place from a reused byte buffer,
+ * so a steady stream allocates nothing per sample; the UI picks up changed samples at its own pace
+ * with {@link #drainUpdates(Consumer)}. The stream is restarted only when the tracked set changes.
+ */
+@SuppressWarnings({
+        "ClassWithoutLogger",
+        "UseOfProcessBuilder",
+        "MagicNumber"
+})
+public class StatsCollector {
+
+    private static final String FORMAT = "{{.ID}}\t{{.CPUPerc}}\t{{.MemUsage}}\t{{.NetIO}}";
+    private static final long MAX_BACKOFF_MILLIS = 30_000L;
+
+    /** Latest resource usage of one container; written by the stream reader, read by the UI. */
+    public static final class Sample {
+        private final String containerId;
+        private final byte[] idBytes;
+        private volatile double cpuPercent = Double.NaN;
+        private volatile long memUsedBytes = -1L;
+        private volatile long memLimitBytes = -1L;
+        private volatile long netRxBytes = -1L;
+        private volatile long netTxBytes = -1L;
+        private volatile long sampledAtMillis;
+        private volatile boolean dirty;
+
+        Sample(String containerId) {
+            this.containerId = containerId;
+            this.idBytes = containerId.getBytes(StandardCharsets.US_ASCII);
+        }
+
+        public String getContainerId() { return containerId; }
+        public double getCpuPercent() { return cpuPercent; }
+        public long getMemUsedBytes() { return memUsedBytes; }
+        public long getMemLimitBytes() { return memLimitBytes; }
+        public long getNetRxBytes() { return netRxBytes; }
+        public long getNetTxBytes() { return netTxBytes; }
+        public long getSampledAtMillis() { return sampledAtMillis; }
+
+        @Override
+        public String toString() {
+            return "Sample{containerId=" + containerId + ", cpu=" + cpuPercent + "%, mem=" + memUsedBytes
+                    + "/" + memLimitBytes + ", net=" + netRxBytes + "/" + netTxBytes + "}";
+        }
+    }
+
+    private final String dockerCommand;
+    private final Consumer<String> log;
+    private final Map<String, Sample> samples = new ConcurrentHashMap<>(16);
+
+    private volatile Sample[] tracked = new Sample[0];
+    private volatile boolean pending;
+    private Process process;
+    private Thread reader;
+    private int generation;
+    private boolean stopped;
+
+    public StatsCollector(String dockerCommand, Consumer<String> log) {
+        this.dockerCommand = dockerCommand;
+        this.log = log;
+    }
+
+    /**
+     * Sets the containers to collect statistics for. Restarts the stream only if the set changed;
+     * an empty set closes it.
+     */
+    public synchronized void track(Collection<String> containerIds) {
+        if (stopped) return;
+        Set<String> wanted = new LinkedHashSet<>(containerIds);
+        if (wanted.equals(samples.keySet())) return;
+
+        samples.keySet().retainAll(wanted);
+        for (String id : wanted) {
+            samples.computeIfAbsent(id, Sample::new);
+        }
+        tracked = samples.values().toArray(new Sample[0]);
+        restart();
+    }
+
+    /** Returns the latest sample for a container, or null if it is not tracked. */
+    public Sample get(String containerId) {
+        return samples.get(containerId);
+    }
+
+    /** True if any sample changed since the last {@link #drainUpdates(Consumer)}. */
+    public boolean hasUpdates() {
+        return pending;
+    }
+
+    /** Hands every sample that changed since the previous call to {@code consumer}. */
+    public void drainUpdates(Consumer<Sample> consumer) {
+        if (!pending) return;
+        pending = false;
+        for (Sample sample : tracked) {
+            if (sample.dirty) {
+                sample.dirty = false;
+                consumer.accept(sample);
+            }
+        }
+    }
+
+    private void restart() {
+        int current = ++generation;
+        destroyProcess();
+        if (tracked.length == 0) return;
+
+        List<String> command = new ArrayList<>(tracked.length + 5);
+        Collections.addAll(command, dockerCommand, "stats", "--no-trunc", "--format", FORMAT);
+        for (Sample sample : tracked) {
+            command.add(sample.containerId);
+        }
+        reader = new Thread(() -> stream(current, command), "container-kitty-stats");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    private void stream(int myGeneration, List<String> command) {
+        long backoff = 500L;
+        while (isCurrent(myGeneration)) {
+            try {
+                InputStream in = startProcess(myGeneration, command);
+                if (in == null) return;
+                log.accept("docker stats streaming " + (command.size() - 5) + " container(s)");
+                try (in) {
+                    readSamples(in);
+                }
+            } catch (IOException e) {
+                if (isCurrent(myGeneration)) {
+                    log.accept("docker stats stream interrupted: " + e.getMessage());
+                }
+            }
+
+            if (!isCurrent(myGeneration)) return;
+            try {
+                TimeUnit.MILLISECONDS.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+        }
+    }
+
+    private synchronized InputStream startProcess(int myGeneration, List<String> command) throws IOException {
+        if (generation != myGeneration || stopped) return null;
+        ProcessBuilder pb = new ProcessBuilder(command);
+        pb.redirectError(ProcessBuilder.Redirect.DISCARD);
+        process = pb.start();
+        MetricsRegistry.get().counter(MetricsRegistry.PROCESS_SPAWNS).increment();
+        return process.getInputStream();
+    }
+
+    private synchronized boolean isCurrent(int myGeneration) {
+        return generation == myGeneration && !stopped;
+    }
+
+    /** Reads LF-terminated lines into a reused buffer and parses each one in place. */
+    private void readSamples(InputStream in) throws IOException {
+        byte[] buf = new byte[8192];
+        int len = 0;
+        int n;
+        //noinspection NestedAssignment
+        while ((n = in.read(buf, len, buf.length - len)) != -1) {
+            len += n;
+            int start = 0;
+            int newline;
+            //noinspection NestedAssignment
+            while ((newline = StatsParser.indexOf(buf, start, len, (byte) '\n')) < len) {
+                parseLine(buf, start, newline);
+                start = newline + 1;
+            }
+            System.arraycopy(buf, start, buf, 0, len - start);
+            len -= start;
+            if (len == buf.length) {
+                len = 0; // a line longer than the buffer is not a stats line
+            }
+        }
+    }
+
+    /** Parses "id\tcpu%\tused / limit\trx / tx" and updates the matching sample. */
+    void parseLine(byte[] buf, int from, int to) {
+        int start = StatsParser.skipEscapes(buf, from, to);
+        int end = to;
+        if (end > start && buf[end - 1] == '\r') end--;
+
+        int idEnd = StatsParser.indexOf(buf, start, end, (byte) '\t');
+        Sample sample = find(buf, start, idEnd);
+        if (sample == null || idEnd == end) return;
+
+        int cpuEnd = StatsParser.indexOf(buf, idEnd + 1, end, (byte) '\t');
+        int memEnd = StatsParser.indexOf(buf, cpuEnd + 1, end, (byte) '\t');
+        int memSlash = StatsParser.indexOf(buf, cpuEnd + 1, memEnd, (byte) '/');
+        int netSlash = StatsParser.indexOf(buf, memEnd + 1, end, (byte) '/');
+
+        sample.cpuPercent = StatsParser.parsePercent(buf, idEnd + 1, cpuEnd);
+        sample.memUsedBytes = StatsParser.parseSize(buf, cpuEnd + 1, memSlash);
+        sample.memLimitBytes = memSlash < memEnd ? StatsParser.parseSize(buf, memSlash + 1, memEnd) : -1L;
+        if (memEnd < end) {
+            sample.netRxBytes = StatsParser.parseSize(buf, memEnd + 1, netSlash);
+            sample.netTxBytes = netSlash < end ? StatsParser.parseSize(buf, netSlash + 1, end) : -1L;
+        }
+        sample.sampledAtMillis = System.currentTimeMillis();
+        sample.dirty = true;
+        pending = true;
+    }
+
+    private Sample find(byte[] buf, int from, int to) {
+        for (Sample sample : tracked) {
+            if (Arrays.equals(sample.idBytes, 0, sample.idBytes.length, buf, from, to)) {
+                return sample;
+            }
+        }
+        return null;
+    }
+
+    private void destroyProcess() {
+        if (process != null) {
+            CommandHandle.destroyTree(process);
+            process = null;
+        }
+        if (reader != null) {
+            reader.interrupt();
+            reader = null;
+        }
+    }
+
+    public synchronized void stop() {
+        stopped = true;
+        generation++;
+        destroyProcess();
+    }
+
+    @Override
+    public final String toString() {
+        return "StatsCollector{tracked=" + samples.keySet() + "}";
+    }
+}
@@ -0,0 +1,115 @@
+package container.kitty;
+
+/**
+ * Allocation-free parsing of {@code docker stats} fields straight from a byte buffer.
+ * Handles the unit styles docker prints: binary sizes for memory ("12.5MiB / 1.9GiB"),
+ * decimal sizes for I/O ("1.2kB / 648B") and percentages ("3.07%").
+ */
+@SuppressWarnings({
+        "ClassWithoutLogger",
+        "MagicNumber"
+})
+public final class StatsParser {
+
+    private static final byte ESC = 0x1b;
+
+    private StatsParser() { }
+
+    /**
+     * Skips ANSI escape sequences (docker stats clears the screen before each frame) starting at {@code from}.
+     *
+     * @return the index of the first byte that is not part of an escape sequence
+     */
+    public static int skipEscapes(byte[] buf, int from, int to) {
+        int i = from;
+        while (i < to && buf[i] == ESC) {
+            i++;
+            if (i < to && buf[i] == '[') {
+                i++;
+                // parameter and intermediate bytes, then one final byte in 0x40..0x7E
+                while (i < to && (buf[i] < 0x40 || buf[i] > 0x7E)) i++;
+                if (i < to) i++;
+            }
+        }
+        return i;
+    }
+
+    /** Returns the index of the next {@code sep} at or after {@code from}, or {@code to} if there is none. */
+    public static int indexOf(byte[] buf, int from, int to, byte sep) {
+        for (int i = from; i < to; i++) {
+            if (buf[i] == sep) return i;
+        }
+        return to;
+    }
+
+    /** Parses "12.34%" (the % is optional); returns NaN for "--" or anything unparseable. */
+    public static double parsePercent(byte[] buf, int from, int to) {
+        int end = to;
+        while (end > from && (buf[end - 1] == '%' || buf[end - 1] == ' ')) end--;
+        return parseDecimal(buf, skipSpaces(buf, from, end), end);
+    }
+
+    /** Parses a docker size such as "1.944GiB", "648B" or "12.3kB" into bytes; returns -1 if unparseable. */
+    public static long parseSize(byte[] buf, int from, int to) {
+        int start = skipSpaces(buf, from, to);
+        int end = to;
+        while (end > start && buf[end - 1] == ' ') end--;
+
+        int unitStart = start;
+        while (unitStart < end && (isDigit(buf[unitStart]) || buf[unitStart] == '.')) unitStart++;
+        double value = parseDecimal(buf, start, unitStart);
+        if (Double.isNaN(value)) return -1L;
+
+        int unitLen = end - unitStart;
+        long multiplier;
+        if (unitLen == 0 || (unitLen == 1 && buf[unitStart] == 'B')) {
+            multiplier = 1L;
+        } else {
+            boolean binary = unitLen == 3 && buf[unitStart + 1] == 'i';
+            long base = binary ? 1024L : 1000L;
+            multiplier = switch (Character.toLowerCase((char) buf[unitStart])) {
+                case 'k' -> base;
+                case 'm' -> base * base;
+                case 'g' -> base * base * base;
+                case 't' -> base * base * base * base;
+                default -> -1L;
+            };
+            if (multiplier < 0) return -1L;
+        }
+        return (long) (value * multiplier);
+    }
+
+    /** Parses an unsigned decimal like "3.07"; returns NaN if the range holds no digits. */
+    public static double parseDecimal(byte[] buf, int from, int to) {
+        long mantissa = 0;
+        int fractionDigits = 0;
+        boolean seenDot = false;
+        boolean seenDigit = false;
+        for (int i = from; i < to; i++) {
+            byte b = buf[i];
+            if (isDigit(b)) {
+                seenDigit = true;
+                mantissa = mantissa * 10 + (b - '0');
+                if (seenDot) fractionDigits++;
+            } else if (b == '.' && !seenDot) {
+                seenDot = true;
+            } else {
+                return Double.NaN;
+            }
+        }
+        if (!seenDigit) return Double.NaN;
+        double value = mantissa;
+        while (fractionDigits-- > 0) value /= 10.0;
+        return value;
+    }
+
+    private static int skipSpaces(byte[] buf, int from, int to) {
+        int i = from;
+        while (i < to && buf[i] == ' ') i++;
+        return i;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+}
@@ -0,0 +1,92 @@
+package container.kitty;
+
+import java.util.Arrays;
+
+/**
+ * Bounded intern pool that looks strings up straight from a character buffer, so a value seen
+ * before (an image name, a project label, a container ID from the previous poll) costs no
+ * allocation at all. When the pool fills up it starts over; it is a cache, not a registry.
+ * Not thread-safe.
+ */
+@SuppressWarnings("ClassWithoutLogger")
+public final class StringInterner {
+
+    private final String[] table;
+    private final int maxSize;
+    private int size;
+
+    public StringInterner(int maxSize) {
+        this.maxSize = maxSize;
+        this.table = new String[Integer.highestOneBit(Math.max(maxSize, 8) * 2 - 1) << 1];
+    }
+
+    /** Returns a pooled string equal to {@code chars[offset, offset + length)}. */
+    public String intern(char[] chars, int offset, int length) {
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        int mask = table.length - 1;
+        int slot = spread(hash) & mask;
+        for (String candidate = table[slot]; candidate != null; candidate = table[slot]) {
+            if (candidate.hashCode() == hash && matches(candidate, chars, offset, length)) {
+                return candidate;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (size >= maxSize) {
+            Arrays.fill(table, null);
+            size = 0;
+            slot = spread(hash) & mask;
+        }
+        String value = new String(chars, offset, length);
+        table[slot] = value;
+        size++;
+        return value;
+    }
+
+    /** Returns a pooled string equal to {@code value}, pooling {@code value} itself if there is none. */
+    public String intern(String value) {
+        if (value == null) return null;
+        int hash = value.hashCode(); // the same polynomial as above, cached in the string
+        int mask = table.length - 1;
+        int slot = spread(hash) & mask;
+        for (String candidate = table[slot]; candidate != null; candidate = table[slot]) {
+            if (candidate.hashCode() == hash && candidate.equals(value)) {
+                return candidate;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (size >= maxSize) {
+            Arrays.fill(table, null);
+            size = 0;
+            slot = spread(hash) & mask;
+        }
+        table[slot] = value;
+        size++;
+        return value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static boolean matches(String candidate, char[] chars, int offset, int length) {
+        if (candidate.length() != length) return false;
+        for (int i = 0; i < length; i++) {
+            if (candidate.charAt(i) != chars[offset + i]) return false;
+        }
+        return true;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    @Override
+    public String toString() {
+        return "StringInterner{size=" + size + ", maxSize=" + maxSize + "}";
+    }
+}
@@ -0,0 +1,251 @@
+package container.kitty;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+/**
+ * Stops compose projects concurrently, at most {@code maxParallel} at a time, escalating per
+ * project from {@code docker compose down} to {@code docker kill} to {@code docker rm -f} when a
+ * step fails, times out or leaves containers behind. Each step is a separate command on the
+ * project's mutation lane with its own deadline, so a hung {@code down} is killed and the next
+ * step takes over; a project's total deadline is the sum of its step deadlines.
+ * <p>
+ * A project only counts as stopped once listing its containers (running or not) comes back empty,
+ * so the future returned by {@link #teardown(Collection)} completes when the last container is
+ * really gone. Requests for a project that is already being torn down join the running teardown.
+ * Thread-safe.
+ */
+@SuppressWarnings({
+        "ClassWithoutLogger",
+        "MagicNumber"
+})
+public class TeardownEngine {
+
+    static final int MAX_PARALLEL = Integer.getInteger("container.kitty.teardownParallelism", 4);
+
+    /** Escalation steps, in order. */
+    public enum Step {
+        DOWN("down", Long.getLong("container.kitty.teardownDownSeconds", 60L)),
+        KILL("kill", Long.getLong("container.kitty.teardownKillSeconds", 15L)),
+        REMOVE("rm -f", Long.getLong("container.kitty.teardownRemoveSeconds", 30L));
+
+        private final String label;
+        private final Duration timeout;
+
+        Step(String label, long timeoutSeconds) {
+            this.label = label;
+            this.timeout = Duration.ofSeconds(timeoutSeconds);
+        }
+
+        public String label() {
+            return label;
+        }
+
+        public Duration timeout() {
+            return timeout;
+        }
+
+        Step next() {
+            return ordinal() + 1 < values().length ? values()[ordinal() + 1] : null;
+        }
+    }
+
+    public enum Status { QUEUED, RUNNING, DONE, FAILED, CANCELLED }
+
+    /** Where one project's teardown stands. */
+    public record Progress(String project, Step step, Status status, int remainingContainers, Duration elapsed,
+                           String detail) {
+        public boolean isFinished() {
+            return status == Status.DONE || status == Status.FAILED || status == Status.CANCELLED;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(96).append(project).append(": ");
+            switch (status) {
+                case QUEUED -> sb.append("queued");
+                case RUNNING -> sb.append(step.label()).append(" ...");
+                case DONE -> sb.append("stopped");
+                case FAILED -> sb.append("FAILED after ").append(step.label());
+                case CANCELLED -> sb.append("cancelled during ").append(step.label());
+            }
+            if (remainingContainers > 0) sb.append(", ").append(remainingContainers).append(" container(s) left");
+            if (status != Status.QUEUED) sb.append(" (").append(elapsed.toSeconds()).append(" s)");
+            if (!detail.isEmpty()) sb.append(" - ").append(detail);
+            return sb.toString();
+        }
+    }
+
+    /** The docker side of a teardown; called on lane threads. */
+    public interface Docker {
+        /**
+         * Runs one step: {@code compose down} for the project, or kill/remove of the given containers.
+         *
+         * @return the exit code
+         */
+        int run(String project, Step step, List<String> containerIds) throws IOException;
+
+        /** IDs of all the project's containers, running or stopped. */
+        List<String> containers(String project) throws IOException;
+    }
+
+    /** Submits a step to the project's mutation lane with a deadline. */
+    public interface Submitter {
+        CommandHandle submit(String project, String description, Duration timeout, Runnable task);
+    }
+
+    private final class ProjectTeardown {
+        final String project;
+        final CompletableFuture<Progress> done = new CompletableFuture<>();
+        volatile Step step = Step.DOWN;
+        volatile Status status = Status.QUEUED;
+        volatile int remaining = -1;
+        volatile String detail = "";
+        volatile long startedNanos;
+
+        ProjectTeardown(String project) {
+            this.project = project;
+        }
+
+        Progress progress() {
+            long elapsed = startedNanos == 0 ? 0 : System.nanoTime() - startedNanos;
+            return new Progress(project, step, status, Math.max(remaining, 0), Duration.ofNanos(elapsed), detail);
+        }
+    }
+
+    private final Docker docker;
+    private final Submitter submitter;
+    private final int maxParallel;
+    private final Consumer<Progress> listener;
+
+    private final Map<String, ProjectTeardown> inProgress = new HashMap<>(16); // guarded by this
+    private final Deque<ProjectTeardown> pending = new ArrayDeque<>(16); // guarded by this
+    private int active; // guarded by this
+
+    /**
+     * @param listener called on every state change, on whichever thread caused it
+     */
+    public TeardownEngine(Docker docker, Submitter submitter, int maxParallel, Consumer<Progress> listener) {
+        this.docker = docker;
+        this.submitter = submitter;
+        this.maxParallel = Math.max(1, maxParallel);
+        this.listener = listener;
+    }
+
+    /** Tears the projects down; completes with one final progress entry per project once all are finished. */
+    public CompletableFuture<List<Progress>> teardown(Collection<String> projects) {
+        List<CompletableFuture<Progress>> futures = new ArrayList<>(projects.size());
+        List<ProjectTeardown> queued = new ArrayList<>(projects.size());
+        synchronized (this) {
+            for (String project : projects) {
+                ProjectTeardown teardown = inProgress.get(project);
+                if (teardown == null) {
+                    teardown = new ProjectTeardown(project);
+                    inProgress.put(project, teardown);
+                    pending.add(teardown);
+                    queued.add(teardown);
+                }
+                futures.add(teardown.done);
+            }
+        }
+        queued.forEach(this::publish);
+        launchPending();
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                .thenApply(v -> futures.stream().map(CompletableFuture::join).toList());
+    }
+
+    /** Projects currently queued or being torn down. */
+    public synchronized Set<String> projects() {
+        return Set.copyOf(inProgress.keySet());
+    }
+
+    private void launchPending() {
+        List<ProjectTeardown> launch = new ArrayList<>(maxParallel);
+        synchronized (this) {
+            while (active < maxParallel && !pending.isEmpty()) {
+                active++;
+                launch.add(pending.poll());
+            }
+        }
+        for (ProjectTeardown teardown : launch) {
+            teardown.startedNanos = System.nanoTime();
+            runStep(teardown, Step.DOWN);
+        }
+    }
+
+    private void runStep(ProjectTeardown teardown, Step step) {
+        teardown.step = step;
+        teardown.status = Status.RUNNING;
+        teardown.remaining = -1; // unknown until the step has listed what is left
+        publish(teardown);
+
+        CommandHandle handle = submitter.submit(teardown.project, step.label() + " " + teardown.project, step.timeout(), () -> {
+            try {
+                // down addresses the project by name; kill and rm -f need the containers that are left
+                List<String> ids = step == Step.DOWN ? List.of() : docker.containers(teardown.project);
+                if (step == Step.DOWN || !ids.isEmpty()) {
+                    int exitCode = docker.run(teardown.project, step, ids);
+                    if (exitCode != 0) teardown.detail = step.label() + " exited with code " + exitCode;
+                }
+                teardown.remaining = docker.containers(teardown.project).size();
+            } catch (IOException e) {
+                teardown.detail = step.label() + " failed: " + e.getMessage(); // escalates, remaining is unknown
+            }
+        });
+        handle.completion().whenComplete((r, e) -> afterStep(teardown, step, handle, e));
+    }
+
+    private void afterStep(ProjectTeardown teardown, Step step, CommandHandle handle, Throwable error) {
+        if (handle.getState() == CommandHandle.State.CANCELLED) {
+            finish(teardown, Status.CANCELLED, "cancelled by user");
+            return;
+        }
+        if (error == null && teardown.remaining == 0) {
+            finish(teardown, Status.DONE, "");
+            return;
+        }
+        String reason = error != null ? describe(error)
+                : teardown.remaining < 0 ? teardown.detail
+                : teardown.remaining + " container(s) left";
+        Step next = step.next();
+        if (next == null) {
+            finish(teardown, Status.FAILED, teardown.remaining > 0 ? "" : reason); // the count is shown anyway
+            return;
+        }
+        teardown.detail = step.label() + ": " + reason + "; escalating to " + next.label();
+        runStep(teardown, next);
+    }
+
+    private void finish(ProjectTeardown teardown, Status status, String detail) {
+        teardown.status = status;
+        teardown.detail = detail;
+        synchronized (this) {
+            inProgress.remove(teardown.project, teardown);
+            active--;
+        }
+        Progress progress = teardown.progress();
+        listener.accept(progress);
+        teardown.done.complete(progress);
+        launchPending();
+    }
+
+    private void publish(ProjectTeardown teardown) {
+        listener.accept(teardown.progress());
+    }
+
+    private static String describe(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+    }
+
+    @Override
+    public final String toString() {
+        synchronized (this) {
+            return "TeardownEngine{active=" + active + ", pending=" + pending.size() + ", maxParallel=" + maxParallel + "}";
+        }
+    }
+}
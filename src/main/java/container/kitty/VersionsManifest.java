@@ -2,20 +2,11 @@ package container.kitty;
 
 import java.util.List;
 
-public class VersionsManifest {
-    public final List<Composition> compositions;
-    public final List<Version> versions;
+/** The compositions and versions of one manifest revision; both lists are immutable. */
+public record VersionsManifest(List<Composition> compositions, List<Version> versions) {
 
-    public VersionsManifest(List<Composition> compositions, List<Version> versions) {
-        this.compositions = compositions;
-        this.versions = versions;
-    }
-
-    @Override
-    public String toString() {
-        return "VersionsManifest{" +
-                "compositions=" + compositions +
-                ", versions=" + versions +
-                '}';
+    public VersionsManifest {
+        compositions = List.copyOf(compositions);
+        versions = List.copyOf(versions);
     }
 }
@@ -0,0 +1,85 @@
+package container.kitty;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Reads versions.json with Jackson's streaming parser straight into the {@link VersionsManifest}
+ * records, from the raw bytes and without data-binding POJOs in between. The factory is shared by
+ * all parses; each entry costs its record and its two strings. Unknown fields are skipped.
+ */
+@SuppressWarnings("ClassWithoutLogger")
+public final class VersionsManifestParser {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private VersionsManifestParser() { }
+
+    /** @throws IOException if the JSON is malformed or not shaped like versions.json */
+    public static VersionsManifest parse(byte[] json) throws IOException {
+        List<Composition> compositions = List.of();
+        List<Version> versions = List.of();
+        try (JsonParser parser = JSON.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("versions.json is not a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "compositions" -> compositions = readEntries(parser, field, "name", Composition::new);
+                    case "versions" -> versions = readEntries(parser, field, "ident", Version::new);
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        return new VersionsManifest(compositions, versions);
+    }
+
+    /** Reads an array of objects with a key field and a comment; other fields are skipped. */
+    private static <T> List<T> readEntries(JsonParser parser, String field, String keyField,
+                                           BiFunction<String, String, T> factory) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) return List.of();
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw new IOException("\"" + field + "\" in versions.json is not an array");
+        }
+        List<T> entries = new ArrayList<>(64);
+        JsonToken token;
+        //noinspection NestedAssignment
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_OBJECT) {
+                throw new IOException("\"" + field + "\" in versions.json holds " + token + " instead of objects");
+            }
+            String key = null;
+            String comment = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                // field names are canonicalized by Jackson, so these comparisons allocate nothing
+                String name = parser.currentName();
+                parser.nextToken();
+                if (name.equals(keyField)) {
+                    key = text(parser);
+                } else if ("comment".equals(name)) {
+                    comment = text(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            entries.add(factory.apply(key, comment));
+        }
+        return entries;
+    }
+
+    /** Numbers and booleans keep their JSON text, as data binding did. */
+    private static String text(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token.isScalarValue() && token != JsonToken.VALUE_NULL) return parser.getText();
+        parser.skipChildren();
+        return null;
+    }
+}
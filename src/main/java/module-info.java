@@ -3,7 +3,9 @@ module container.kitty {
     requires javafx.fxml;
 
     requires org.controlsfx.controls;
+    requires com.fasterxml.jackson.core;
     requires com.fasterxml.jackson.databind;
+    requires java.net.http;
 
     opens container.kitty to javafx.fxml;
     exports container.kitty;
@@ -0,0 +1,56 @@
+package container.kitty;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptivePollPolicyTest {
+
+    @Test
+    void pollStateIgnoresRelativeUptime() {
+        assertEquals(AdaptivePollPolicy.pollState(List.of(container("a", "Up 3 seconds"), container("b", "Up 2 minutes (healthy)"))),
+                AdaptivePollPolicy.pollState(List.of(container("a", "Up 4 seconds"), container("b", "Up 3 minutes (healthy)"))));
+    }
+
+    @Test
+    void pollStateSeesHealthRunningStateAndMembership() {
+        var starting = AdaptivePollPolicy.pollState(List.of(container("a", "Up 3 seconds (health: starting)")));
+
+        assertNotEquals(starting, AdaptivePollPolicy.pollState(List.of(container("a", "Up 9 seconds (healthy)"))));
+        assertNotEquals(starting, AdaptivePollPolicy.pollState(List.of(container("a", "Restarting (1) 2 seconds ago"))));
+        assertNotEquals(starting, AdaptivePollPolicy.pollState(List.of(container("b", "Up 3 seconds (health: starting)"))));
+        assertNotEquals(starting, AdaptivePollPolicy.pollState(List.of(container("a", "Up 3 seconds (health: starting)"),
+                container("b", "Up 1 second"))));
+        assertEquals("Up (Paused)", AdaptivePollPolicy.pollState(List.of(container("a", "Up 5 minutes (Paused)"))).get("a"));
+    }
+
+    @Test
+    void backsOffWhileUnchangedAndResetsOnChange() {
+        AdaptivePollPolicy policy = new AdaptivePollPolicy(500, 5000, 60_000);
+
+        assertEquals(10_000, policy.onPollResult(false, false, 0));
+        assertEquals(20_000, policy.onPollResult(false, false, 10_000));
+        assertEquals(40_000, policy.onPollResult(false, false, 30_000));
+        assertEquals(60_000, policy.onPollResult(false, false, 70_000));
+        assertEquals(5000, policy.onPollResult(true, false, 130_000));
+    }
+
+    @Test
+    void pollsFastAfterTransitionUntilSettled() {
+        AdaptivePollPolicy policy = new AdaptivePollPolicy(500, 5000, 60_000);
+
+        assertEquals(500, policy.onTransition(0));
+        assertEquals(500, policy.onPollResult(true, true, 500));
+        for (int i = 1; i < AdaptivePollPolicy.SETTLE_POLLS; i++) {
+            assertEquals(500, policy.onPollResult(false, false, 500L + i * 500L));
+        }
+        assertEquals(5000, policy.onPollResult(false, false, 10_000));
+        assertFalse(policy.isFast(10_000));
+    }
+
+    private static ContainerState container(String id, String status) {
+        return new ContainerState(id, id, "img", status, "p", id);
+    }
+}
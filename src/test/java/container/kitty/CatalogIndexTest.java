@@ -0,0 +1,80 @@
+package container.kitty;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogIndexTest {
+
+    private final CatalogIndex index = new CatalogIndex(
+            List.of(new Composition("backend-dev", "Postgres and Redis"),
+                    new Composition("frontend-dev", "Nginx in front of the API"),
+                    new Composition("monitoring", null)),
+            List.of(new Version("1.7.0", "First release with SSO"),
+                    new Version("1.7.1", "Hotfix for login"),
+                    new Version("1.8.0", ""),
+                    new Version("11.7.0", "Backend rewrite")));
+
+    @Test
+    void blankQueryMatchesEveryPair() {
+        Map<String, List<String>> all = Map.of(
+                "backend-dev", List.of("1.7.0", "1.7.1", "1.8.0", "11.7.0"),
+                "frontend-dev", List.of("1.7.0", "1.7.1", "1.8.0", "11.7.0"),
+                "monitoring", List.of("1.7.0", "1.7.1", "1.8.0", "11.7.0"));
+        assertEquals(all, search(""));
+        assertEquals(all, search("   "));
+        assertEquals(all, search(null));
+    }
+
+    @Test
+    void wholeValuePrefixFindsVersions() {
+        assertEquals(List.of("1.7.0", "1.7.1"), search("1.7").get("monitoring"));
+        assertEquals(List.of("1.7.1"), search("1.7.1").get("backend-dev"));
+        assertEquals(List.of("1.8.0"), search("1.8").get("frontend-dev"));
+    }
+
+    @Test
+    void commentTokensAreSearchable() {
+        assertEquals(List.of("backend-dev"), List.copyOf(search("redis").keySet()));
+        assertEquals(List.of("frontend-dev"), List.copyOf(search("API").keySet()));
+        assertEquals(List.of("1.7.1"), search("hotfix").get("monitoring"));
+        assertEquals(List.of("1.7.0"), search("sso").get("backend-dev"));
+    }
+
+    @Test
+    void termsSplitAcrossCompositionAndVersion() {
+        assertEquals(Map.of("backend-dev", List.of("1.7.0", "1.7.1")), search("postgres 1.7"));
+        assertEquals(Map.of("frontend-dev", List.of("1.7.1")), search("nginx hot"));
+        // both terms on the version: every composition qualifies through that one version
+        assertEquals(List.of("1.7.1"), search("hotfix login").get("frontend-dev"));
+    }
+
+    @Test
+    void termMatchedByCompositionKeepsAllItsVersions() {
+        // "backend" names one composition and comments one version
+        Map<String, List<String>> result = search("backend");
+        assertEquals(List.of("1.7.0", "1.7.1", "1.8.0", "11.7.0"), result.get("backend-dev"));
+        assertEquals(List.of("11.7.0"), result.get("frontend-dev"));
+        assertEquals(List.of("11.7.0"), result.get("monitoring"));
+    }
+
+    @Test
+    void unmatchedTermMatchesNothing() {
+        assertEquals(Map.of(), search("kafka"));
+        assertEquals(Map.of(), search("postgres 2.0"));
+    }
+
+    /** Matching versions by composition name, in manifest order. */
+    private Map<String, List<String>> search(String query) {
+        Map<String, List<String>> result = new LinkedHashMap<>();
+        for (CatalogIndex.Match match : index.search(query)) {
+            result.put(match.composition().name(),
+                    match.versions().stream().mapToObj(v -> index.version(v).ident()).toList());
+        }
+        return result;
+    }
+}
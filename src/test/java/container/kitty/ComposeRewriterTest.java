@@ -0,0 +1,117 @@
+package container.kitty;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ComposeRewriterTest {
+
+    private static final String COMPOSE = """
+            services:
+              db:
+                image: postgres:16
+                container_name: backend-db
+                ports:
+                  - "5432:5432"
+                  - 127.0.0.1:6543:6543/tcp # pgbouncer
+                  - '9000-9002:9000-9002'
+                  - "${DB_PORT:-5433}:5432"
+                  - "8125/udp"
+              api:
+                image: example/api:${IMAGE_TAG}
+                container_name: "backend-api" # fixed name
+                ports:
+                  - target: 80
+                    published: "8080"
+                    protocol: tcp
+                  - target: 81
+                    host_ip: 127.0.0.1
+                    published: 8081-8082
+                environment:
+                  PORT: 8080
+            """;
+
+    @Test
+    void collectsEveryPublishedHostPort() throws IOException {
+        assertEquals(Set.of(5432, 6543, 9000, 9001, 9002, 8080, 8081, 8082), ComposeRewriter.hostPorts(COMPOSE));
+    }
+
+    @Test
+    void shiftsShortSyntaxPorts() throws IOException {
+        String shifted = ComposeRewriter.offset(COMPOSE, 100, "p2");
+
+        assertTrue(shifted.contains("      - \"5532:5432\"\n"), shifted);
+        assertTrue(shifted.contains("      - 127.0.0.1:6643:6543/tcp # pgbouncer\n"), shifted);
+        assertTrue(shifted.contains("      - '9100-9102:9000-9002'\n"), shifted);
+    }
+
+    @Test
+    void leavesInterpolatedAndContainerOnlyPortsAlone() throws IOException {
+        String shifted = ComposeRewriter.offset(COMPOSE, 100, "p2");
+
+        assertTrue(shifted.contains("      - \"${DB_PORT:-5433}:5432\"\n"), shifted);
+        assertTrue(shifted.contains("      - \"8125/udp\"\n"), shifted);
+        assertTrue(shifted.contains("      PORT: 8080\n"), shifted);
+        assertTrue(shifted.contains("image: example/api:${IMAGE_TAG}\n"), shifted);
+    }
+
+    @Test
+    void shiftsLongSyntaxPublishedPorts() throws IOException {
+        String shifted = ComposeRewriter.offset(COMPOSE, 100, "p2");
+
+        assertTrue(shifted.contains("        published: \"8180\"\n"), shifted);
+        assertTrue(shifted.contains("        published: 8181-8182\n"), shifted);
+        assertTrue(shifted.contains("      - target: 80\n"), shifted);
+    }
+
+    @Test
+    void suffixesContainerNames() throws IOException {
+        String shifted = ComposeRewriter.offset(COMPOSE, 100, "p2");
+
+        assertTrue(shifted.contains("    container_name: backend-db-p2\n"), shifted);
+        assertTrue(shifted.contains("    container_name: backend-api-p2 # fixed name\n"), shifted);
+        assertEquals(COMPOSE.lines().count(), shifted.lines().count());
+    }
+
+    @Test
+    void shiftsFlowSequences() throws IOException {
+        String yaml = """
+                services:
+                  db:
+                    ports: ["5433:5432", '127.0.0.1:6543:6543', 7000-7001:7000-7001, "80"] # both
+                  cache:
+                    ports: []
+                """;
+
+        assertEquals(Set.of(5433, 6543, 7000, 7001), ComposeRewriter.hostPorts(yaml));
+        assertTrue(ComposeRewriter.offset(yaml, 200, "p3")
+                        .contains("    ports: [\"5633:5432\", '127.0.0.1:6743:6543', 7200-7201:7000-7001, \"80\"] # both\n"),
+                ComposeRewriter.offset(yaml, 200, "p3"));
+    }
+
+    @Test
+    void rejectsPortValuesItCannotRewrite() {
+        assertThrows(IOException.class, () -> ComposeRewriter.hostPorts("    ports: [{target: 80, published: 8080}]\n"));
+        assertThrows(IOException.class, () -> ComposeRewriter.hostPorts("    ports: [\"5433:5432\",\n      \"8080:80\"]\n"));
+        assertThrows(IOException.class, () -> ComposeRewriter.offset("    ports: ${PORTS}\n", 100, "p2"));
+    }
+
+    @Test
+    void portsBlockEndsAtTheNextKey() throws IOException {
+        String yaml = """
+                services:
+                  api:
+                    ports:
+                      - "8080:80"
+
+                      # published below
+                    expose:
+                      - "9090:9090"
+                """;
+
+        assertEquals(Set.of(8080), ComposeRewriter.hostPorts(yaml));
+    }
+}
@@ -0,0 +1,140 @@
+package container.kitty;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContainerLogBufferTest {
+
+    @Test
+    void decodesLinesThatWrapAroundTheEnd() {
+        ContainerLogBuffer buffer = new ContainerLogBuffer(32);
+        append(buffer, "0123456789abcdefghij"); // 20 bytes
+        append(buffer, "wrapped ünïcödé"); // starts at 20, ends past 32: evicts the first line
+
+        assertEquals(List.of(new ContainerLogBuffer.Line(1, "wrapped ünïcödé")), readAll(buffer));
+        assertEquals(1, buffer.firstSeq());
+        assertEquals(2, buffer.nextSeq());
+    }
+
+    @Test
+    void evictsOldestLinesByBytes() {
+        ContainerLogBuffer buffer = new ContainerLogBuffer(100);
+        for (int i = 0; i < 10; i++) {
+            append(buffer, String.format("line %014d", i)); // 19 bytes each
+        }
+
+        List<ContainerLogBuffer.Line> lines = readAll(buffer);
+        assertEquals(5, lines.size());
+        assertEquals(5, lines.get(0).seq());
+        assertEquals("line 00000000000005", lines.get(0).text());
+        assertEquals("line 00000000000009", lines.get(4).text());
+    }
+
+    @Test
+    void evictsOldestLinesByCount() {
+        ContainerLogBuffer buffer = new ContainerLogBuffer(1024); // room for 64 lines
+        for (int i = 0; i < 100; i++) {
+            append(buffer, Integer.toString(i));
+        }
+
+        assertEquals(36, buffer.firstSeq());
+        assertEquals(100, buffer.nextSeq());
+        assertEquals("36", readAll(buffer).get(0).text());
+    }
+
+    @Test
+    void truncatesLinesLongerThanTheBuffer() {
+        ContainerLogBuffer buffer = new ContainerLogBuffer(64);
+        append(buffer, "x".repeat(100));
+
+        assertEquals("x".repeat(64), readAll(buffer).get(0).text());
+    }
+
+    @Test
+    void readFromResumesAndReportsEvictedLines() {
+        ContainerLogBuffer buffer = new ContainerLogBuffer(1024);
+        for (int i = 0; i < 10; i++) {
+            append(buffer, "line " + i);
+        }
+
+        List<ContainerLogBuffer.Line> lines = new ArrayList<>();
+        buffer.readFrom(7, 2, lines);
+        assertEquals(List.of(new ContainerLogBuffer.Line(7, "line 7"), new ContainerLogBuffer.Line(8, "line 8")), lines);
+    }
+
+    @Test
+    void indexedSearchFindsWhatAPlainScanFinds() {
+        ContainerLogBuffer buffer = new ContainerLogBuffer(256 * 1024);
+        Random random = new Random(7);
+        String[] words = {"GET", "/api/users", "200", "503", "timeout", "connection", "refused", "]abc", "x]abc", "db",
+                "warn", "ERROR:", "Kernel", "panic", "ſession", "LİMIT", "12", "errors", "ok"};
+        for (int i = 0; i < 5_000; i++) {
+            StringBuilder line = new StringBuilder(64);
+            int count = 2 + random.nextInt(6);
+            for (int w = 0; w < count; w++) {
+                if (w > 0) line.append(' ');
+                // rare words, so that most blocks can be ruled out for them
+                line.append(w == 0 && random.nextInt(50) == 0 ? words[random.nextInt(words.length)]
+                        : words[random.nextInt(6)]);
+            }
+            append(buffer, line.toString());
+        }
+
+        List<LogQuery> queries = List.of(LogQuery.substring("refused"), LogQuery.substring("kernel"),
+                LogQuery.substring("]abc"), LogQuery.regex("[\\]x]abc"), LogQuery.regex("error: .* \\d+"),
+                LogQuery.regex("kernel"), LogQuery.regex("session"), LogQuery.regex("limit"), LogQuery.regex("ti+meout"),
+                LogQuery.regex("(?x) time out"), LogQuery.regex("\\x5dabc"), LogQuery.regex("db|panic"));
+        int pruned = 0;
+        for (LogQuery query : queries) {
+            List<ContainerLogBuffer.Line> plain = new ArrayList<>();
+            for (ContainerLogBuffer.Line line : readAll(buffer)) {
+                if (query.test(line.text())) plain.add(line);
+            }
+            List<ContainerLogBuffer.Line> indexed = new ArrayList<>();
+            ContainerLogBuffer.SearchStats stats = buffer.search(query.trigrams(), query, Integer.MAX_VALUE, indexed);
+
+            assertEquals(plain, indexed, query.toString());
+            if (stats.blocksScanned() < stats.blocks()) pruned++;
+        }
+        assertTrue(pruned > 0, "no query skipped a block");
+    }
+
+    @Test
+    void foldedCaseVariantsAreNotPruned() {
+        ContainerLogBuffer buffer = new ContainerLogBuffer(64 * 1024);
+        for (int i = 0; i < 200; i++) {
+            append(buffer, "nothing to see " + i);
+        }
+        append(buffer, "Kernel panic"); // Kelvin sign
+        append(buffer, "sesſion closed"); // long s
+        append(buffer, "LİMıT reached"); // dotted and dotless i
+
+        assertEquals(1, search(buffer, LogQuery.regex("kernel panic")).size());
+        assertEquals(1, search(buffer, LogQuery.substring("kernel panic")).size());
+        assertEquals(1, search(buffer, LogQuery.regex("session closed")).size());
+        assertEquals(1, search(buffer, LogQuery.regex("limit reached")).size());
+    }
+
+    private static List<ContainerLogBuffer.Line> search(ContainerLogBuffer buffer, LogQuery query) {
+        List<ContainerLogBuffer.Line> found = new ArrayList<>();
+        buffer.search(query.trigrams(), query, Integer.MAX_VALUE, found);
+        return found;
+    }
+
+    private static void append(ContainerLogBuffer buffer, String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        buffer.append(bytes, 0, bytes.length);
+    }
+
+    private static List<ContainerLogBuffer.Line> readAll(ContainerLogBuffer buffer) {
+        List<ContainerLogBuffer.Line> lines = new ArrayList<>();
+        buffer.readFrom(0, Integer.MAX_VALUE, lines);
+        return lines;
+    }
+}
@@ -0,0 +1,151 @@
+package container.kitty;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContainerSnapshotServiceTest {
+
+    private final ExecutorService lane = Executors.newSingleThreadExecutor();
+    private final AtomicInteger listings = new AtomicInteger();
+    private final CountDownLatch firstListingStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseFirstListing = new CountDownLatch(1);
+
+    /** The first listing blocks until released, so requests can pile up behind it. */
+    private final ContainerSnapshotService service = new ContainerSnapshotService(() -> {
+        int listing = listings.incrementAndGet();
+        if (listing == 1) {
+            firstListingStarted.countDown();
+            try {
+                releaseFirstListing.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return List.of(container("listing-" + listing));
+    }, this::submit);
+
+    @AfterEach
+    void stopLane() {
+        releaseFirstListing.countDown();
+        lane.shutdownNow();
+    }
+
+    @Test
+    void burstWhileListingCostsOneMoreQuery() throws Exception {
+        CompletableFuture<ContainerSnapshotService.Snapshot> first = service.refresh();
+        assertTrue(firstListingStarted.await(5, TimeUnit.SECONDS));
+
+        List<CompletableFuture<ContainerSnapshotService.Snapshot>> burst = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            burst.add(service.refresh());
+        }
+        releaseFirstListing.countDown();
+
+        assertEquals("listing-1", first.get(5, TimeUnit.SECONDS).containers().get(0).name());
+        for (CompletableFuture<ContainerSnapshotService.Snapshot> request : burst) {
+            assertSame(burst.get(0), request);
+            // taken by a listing that started after the request
+            assertEquals("listing-2", request.get(5, TimeUnit.SECONDS).containers().get(0).name());
+        }
+        assertEquals(2, listings.get());
+    }
+
+    @Test
+    void identicalListingKeepsTheVersion() {
+        ContainerSnapshotService.Snapshot first = service.replace(List.of(container("api")));
+        ContainerSnapshotService.Snapshot same = service.replace(List.of(container("api")));
+
+        assertSame(first, same);
+        assertEquals(1, service.latest().version());
+        assertEquals(2, service.remove("id-api").version());
+        assertEquals(2, service.remove("id-api").version());
+        assertEquals(3, service.upsert(container("db")).version());
+    }
+
+    @Test
+    void slowListenerDoesNotBlockReaders() throws Exception {
+        CountDownLatch listenerEntered = new CountDownLatch(1);
+        CountDownLatch releaseListener = new CountDownLatch(1);
+        service.addListener(snapshot -> {
+            listenerEntered.countDown();
+            try {
+                releaseListener.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Thread publisher = new Thread(() -> service.upsert(container("api")));
+        publisher.start();
+        try {
+            assertTrue(listenerEntered.await(5, TimeUnit.SECONDS));
+
+            ContainerSnapshotService.Snapshot latest = CompletableFuture.supplyAsync(service::latest).get(2, TimeUnit.SECONDS);
+            assertEquals(1, latest.version());
+            assertNotNull(CompletableFuture.supplyAsync(service::refresh).get(2, TimeUnit.SECONDS));
+        } finally {
+            releaseListener.countDown();
+            publisher.join();
+        }
+    }
+
+    @Test
+    void listenersSeeIncreasingVersions() throws InterruptedException {
+        List<Long> seen = new ArrayList<>();
+        service.addListener(snapshot -> seen.add(snapshot.version()));
+        Thread[] publishers = new Thread[4];
+        for (int t = 0; t < publishers.length; t++) {
+            int thread = t;
+            publishers[t] = new Thread(() -> {
+                for (int i = 0; i < 200; i++) service.upsert(container("c" + thread + "-" + i));
+            });
+            publishers[t].start();
+        }
+        for (Thread publisher : publishers) publisher.join();
+
+        for (int i = 1; i < seen.size(); i++) {
+            assertTrue(seen.get(i) > seen.get(i - 1), seen.get(i - 1) + " then " + seen.get(i));
+        }
+        assertEquals(800L, seen.get(seen.size() - 1).longValue());
+    }
+
+    @Test
+    void cancelledListingFailsItsWaitersAndTheNextRequestRunsAgain() throws Exception {
+        CommandHandle[] handles = new CommandHandle[1];
+        ContainerSnapshotService cancelling = new ContainerSnapshotService(() -> List.of(container("api")), task -> {
+            if (handles[0] == null) {
+                handles[0] = new CommandHandle("query", "list containers", Duration.ofMinutes(1));
+                handles[0].cancel(); // never runs
+                return handles[0];
+            }
+            return submit(task);
+        });
+
+        CompletableFuture<ContainerSnapshotService.Snapshot> cancelled = cancelling.refresh();
+        assertThrows(CancellationException.class, () -> cancelled.get(5, TimeUnit.SECONDS));
+
+        assertEquals(1, cancelling.refresh().get(5, TimeUnit.SECONDS).version());
+    }
+
+    private CommandHandle submit(Runnable task) {
+        CommandHandle handle = new CommandHandle("query", "list containers", Duration.ofMinutes(1));
+        lane.execute(() -> handle.run(task));
+        return handle;
+    }
+
+    private static ContainerState container(String name) {
+        return new ContainerState("id-" + name, name, "example/" + name + ":1", "Up 1 second", "backend-dev", name);
+    }
+}
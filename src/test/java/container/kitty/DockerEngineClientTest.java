@@ -0,0 +1,262 @@
+package container.kitty;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.URLDecoder;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the engine client and the event monitor against a fake engine that answers on a
+ * Unix-domain socket in a temp dir.
+ */
+class DockerEngineClientTest {
+
+    private static final String API_ID = "4f2b1c0d9e8a7b6c5d4e3f2a1b0c9d8e7f6a5b4c3d2e1f0a9b8c7d6e5f4a3b2c";
+    private static final String DB_ID = "0a1b2c3d4e5f60718293a4b5c6d7e8f90a1b2c3d4e5f60718293a4b5c6d7e8f9";
+
+    @TempDir
+    Path tempDir;
+
+    private FakeEngine engine;
+    private DockerEngineClient client;
+
+    @BeforeEach
+    void startEngine() throws IOException {
+        engine = new FakeEngine(tempDir.resolve("docker.sock"));
+        client = new DockerEngineClient(engine.socket);
+    }
+
+    @AfterEach
+    void stopEngine() throws IOException {
+        engine.close();
+    }
+
+    @Test
+    void listsComposeContainersWithFullIds() throws IOException {
+        engine.containers.put("", List.of(container(API_ID, "backend-dev-api", "Up 3 seconds"),
+                container(DB_ID, "backend-dev-db", "Up 5 seconds (healthy)")));
+
+        List<ContainerState> containers = client.listComposeContainers();
+
+        assertEquals(2, containers.size());
+        ContainerState api = containers.get(0);
+        assertEquals(API_ID, api.id());
+        assertEquals("backend-dev-api", api.name());
+        assertEquals("example/api:1.2", api.image());
+        assertEquals("Up 3 seconds", api.status());
+        assertEquals("backend-dev", api.project());
+        assertEquals("api", api.service());
+        assertTrue(engine.requests.get(0).contains("com.docker.compose.project"), engine.requests.get(0));
+    }
+
+    @Test
+    void findRunningContainerReturnsNullWhenNotListed() throws IOException {
+        engine.containers.put(API_ID, List.of(container(API_ID, "backend-dev-api", "Up 1 second")));
+
+        assertEquals(API_ID, client.findRunningContainer(API_ID).id());
+        assertNull(client.findRunningContainer(DB_ID));
+    }
+
+    @Test
+    void errorStatusBecomesIOException() {
+        engine.failWith = "500 Internal Server Error";
+
+        IOException e = assertThrows(IOException.class, client::listComposeContainers);
+        assertTrue(e.getMessage().contains("500"), e.getMessage());
+    }
+
+    @Test
+    void decodesEventsSplitAcrossChunks() throws IOException {
+        String events = event("start", API_ID, "api", -1) + "\n" + event("die", DB_ID, "db", 137) + "\n";
+        // chunk boundaries fall inside the first event and between the two events
+        engine.eventChunks = List.of(events.substring(0, 17), events.substring(17, events.indexOf('\n') + 1),
+                events.substring(events.indexOf('\n') + 1));
+
+        List<DockerEngineClient.DockerEvent> received = new ArrayList<>();
+        try (SocketChannel channel = client.connect()) {
+            client.streamEvents(channel, 1_700_000_000L, received::add);
+        }
+
+        assertEquals(2, received.size());
+        DockerEngineClient.DockerEvent start = received.get(0);
+        assertEquals("start", start.action());
+        assertEquals(API_ID, start.containerId());
+        assertEquals("backend-dev", start.project());
+        assertEquals("api", start.service());
+        assertEquals(-1, start.exitCode());
+        assertEquals(1_700_000_001_000_000_000L, start.timeNanos());
+        assertEquals(137, received.get(1).exitCode());
+        assertTrue(engine.requests.get(0).startsWith("/events?since=1700000000&"), engine.requests.get(0));
+    }
+
+    @Test
+    void monitorResyncsThenLooksUpChangedContainers() throws InterruptedException {
+        engine.containers.put("", List.of(container(DB_ID, "backend-dev-db", "Up 5 seconds")));
+        engine.containers.put(API_ID, List.of(container(API_ID, "backend-dev-api", "Up Less than a second")));
+        engine.eventChunks = List.of(event("start", API_ID, "api", -1) + "\n", event("destroy", DB_ID, "db", -1) + "\n");
+
+        BlockingQueue<String> calls = new LinkedBlockingQueue<>();
+        ContainerEventMonitor monitor = new ContainerEventMonitor(client, new ContainerEventMonitor.Listener() {
+            @Override
+            public void onResync(List<ContainerState> containers) {
+                calls.add("resync " + containers.stream().map(ContainerState::name).toList());
+            }
+
+            @Override
+            public void onContainerUpdated(ContainerState container) {
+                calls.add("updated " + container.name());
+            }
+
+            @Override
+            public void onContainerRemoved(String containerId) {
+                calls.add("removed " + containerId);
+            }
+
+            @Override
+            public void onEvent(DockerEngineClient.DockerEvent event) {
+            }
+
+            @Override
+            public void onConnectionLost(IOException e) {
+            }
+        });
+        monitor.start();
+        try {
+            assertEquals("resync [backend-dev-db]", calls.poll(5, TimeUnit.SECONDS));
+            assertEquals("updated backend-dev-api", calls.poll(5, TimeUnit.SECONDS));
+            assertEquals("removed " + DB_ID, calls.poll(5, TimeUnit.SECONDS));
+        } finally {
+            monitor.stop();
+        }
+    }
+
+    private static String container(String id, String name, String status) {
+        return "{\"Id\":\"" + id + "\",\"Names\":[\"/" + name + "\"],\"Image\":\"example/api:1.2\",\"Status\":\"" + status
+                + "\",\"Labels\":{\"com.docker.compose.project\":\"backend-dev\",\"com.docker.compose.service\":\"api\"}}";
+    }
+
+    private static String event(String action, String id, String service, int exitCode) {
+        return "{\"Type\":\"container\",\"Action\":\"" + action + "\",\"Actor\":{\"ID\":\"" + id + "\",\"Attributes\":{"
+                + "\"com.docker.compose.project\":\"backend-dev\",\"com.docker.compose.service\":\"" + service + "\""
+                + (exitCode >= 0 ? ",\"exitCode\":\"" + exitCode + "\"" : "")
+                + "}},\"time\":1700000001,\"timeNano\":1700000001000000000}";
+    }
+
+    /**
+     * Answers GET /containers/json (looked up by the id filter, "" without one) with a JSON array and
+     * GET /events with {@link #eventChunks} in chunked encoding. One request per connection.
+     */
+    private static final class FakeEngine implements AutoCloseable {
+        final Path socket;
+        final Map<String, List<String>> containers = new ConcurrentHashMap<>();
+        final List<String> requests = new CopyOnWriteArrayList<>();
+        volatile List<String> eventChunks = List.of();
+        volatile String failWith;
+
+        private final ServerSocketChannel server;
+        private final Thread acceptor;
+
+        FakeEngine(Path socket) throws IOException {
+            this.socket = socket;
+            server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            server.bind(UnixDomainSocketAddress.of(socket));
+            acceptor = new Thread(this::accept, "fake-engine");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        private void accept() {
+            while (server.isOpen()) {
+                try {
+                    SocketChannel channel = server.accept();
+                    Thread handler = new Thread(() -> serve(channel), "fake-engine-request");
+                    handler.setDaemon(true);
+                    handler.start();
+                } catch (IOException e) {
+                    return; // closed
+                }
+            }
+        }
+
+        private void serve(SocketChannel channel) {
+            try (channel) {
+                InputStream in = Channels.newInputStream(channel);
+                OutputStream out = Channels.newOutputStream(channel);
+                String requestLine = DockerEngineClient.readLine(in);
+                String line;
+                //noinspection NestedAssignment
+                while ((line = DockerEngineClient.readLine(in)) != null && !line.isEmpty()) {
+                    // headers are not needed
+                }
+                String target = URLDecoder.decode(requestLine.split(" ")[1], StandardCharsets.UTF_8);
+                requests.add(target);
+
+                if (failWith != null) {
+                    respond(out, failWith, "{\"message\":\"boom\"}");
+                } else if (target.startsWith("/containers/json")) {
+                    String id = "";
+                    int idFilter = target.indexOf("\"id\":[\"");
+                    if (idFilter >= 0) {
+                        int start = idFilter + "\"id\":[\"".length();
+                        id = target.substring(start, target.indexOf('"', start));
+                    }
+                    respond(out, "200 OK", "[" + String.join(",", containers.getOrDefault(id, List.of())) + "]");
+                } else if (target.startsWith("/events")) {
+                    ByteArrayOutputStream body = new ByteArrayOutputStream();
+                    for (String chunk : eventChunks) {
+                        byte[] bytes = chunk.getBytes(StandardCharsets.UTF_8);
+                        body.writeBytes((Integer.toHexString(bytes.length) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+                        body.writeBytes(bytes);
+                        body.writeBytes("\r\n".getBytes(StandardCharsets.US_ASCII));
+                    }
+                    body.writeBytes("0\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+                    out.write(("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\nTransfer-Encoding: chunked\r\n\r\n")
+                            .getBytes(StandardCharsets.US_ASCII));
+                    out.write(body.toByteArray());
+                    out.flush();
+                } else {
+                    respond(out, "404 Not Found", "{\"message\":\"page not found\"}");
+                }
+            } catch (IOException ignored) {
+                // the client hung up
+            }
+        }
+
+        private static void respond(OutputStream out, String status, String body) throws IOException {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            out.write(("HTTP/1.1 " + status + "\r\nContent-Type: application/json\r\nContent-Length: " + bytes.length + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            out.write(bytes);
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            server.close();
+            acceptor.interrupt();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package container.kitty;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DockerPsParserTest {
+
+    private final DockerPsParser parser = new DockerPsParser();
+
+    @Test
+    void separatorsInValuesAreJustCharacters() throws IOException {
+        List<ContainerState> containers = parse(
+                "{\"id\":\"abc\",\"name\":\"web|1\",\"image\":\"img|x:1\",\"status\":\"Up 2 minutes\",\"project\":\"a|b\","
+                        + "\"service\":\"web\"}\n");
+
+        assertEquals(List.of(new ContainerState("abc", "web|1", "img|x:1", "Up 2 minutes", "a|b", "web")), containers);
+    }
+
+    @Test
+    void decodesEscapedQuotesAndUnicode() throws IOException {
+        ContainerState container = parse("{\"id\":\"abc\",\"name\":\"say \\\"hi\\\"\",\"image\":\"caf\\u00e9\\u2603\","
+                + "\"status\":\"Up\",\"project\":\"back\\\\slash\"}\n").get(0);
+
+        assertEquals("say \"hi\"", container.name());
+        assertEquals("café☃", container.image());
+        assertEquals("back\\slash", container.project());
+    }
+
+    @Test
+    void missingOrNullLabelIsEmpty() throws IOException {
+        List<ContainerState> containers = parse("""
+                {"id":"a","name":"one","image":"i","status":"Up"}
+                {"id":"b","name":"two","image":"i","status":"Up","project":null}
+                """);
+
+        assertEquals("", containers.get(0).project());
+        assertEquals("", containers.get(0).service());
+        assertEquals("", containers.get(1).project());
+    }
+
+    @Test
+    void skipsUnknownNestedFields() throws IOException {
+        ContainerState container = parse("{\"extra\":{\"id\":\"nested\",\"list\":[1,{\"name\":\"deep\"},[\"x\"]]},"
+                + "\"id\":\"abc\",\"size\":12,\"name\":\"web\",\"ports\":[\"80/tcp\"],\"image\":\"img\",\"status\":\"Up\","
+                + "\"project\":\"p\",\"mounts\":{}}\n").get(0);
+
+        assertEquals(new ContainerState("abc", "web", "img", "Up", "p", ""), container);
+    }
+
+    @Test
+    void skipsBlankLinesAndObjectsWithoutId() throws IOException {
+        List<ContainerState> containers = parse("\n{\"id\":\"a\",\"name\":\"one\"}\n\n   \n{\"name\":\"no id\"}\n{\"id\":\"\"}\n"
+                + "{\"id\":\"b\",\"name\":\"two\"}\n\n");
+
+        assertEquals(List.of("a", "b"), containers.stream().map(ContainerState::id).toList());
+        assertTrue(parse("").isEmpty());
+    }
+
+    @Test
+    void truncatedOutputIsAnError() {
+        assertThrows(IOException.class, () -> parse("{\"id\":\"a\",\"name\":\"one\"}\n{\"id\":\"b\",\"na"));
+        assertThrows(IOException.class, () -> parse("{\"id\":\"a\",\"name\":\"one\"}\n{\"id\":\"b\""));
+    }
+
+    @Test
+    void repeatedValuesAreTheSameInstance() throws IOException {
+        String line = "{\"id\":\"abc\",\"name\":\"web\",\"image\":\"img\",\"status\":\"Up\",\"project\":\"p\"}\n";
+        ContainerState first = parse(line).get(0);
+        ContainerState second = parse(line + "{\"id\":\"def\",\"name\":\"db\",\"image\":\"img\",\"status\":\"Up\",\"project\":\"p\"}\n").get(1);
+        ContainerState again = parse(line).get(0);
+
+        assertSame(first.image(), second.image());
+        assertSame(first.project(), second.project());
+        assertSame(first.id(), again.id());
+        assertSame(first.name(), again.name());
+    }
+
+    @Test
+    void internerLooksUpCharsAndStringsAlike() {
+        StringInterner interner = new StringInterner(16);
+        char[] buffer = "xxcontainer-kittyxx".toCharArray();
+
+        String fromChars = interner.intern(buffer, 2, 15);
+        assertEquals("container-kitty", fromChars);
+        assertSame(fromChars, interner.intern(buffer, 2, 15));
+        assertSame(fromChars, interner.intern(new String("container-kitty")));
+        assertSame(fromChars, interner.intern("container-kittyxx".toCharArray(), 0, 15));
+        assertEquals(1, interner.size());
+        assertEquals("", interner.intern(buffer, 0, 0));
+        assertNull(interner.intern(null));
+    }
+
+    @Test
+    void internerStartsOverWhenFull() {
+        StringInterner interner = new StringInterner(3);
+        String a = interner.intern(new String("a"));
+        interner.intern(new String("b"));
+        interner.intern(new String("c"));
+        assertEquals(3, interner.size());
+        assertSame(a, interner.intern("a".toCharArray(), 0, 1));
+
+        String d = interner.intern(new String("d")); // fourth distinct value: the pool is cleared first
+        assertEquals(1, interner.size());
+        assertSame(d, interner.intern("d".toCharArray(), 0, 1));
+
+        String a2 = new String("a");
+        assertSame(a2, interner.intern(a2));
+        assertNotSame(a, interner.intern("a".toCharArray(), 0, 1));
+        assertEquals(2, interner.size());
+    }
+
+    private List<ContainerState> parse(String output) throws IOException {
+        return parser.parse(new ByteArrayInputStream(output.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,170 @@
+package container.kitty;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+/**
+ * Runs the mirror against a local bare repository, served over file:// so that the blobless
+ * clone and the on-demand blob fetches go through upload-pack as they would for a real remote.
+ */
+class GitMirrorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path work;
+    private String remoteUrl;
+    private final List<String> log = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void createRemote() throws IOException {
+        Path remote = tempDir.resolve("remote.git");
+        git(tempDir, "init", "--bare", remote.toString());
+        git(remote, "config", "uploadpack.allowFilter", "true");
+        git(remote, "config", "uploadpack.allowAnySHA1InWant", "true");
+        remoteUrl = remote.toUri().toString();
+
+        work = tempDir.resolve("work");
+        git(tempDir, "init", work.toString());
+        write("docker/compose/docker-compose-a.yml", "services:\n  a:\n    image: example/a\n");
+        write("docker/compose/docker-compose-b.yml", "services:\n  b:\n    image: example/b\n");
+        write("README.md", "not part of the mirror\n");
+        commitAndPush("initial");
+    }
+
+    @Test
+    void clonesAndReadsSeveralFilesInOneBatch() throws IOException {
+        GitMirror mirror = new GitMirror(remoteUrl, "main", tempDir.resolve("mirror"), log::add);
+
+        String head = mirror.ensureCloned();
+        assertEquals(remoteHead(), head);
+
+        Map<String, byte[]> files = mirror.readFiles(List.of(
+                "docker/compose/docker-compose-a.yml", "docker/compose/docker-compose-b.yml"));
+        assertEquals("services:\n  a:\n    image: example/a\n", text(files.get("docker/compose/docker-compose-a.yml")));
+        assertEquals("services:\n  b:\n    image: example/b\n", text(files.get("docker/compose/docker-compose-b.yml")));
+        assertEquals(1, count("git cat-file --batch"));
+
+        // served from memory the second time
+        mirror.readFile("docker/compose/docker-compose-a.yml");
+        assertEquals(1, count("git cat-file --batch"));
+    }
+
+    @Test
+    void refreshSkipsFetchWhenRemoteIsUnchanged() throws IOException {
+        GitMirror mirror = new GitMirror(remoteUrl, "main", tempDir.resolve("mirror"), log::add);
+        String head = mirror.ensureCloned();
+
+        assertEquals(head, mirror.refresh());
+        assertEquals(0, count("git fetch"));
+
+        write("docker/compose/docker-compose-a.yml", "services:\n  a:\n    image: example/a:2\n");
+        commitAndPush("bump a");
+
+        String moved = mirror.refresh();
+        assertEquals(remoteHead(), moved);
+        assertNotEquals(head, moved);
+        assertEquals(1, count("git fetch"));
+        assertEquals("services:\n  a:\n    image: example/a:2\n", text(mirror.readFile("docker/compose/docker-compose-a.yml")));
+    }
+
+    @Test
+    void exportsBlobsIntoStoreOnce() throws IOException {
+        GitMirror mirror = new GitMirror(remoteUrl, "main", tempDir.resolve("mirror"), log::add);
+        BlobStore store = new BlobStore(tempDir.resolve("blobs"));
+        List<String> paths = List.of("docker/compose/docker-compose-a.yml", "docker/compose/docker-compose-b.yml");
+
+        Map<String, BlobStore.Blob> blobs = mirror.exportFiles(paths, store);
+        assertEquals("services:\n  b:\n    image: example/b\n",
+                Files.readString(blobs.get("docker/compose/docker-compose-b.yml").path()));
+
+        assertEquals(blobs, mirror.exportFiles(paths, store));
+        assertEquals(1, count("git cat-file --batch"));
+        assertThrows(IOException.class, () -> mirror.exportFiles(List.of("docker/compose/missing.yml"), store));
+    }
+
+    @Test
+    void ignoresWhatTheRemoteWritesToStderr() throws IOException {
+        assumeFalse(System.getProperty("os.name").toLowerCase(Locale.ROOT).startsWith("windows"), "needs a shell script");
+        GitMirror mirror = new GitMirror(remoteUrl, "main", tempDir.resolve("mirror"), log::add);
+        String head = mirror.ensureCloned();
+
+        // like an ssh banner or a credential helper, the remote side talks on stderr before answering
+        Path uploadPack = tempDir.resolve("noisy-upload-pack");
+        Files.writeString(uploadPack, "#!/bin/sh\necho 'warning: remote says hello' >&2\nexec git-upload-pack \"$@\"\n");
+        Files.setPosixFilePermissions(uploadPack, PosixFilePermissions.fromString("rwxr-xr-x"));
+        git(mirror.getMirrorDir(), "config", "remote.origin.uploadpack", uploadPack.toString());
+
+        assertEquals(head, mirror.refresh());
+        assertEquals(0, count("git fetch"));
+        write("docker/compose/docker-compose-b.yml", "services:\n  b:\n    image: example/b:2\n");
+        commitAndPush("bump b");
+        assertEquals(remoteHead(), mirror.refresh());
+    }
+
+    @Test
+    void missingBranchIsReported() throws IOException {
+        GitMirror mirror = new GitMirror(remoteUrl, "main", tempDir.resolve("mirror"), log::add);
+        mirror.ensureCloned();
+        git(work, "push", "-q", remoteUrl, ":refs/heads/main");
+
+        IOException e = assertThrows(IOException.class, mirror::refresh);
+        assertTrue(e.getMessage().contains("not found"), e.getMessage());
+    }
+
+    private long count(String command) {
+        return log.stream().filter(line -> line.startsWith(command)).count();
+    }
+
+    private void write(String path, String content) throws IOException {
+        Path file = work.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+
+    private void commitAndPush(String message) throws IOException {
+        git(work, "add", "-A");
+        git(work, "-c", "user.name=test", "-c", "user.email=test@example.com", "commit", "-q", "-m", message);
+        git(work, "push", "-q", remoteUrl, "HEAD:refs/heads/main");
+    }
+
+    private String remoteHead() throws IOException {
+        return git(work, "rev-parse", "HEAD").trim();
+    }
+
+    private static String text(byte[] content) {
+        return new String(content, StandardCharsets.UTF_8);
+    }
+
+    private static String git(Path dir, String... args) throws IOException {
+        String[] command = new String[args.length + 1];
+        command[0] = "git";
+        System.arraycopy(args, 0, command, 1, args.length);
+        Process process = new ProcessBuilder(command).directory(dir.toFile()).redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        try {
+            if (!process.waitFor(60, TimeUnit.SECONDS) || process.exitValue() != 0) {
+                throw new IOException(String.join(" ", command) + " failed: " + output);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+        return output;
+    }
+}
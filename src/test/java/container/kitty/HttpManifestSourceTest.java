@@ -0,0 +1,221 @@
+package container.kitty;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the HTTP manifest source against an in-process server on an ephemeral port.
+ */
+class HttpManifestSourceTest {
+
+    private static final String MANIFEST = "{\"compositions\":[\"backend-dev\"]}";
+    private static final String COMPOSE = "services:\n  api:\n    image: example/api:1.2\n";
+    private static final String LAST_MODIFIED = "Wed, 21 Oct 2026 07:28:00 GMT";
+
+    @TempDir
+    Path tempDir;
+
+    private final Map<String, Resource> resources = new ConcurrentHashMap<>();
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private ExecutorService executor;
+    private HttpServer server;
+    private HttpManifestSource source;
+    private BlobStore store;
+
+    /** A file the server answers with; validators that are null are not sent. */
+    private record Resource(String body, String etag, String lastModified, CountDownLatch gate) {
+        Resource(String body, String etag, String lastModified) {
+            this(body, etag, lastModified, null);
+        }
+    }
+
+    @BeforeEach
+    void startServer() throws IOException {
+        executor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/", this::serve);
+        server.start();
+        source = new HttpManifestSource(uri("/manifests/versions.json"), line -> { });
+        store = new BlobStore(tempDir.resolve("blobs"));
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Test
+    void etagIsSentBackAsIfNoneMatch() throws IOException {
+        resources.put("/manifests/versions.json", new Resource(MANIFEST, "\"v1\"", null));
+
+        ManifestSource.Fetched fetched = source.fetch(null);
+        assertEquals(MANIFEST, new String(fetched.json(), StandardCharsets.UTF_8));
+        assertEquals("etag:\"v1\"", fetched.revision());
+
+        assertNull(source.fetch(fetched.revision()));
+        assertEquals(List.of("/manifests/versions.json", "/manifests/versions.json If-None-Match: \"v1\""), requests);
+    }
+
+    @Test
+    void lastModifiedIsSentBackAsIfModifiedSince() throws IOException {
+        resources.put("/manifests/versions.json", new Resource(MANIFEST, null, LAST_MODIFIED));
+
+        ManifestSource.Fetched fetched = source.fetch(null);
+        assertEquals("last-modified:" + LAST_MODIFIED, fetched.revision());
+
+        assertNull(source.fetch(fetched.revision()));
+        assertEquals("/manifests/versions.json If-Modified-Since: " + LAST_MODIFIED, requests.get(1));
+    }
+
+    @Test
+    void withoutValidatorsTheRevisionIsTheContentHash() throws IOException {
+        resources.put("/manifests/versions.json", new Resource(MANIFEST, null, null));
+
+        ManifestSource.Fetched fetched = source.fetch(null);
+        assertTrue(fetched.revision().startsWith("sha256:"), fetched.revision());
+        assertNull(source.fetch(fetched.revision()));
+
+        resources.put("/manifests/versions.json", new Resource(MANIFEST.replace("dev", "prod"), null, null));
+        ManifestSource.Fetched changed = source.fetch(fetched.revision());
+        assertNotNull(changed);
+        assertNotEquals(fetched.revision(), changed.revision());
+    }
+
+    @Test
+    void prefetchRequestsAllComposeFilesAtOnce() throws IOException {
+        // each response is held back until all three requests have arrived, so this only passes if they overlap
+        CountDownLatch allArrived = new CountDownLatch(3);
+        for (String composition : List.of("backend-dev", "frontend-dev", "monitoring")) {
+            resources.put("/manifests/docker-compose-" + composition + ".yml",
+                    new Resource(COMPOSE + "# " + composition + "\n", "\"" + composition + "\"", null, allArrived));
+        }
+
+        source.prefetchComposeFiles(List.of("backend-dev", "frontend-dev", "monitoring"), store);
+
+        assertEquals(0, allArrived.getCount());
+        assertEquals(3, requests.size());
+        for (String composition : List.of("backend-dev", "frontend-dev", "monitoring")) {
+            BlobStore.Blob blob = source.composeFile(composition, store); // revalidated, not downloaded again
+            assertEquals(COMPOSE + "# " + composition + "\n", Files.readString(blob.path()));
+        }
+    }
+
+    @Test
+    void unchangedComposeFileReusesTheStoredBlob() throws IOException {
+        resources.put("/manifests/docker-compose-backend-dev.yml", new Resource(COMPOSE, "\"c1\"", null));
+
+        BlobStore.Blob first = source.composeFile("backend-dev", store);
+        BlobStore.Blob second = source.composeFile("backend-dev", store);
+
+        assertEquals(first, second);
+        assertEquals(COMPOSE, Files.readString(second.path()));
+        assertEquals("/manifests/docker-compose-backend-dev.yml If-None-Match: \"c1\"", requests.get(1));
+    }
+
+    @Test
+    void composeFileMissingFromTheStoreIsDownloadedAgain() throws IOException {
+        resources.put("/manifests/docker-compose-backend-dev.yml", new Resource(COMPOSE, "\"c1\"", null));
+
+        BlobStore.Blob first = source.composeFile("backend-dev", store);
+        Files.delete(first.path());
+        BlobStore.Blob second = source.composeFile("backend-dev", store);
+
+        assertEquals(COMPOSE, Files.readString(second.path()));
+        assertEquals("/manifests/docker-compose-backend-dev.yml", requests.get(1));
+    }
+
+    @Test
+    void notFoundBecomesIOException() {
+        IOException manifest = assertThrows(IOException.class, () -> source.fetch(null));
+        assertTrue(manifest.getMessage().contains("404"), manifest.getMessage());
+
+        IOException compose = assertThrows(IOException.class, () -> source.composeFile("backend-dev", store));
+        assertTrue(compose.getMessage().contains("404"), compose.getMessage());
+    }
+
+    @Test
+    void failedPrefetchReportsEveryMissingFile() {
+        resources.put("/manifests/docker-compose-backend-dev.yml", new Resource(COMPOSE, null, null));
+
+        IOException e = assertThrows(IOException.class,
+                () -> source.prefetchComposeFiles(List.of("backend-dev", "frontend-dev", "monitoring"), store));
+        assertEquals(1, e.getSuppressed().length);
+    }
+
+    @Test
+    void refusedConnectionBecomesIOException() throws IOException {
+        int port;
+        try (ServerSocket unused = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            port = unused.getLocalPort();
+        }
+        HttpManifestSource closed = new HttpManifestSource(
+                URI.create("http://127.0.0.1:" + port + "/manifests/versions.json"), line -> { });
+
+        IOException e = assertThrows(IOException.class, () -> closed.fetch(null));
+        assertNotNull(e.getMessage());
+        assertThrows(IOException.class, () -> closed.composeFile("backend-dev", store));
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+            String ifModifiedSince = exchange.getRequestHeaders().getFirst("If-Modified-Since");
+            requests.add(path + (ifNoneMatch != null ? " If-None-Match: " + ifNoneMatch : "")
+                    + (ifModifiedSince != null ? " If-Modified-Since: " + ifModifiedSince : ""));
+
+            Resource resource = resources.get(path);
+            if (resource == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            if (resource.gate() != null) {
+                resource.gate().countDown();
+                try {
+                    resource.gate().await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (resource.etag() != null) exchange.getResponseHeaders().set("ETag", resource.etag());
+            if (resource.lastModified() != null) exchange.getResponseHeaders().set("Last-Modified", resource.lastModified());
+            if ((ifNoneMatch != null && ifNoneMatch.equals(resource.etag()))
+                    || (ifNoneMatch == null && ifModifiedSince != null && ifModifiedSince.equals(resource.lastModified()))) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+            byte[] body = resource.body().getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path);
+    }
+}
@@ -0,0 +1,43 @@
+package container.kitty;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogBufferTest {
+
+    @Test
+    void onlyTheFirstAppendAfterADrainAsksForOne() {
+        LogBuffer buffer = new LogBuffer(8);
+
+        assertTrue(buffer.append(entry("first")));
+        assertFalse(buffer.append(entry("second")));
+        assertTrue(buffer.hasPending());
+
+        List<LogEntry> batch = new ArrayList<>();
+        assertEquals(0, buffer.drainTo(batch));
+        assertEquals(List.of("first", "second"), batch.stream().map(LogEntry::message).toList());
+        assertFalse(buffer.hasPending());
+
+        assertTrue(buffer.append(entry("third")));
+    }
+
+    @Test
+    void overrunDropsTheOldestAndCountsThem() {
+        LogBuffer buffer = new LogBuffer(4);
+        for (int i = 0; i < 10; i++) {
+            buffer.append(entry("line " + i));
+        }
+
+        List<LogEntry> batch = new ArrayList<>();
+        assertEquals(6, buffer.drainTo(batch));
+        assertEquals(List.of("line 6", "line 7", "line 8", "line 9"), batch.stream().map(LogEntry::message).toList());
+    }
+
+    private static LogEntry entry(String message) {
+        return new LogEntry(0L, LogEntry.Level.INFO, "app", message);
+    }
+}
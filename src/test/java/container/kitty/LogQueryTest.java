@@ -0,0 +1,97 @@
+package container.kitty;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogQueryTest {
+
+    @Test
+    void plainTextIsOneLiteral() {
+        assertEquals(List.of("connection refused"), LogQuery.requiredLiterals("connection refused"));
+        assertEquals(List.of("a.bc"), LogQuery.requiredLiterals("a\\.bc"));
+    }
+
+    @Test
+    void wildcardsAndQuantifiersSplitRuns() {
+        assertEquals(List.of("error: ", " timeout"), LogQuery.requiredLiterals("error: .* timeout"));
+        assertEquals(List.of("cdef"), LogQuery.requiredLiterals("ab+cdef"));
+        assertEquals(List.of("def"), LogQuery.requiredLiterals("abc?def"));
+        assertEquals(List.of("abc"), LogQuery.requiredLiterals("x{2}abc"));
+        assertEquals(List.of(" errors"), LogQuery.requiredLiterals("\\d+ errors"));
+        assertEquals(List.of("abc"), LogQuery.requiredLiterals("^abc$"));
+    }
+
+    @Test
+    void groupsAreNeverRequired() {
+        assertEquals(List.of("bar"), LogQuery.requiredLiterals("(foo)bar"));
+        assertEquals(List.of("barbaz"), LogQuery.requiredLiterals("(?:foo)?barbaz"));
+        assertEquals(List.of("def"), LogQuery.requiredLiterals("(?=abc)def"));
+        assertEquals(List.of("abc"), LogQuery.requiredLiterals("(?i)abc"));
+    }
+
+    @Test
+    void alternationRequiresNothing() {
+        assertEquals(List.of(), LogQuery.requiredLiterals("foo|bar"));
+        assertEquals(List.of(), LogQuery.requiredLiterals("started (api|db)"));
+        assertEquals(List.of("abc"), LogQuery.requiredLiterals("[|]abc"));
+    }
+
+    @Test
+    void characterClassesAreSkippedWhole() {
+        assertEquals(List.of("abc"), LogQuery.requiredLiterals("[\\]x]abc"));
+        assertEquals(List.of("abc"), LogQuery.requiredLiterals("[]x]abc"));
+        assertEquals(List.of("abc"), LogQuery.requiredLiterals("[^]x]abc"));
+        assertEquals(List.of("xyz"), LogQuery.requiredLiterals("[a-z&&[^b]]xyz"));
+        assertEquals(List.of("abc", "def"), LogQuery.requiredLiterals("abc[\\[(]def"));
+        assertEquals(List.of(), LogQuery.requiredLiterals("[\\Q]\\E]abc"));
+    }
+
+    @Test
+    void escapesWithArgumentsGiveUp() {
+        assertEquals(List.of(), LogQuery.requiredLiterals("\\x41bcd"));
+        assertEquals(List.of(), LogQuery.requiredLiterals("\\u00e9abc"));
+        assertEquals(List.of(), LogQuery.requiredLiterals("(a)\\1bcd"));
+        assertEquals(List.of(), LogQuery.requiredLiterals("(?<n>a)\\k<n>abc"));
+        assertEquals(List.of(), LogQuery.requiredLiterals("\\Qa.b|c\\E"));
+        assertEquals(List.of("abc"), LogQuery.requiredLiterals("\\p{Alpha}abc"));
+        assertEquals(List.of("abc"), LogQuery.requiredLiterals("\\pLabc"));
+    }
+
+    @Test
+    void commentsModeGivesUp() {
+        assertEquals(List.of(), LogQuery.requiredLiterals("(?x)a b c"));
+        assertEquals(List.of(), LogQuery.requiredLiterals("(?ix)abc # why"));
+        assertEquals(List.of(), LogQuery.requiredLiterals("(?-x)abc"));
+    }
+
+    @Test
+    void everyRequiredLiteralIsInEveryMatch() {
+        List<String> patterns = List.of("error: .* timeout", "[\\]x]abc", "ab+cdef", "abc?def", "(foo)?barbaz",
+                "\\d+ errors", "[]x]abc", "a\\.bc", "x{2}abc");
+        List<String> lines = List.of("ERROR: read timeout", "error: timeout", "x]abc", "]abc", "]ABC", "abbbcdef", "abdef",
+                "abcdef", "barbaz", "foobarbaz", "12 errors", "a.bc", "xxabc", "nothing here");
+        for (String pattern : patterns) {
+            Pattern compiled = Pattern.compile(pattern, Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+            for (String line : lines) {
+                if (!compiled.matcher(line).find()) continue;
+                for (String literal : LogQuery.requiredLiterals(pattern)) {
+                    assertTrue(line.toLowerCase(Locale.ROOT).contains(literal.toLowerCase(Locale.ROOT)),
+                            pattern + " matches " + line + " but requires " + literal);
+                }
+            }
+        }
+    }
+
+    @Test
+    void queriesAreCaseInsensitive() {
+        assertTrue(LogQuery.substring("Refused").test("connection REFUSED"));
+        assertTrue(LogQuery.regex("conn.*refused").test("Connection refused"));
+        assertFalse(LogQuery.regex("^refused").test("connection refused"));
+        assertEquals(0, LogQuery.regex("foo|bar").trigrams().length);
+    }
+}
@@ -0,0 +1,82 @@
+package container.kitty;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LttbTest {
+
+    @Test
+    void keepsEverythingWhenThereIsRoom() {
+        long[] x = {0, 1, 2, 3, 4};
+        float[] y = {1, 2, 3, 4, 5};
+
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4}, Lttb.select(x, y, 5, 5));
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4}, Lttb.select(x, y, 5, 500));
+        assertArrayEquals(new int[]{0, 1, 2}, Lttb.select(x, y, 3, 2));
+        assertArrayEquals(new int[0], Lttb.select(new long[0], new float[0], 0, 100));
+    }
+
+    @Test
+    void keepsFirstAndLastAndSelectsAscending() {
+        int count = 1000;
+        long[] x = new long[count];
+        float[] y = new float[count];
+        for (int i = 0; i < count; i++) {
+            x[i] = i * 1000L;
+            y[i] = (float) Math.sin(i / 20.0);
+        }
+
+        int[] selected = Lttb.select(x, y, count, 50);
+
+        assertEquals(50, selected.length);
+        assertEquals(0, selected[0]);
+        assertEquals(count - 1, selected[selected.length - 1]);
+        for (int i = 1; i < selected.length; i++) {
+            assertTrue(selected[i] > selected[i - 1], "not ascending at " + i);
+        }
+    }
+
+    @Test
+    void keepsASpikeThatStridingWouldMiss() {
+        int count = 200;
+        long[] x = new long[count];
+        float[] y = new float[count];
+        for (int i = 0; i < count; i++) {
+            x[i] = i;
+            y[i] = 1.0f;
+        }
+        y[137] = 95.0f;
+
+        int[] selected = Lttb.select(x, y, count, 10);
+
+        assertTrue(contains(selected, 137));
+    }
+
+    @Test
+    void neverPicksAGapOverARealValue() {
+        int count = 100;
+        long[] x = new long[count];
+        float[] y = new float[count];
+        for (int i = 0; i < count; i++) {
+            x[i] = i;
+            y[i] = i % 3 == 0 ? Float.NaN : i % 7;
+        }
+        y[0] = 0;
+        y[count - 1] = 0;
+
+        int[] selected = Lttb.select(x, y, count, 20);
+
+        assertEquals(20, selected.length);
+        for (int index : selected) {
+            assertFalse(Float.isNaN(y[index]), "selected gap at " + index);
+        }
+    }
+
+    private static boolean contains(int[] values, int value) {
+        for (int v : values) {
+            if (v == value) return true;
+        }
+        return false;
+    }
+}
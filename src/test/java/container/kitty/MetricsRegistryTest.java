@@ -0,0 +1,50 @@
+package container.kitty;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsRegistryTest {
+
+    @Test
+    void everyMetricGetsOneContiguousBlock() {
+        MetricsRegistry registry = new MetricsRegistry();
+        // "foo" < "foo_bar" < "foo{..." as strings, which used to split foo's series apart
+        registry.counter("foo").increment();
+        registry.counter("foo_bar").add(2);
+        registry.counter("foo", "lane", "query").add(3);
+        registry.histogram("lat", "command", "docker ps").record(5, TimeUnit.MILLISECONDS);
+        registry.histogram("lat_x").record(1, TimeUnit.MILLISECONDS);
+        registry.histogram("lat").record(2, TimeUnit.MILLISECONDS);
+
+        List<String> lines = registry.toPrometheusText().lines().toList();
+
+        assertEquals(1, lines.stream().filter("# TYPE foo counter"::equals).count());
+        assertEquals(1, lines.stream().filter("# TYPE lat summary"::equals).count());
+        int type = lines.indexOf("# TYPE foo counter");
+        assertEquals("foo 1", lines.get(type + 1));
+        assertEquals("foo{lane=\"query\"} 3", lines.get(type + 2));
+        assertEquals("# TYPE foo_bar counter", lines.get(type + 3));
+
+        int lat = lines.indexOf("# TYPE lat summary");
+        assertTrue(lines.subList(lat + 1, lat + 11).stream().allMatch(line -> line.startsWith("lat{") || line.startsWith("lat_sum")
+                || line.startsWith("lat_count")), lines.toString());
+        assertEquals("# TYPE lat_x summary", lines.get(lat + 11));
+    }
+
+    @Test
+    void labelValuesAreEscaped() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.gauge("g", () -> 7L, "name", "say \"hi\"");
+        registry.gauge("path", () -> 8L, "dir", "C:\\Temp\\");
+        registry.gauge("lines", () -> 9L, "message", "two\nlines \\n");
+
+        String text = registry.toPrometheusText();
+        assertTrue(text.contains("g{name=\"say \\\"hi\\\"\"} 7\n"), text);
+        assertTrue(text.contains("path{dir=\"C:\\\\Temp\\\\\"} 8\n"), text);
+        assertTrue(text.contains("lines{message=\"two\\nlines \\\\n\"} 9\n"), text);
+    }
+}
@@ -0,0 +1,99 @@
+package container.kitty;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrefetchEngineTest {
+
+    private static final PrefetchEngine.Key KEY = new PrefetchEngine.Key("backend", "1.2.0");
+
+    private final AtomicBoolean present = new AtomicBoolean();
+    private final AtomicInteger lookups = new AtomicInteger();
+    private final AtomicInteger pulls = new AtomicInteger();
+
+    private final PrefetchEngine engine = new PrefetchEngine(new PrefetchEngine.Docker() {
+        @Override
+        public List<String> images(PrefetchEngine.Key key) {
+            return List.of("example/backend:" + key.version());
+        }
+
+        @Override
+        public boolean present(List<String> images) throws IOException {
+            lookups.incrementAndGet();
+            if (!present.get() && lookups.get() > 10) throw new IOException("docker unreachable");
+            return present.get();
+        }
+
+        @Override
+        public int pull(PrefetchEngine.Key key) {
+            pulls.incrementAndGet();
+            present.set(true);
+            return 0;
+        }
+    }, inline("query"), inline("prefetch"), key -> { });
+
+    @Test
+    void pullsMissingImagesOnce() {
+        engine.prefetchSelected(KEY);
+
+        assertEquals(PrefetchEngine.State.WARM, engine.state(KEY));
+        assertEquals(1, pulls.get());
+        assertEquals(Set.of("backend"), engine.warmCompositions());
+    }
+
+    @Test
+    void selectingWarmPairChecksAgainAndPullsPrunedImages() {
+        present.set(true);
+        engine.prefetchSelected(KEY);
+        assertEquals(PrefetchEngine.State.WARM, engine.state(KEY));
+        assertEquals(1, lookups.get());
+
+        engine.prefetchSelected(KEY);
+        assertEquals(2, lookups.get());
+        assertEquals(0, pulls.get());
+
+        present.set(false); // docker image prune
+        engine.prefetchSelected(KEY);
+        assertEquals(3, lookups.get());
+        assertEquals(1, pulls.get());
+        assertEquals(PrefetchEngine.State.WARM, engine.state(KEY));
+    }
+
+    @Test
+    void backgroundPrefetchDoesNotRecheckWarmPairs() {
+        present.set(true);
+        engine.prefetch(KEY);
+        engine.prefetch(KEY);
+
+        assertEquals(1, lookups.get());
+    }
+
+    @Test
+    void failedRecheckLeavesPairWarm() {
+        engine.markWarm(KEY);
+        lookups.set(10); // the next lookup fails
+
+        engine.prefetchSelected(KEY);
+
+        assertEquals(PrefetchEngine.State.WARM, engine.state(KEY));
+        assertEquals(0, pulls.get());
+    }
+
+    /** Runs each submitted task right away on the calling thread. */
+    private static BiFunction<String, Runnable, CommandHandle> inline(String lane) {
+        return (description, task) -> {
+            CommandHandle handle = new CommandHandle(lane, description, Duration.ofMinutes(1));
+            handle.run(task);
+            return handle;
+        };
+    }
+}
@@ -0,0 +1,116 @@
+package container.kitty;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResourceHistoryTest {
+
+    private static final long MINUTE = 60_000L;
+
+    @Test
+    void averagesEachMinuteBeforeTheOldestRecentSample() {
+        ResourceHistory history = new ResourceHistory();
+        // one sample per second with cpu = seconds since start; 100 more than the recent ring holds
+        int samples = ResourceHistory.RECENT_CAPACITY + 100;
+        for (int i = 0; i < samples; i++) {
+            history.record(i * 1000L, i, 1000L * i);
+        }
+
+        ResourceHistory.Series cpu = history.series(ResourceHistory.Metric.CPU, 0, Integer.MAX_VALUE);
+
+        // minutes 0 and 1 start before the oldest recent sample (100 s); minute 2 does not
+        assertEquals(2 + ResourceHistory.RECENT_CAPACITY, cpu.size());
+        assertEquals(0, cpu.times()[0]);
+        assertEquals(29.5f, cpu.values()[0], 1e-3f);
+        assertEquals(MINUTE, cpu.times()[1]);
+        assertEquals(89.5f, cpu.values()[1], 1e-3f);
+        assertEquals(100_000L, cpu.times()[2]);
+        assertEquals(100f, cpu.values()[2], 1e-3f);
+        assertEquals((samples - 1) * 1000L, cpu.times()[cpu.size() - 1]);
+        assertEquals(samples - 1, cpu.values()[cpu.size() - 1], 1e-3f);
+        assertIncreasing(cpu);
+
+        ResourceHistory.Series mem = history.series(ResourceHistory.Metric.MEMORY, 0, Integer.MAX_VALUE);
+        assertEquals(29_500f, mem.values()[0], 1f);
+        assertEquals(1000f * (samples - 1), mem.values()[mem.size() - 1], 1f);
+    }
+
+    @Test
+    void fromMillisSkipsOlderSamples() {
+        ResourceHistory history = new ResourceHistory();
+        for (int i = 0; i < ResourceHistory.RECENT_CAPACITY + 100; i++) {
+            history.record(i * 1000L, i, 0);
+        }
+
+        ResourceHistory.Series series = history.series(ResourceHistory.Metric.CPU, 1_000_000L, Integer.MAX_VALUE);
+
+        assertEquals(ResourceHistory.RECENT_CAPACITY + 100 - 1000, series.size());
+        assertEquals(1_000_000L, series.times()[0]);
+    }
+
+    @Test
+    void minuteRingKeepsTheLastDay() {
+        ResourceHistory history = new ResourceHistory();
+        int minutes = ResourceHistory.MINUTE_CAPACITY + 60; // 25 h, every 10 s; cpu = the minute
+        for (long t = 0; t < minutes * MINUTE; t += 10_000L) {
+            history.record(t, t / MINUTE, 0);
+        }
+
+        ResourceHistory.Series series = history.series(ResourceHistory.Metric.CPU, 0, Integer.MAX_VALUE);
+
+        // the last minute is still open, so minutes - 1 were rolled up and the ring kept the newest of them
+        long oldestMinute = minutes - 1 - ResourceHistory.MINUTE_CAPACITY;
+        assertEquals(oldestMinute * MINUTE, series.times()[0]);
+        assertEquals(oldestMinute, series.values()[0], 1e-3f);
+        long recentOldest = minutes * MINUTE - ResourceHistory.RECENT_CAPACITY * 10_000L;
+        assertEquals(recentOldest / MINUTE - oldestMinute + ResourceHistory.RECENT_CAPACITY, series.size());
+        assertIncreasing(series);
+    }
+
+    @Test
+    void ignoresNaNCpuAndUnknownMemory() {
+        ResourceHistory history = new ResourceHistory();
+        history.record(0, 10, 100);
+        history.record(1000, Double.NaN, 200);
+        history.record(2000, 20, -1);
+        history.record(3000, 30, 300);
+        history.record(MINUTE, 50, 500); // closes the first minute
+
+        ResourceHistory.Series cpu = history.series(ResourceHistory.Metric.CPU, 0, Integer.MAX_VALUE);
+
+        assertEquals(3, cpu.size()); // all recent, the minute average starts at the oldest recent sample
+        assertEquals(10f, cpu.values()[0], 1e-3f);
+        assertEquals(30f, cpu.values()[1], 1e-3f);
+        assertEquals(50f, cpu.values()[2], 1e-3f);
+        for (int i = 0; i < cpu.size(); i++) {
+            assertFalse(Float.isNaN(cpu.values()[i]));
+        }
+    }
+
+    @Test
+    void downsamplesToMaxPointsKeepingTheEnds() {
+        ResourceHistory history = new ResourceHistory();
+        for (int i = 0; i < 1000; i++) {
+            history.record(i * 1000L, i % 50, 0);
+        }
+
+        ResourceHistory.Series series = history.series(ResourceHistory.Metric.CPU, 0, 100);
+
+        assertEquals(100, series.size());
+        assertEquals(0, series.times()[0]);
+        assertEquals(999_000L, series.times()[99]);
+        assertIncreasing(series);
+    }
+
+    @Test
+    void emptyHistoryHasAnEmptySeries() {
+        assertEquals(0, new ResourceHistory().series(ResourceHistory.Metric.CPU, 0, 100).size());
+    }
+
+    private static void assertIncreasing(ResourceHistory.Series series) {
+        for (int i = 1; i < series.size(); i++) {
+            assertTrue(series.times()[i] > series.times()[i - 1], "time goes back at " + i);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package container.kitty;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Replays a start of the bundled docker-compose-backend-dev.yml: a "db" service with a healthcheck
+ * and a "backend" service without one, both renamed by container_name.
+ */
+class StartupTracerTest {
+
+    private static final String PROJECT = "backend-dev";
+    private static final String DB_ID = "d".repeat(64);
+    private static final String API_ID = "a".repeat(64);
+
+    private final BlockingQueue<StartupTracer.Trace> traces = new LinkedBlockingQueue<>();
+    private final StartupTracer tracer = new StartupTracer(null, 10, Duration.ofMillis(300), traces::add);
+    private final long t0 = System.currentTimeMillis();
+
+    @Test
+    void readyWhenHealthyDbAndStartedBackendAreSeen() throws InterruptedException {
+        StartupTracer.Run run = tracer.begin(PROJECT, "backend", "dev");
+        run.expect(List.of("db", "backend"));
+
+        tracer.onEvent(event("create", DB_ID, "db", 100));
+        tracer.onEvent(event("create", API_ID, "backend", 120));
+        tracer.onEvent(event("start", DB_ID, "db", 300));
+        tracer.onSnapshot(List.of(container(DB_ID, "backend-dev-db", "Up 1 second (health: starting)", "db")));
+        tracer.onEvent(event("health_status: healthy", DB_ID, "db", 5_300));
+        tracer.onEvent(event("start", API_ID, "backend", 5_400));
+        run.upFinished(0);
+        assertNull(traces.poll(), "backend's healthcheck is not known yet");
+
+        tracer.onSnapshot(List.of(container(DB_ID, "backend-dev-db", "Up 6 seconds (healthy)", "db"),
+                container(API_ID, "backend-dev-api", "Up 1 second", "backend")));
+
+        StartupTracer.Trace trace = traces.poll(1, TimeUnit.SECONDS);
+        assertNotNull(trace);
+        assertEquals(StartupTracer.Outcome.READY, trace.outcome());
+        List<String> rows = trace.spans().stream().filter(span -> !"phase".equals(span.kind())).map(StartupTracer.Span::row)
+                .distinct().toList();
+        assertEquals(List.of("db", "backend"), rows);
+        assertTrue(trace.spans().stream().anyMatch(span -> "db".equals(span.row()) && "health".equals(span.kind())));
+        assertEquals("backend", trace.slowestService().row(), "backend starts only once db is healthy");
+        assertNull(traces.poll(500, TimeUnit.MILLISECONDS), "the ready timeout must not fire for a finished run");
+    }
+
+    @Test
+    void shiftedContainerNamesStillMatchTheirServices() throws InterruptedException {
+        String project = PROJECT + "-2";
+        StartupTracer.Run run = tracer.begin(project, "backend", "dev");
+        run.expect(List.of("db", "backend"));
+        run.upFinished(0);
+
+        tracer.onSnapshot(List.of(
+                new ContainerState(DB_ID, "backend-dev-db-2", "postgres:15", "Up 9 seconds (healthy)", project, "db"),
+                new ContainerState(API_ID, "backend-dev-api-2", "nginx:alpine", "Up 2 seconds", project, "backend")));
+
+        StartupTracer.Trace trace = traces.poll(1, TimeUnit.SECONDS);
+        assertNotNull(trace);
+        assertEquals(StartupTracer.Outcome.READY, trace.outcome());
+        assertTrue(trace.spans().stream().allMatch(span -> "db".equals(span.row()) || "backend".equals(span.row())),
+                trace.spans().toString());
+    }
+
+    @Test
+    void timesOutNamingTheServiceStillWaiting() throws InterruptedException {
+        StartupTracer.Run run = tracer.begin(PROJECT, "backend", "dev");
+        run.expect(List.of("db", "backend"));
+        tracer.onEvent(event("start", DB_ID, "db", 300));
+        tracer.onEvent(event("health_status: healthy", DB_ID, "db", 2_000));
+        run.upFinished(0);
+        tracer.onSnapshot(List.of(container(DB_ID, "backend-dev-db", "Up 2 seconds (healthy)", "db")));
+
+        StartupTracer.Trace trace = traces.poll(2, TimeUnit.SECONDS);
+        assertNotNull(trace);
+        assertEquals(StartupTracer.Outcome.TIMED_OUT, trace.outcome());
+        assertTrue(trace.detail().endsWith(": backend"), trace.detail());
+    }
+
+    @Test
+    void crashedServiceMakesTheRunUnhealthy() throws InterruptedException {
+        StartupTracer.Run run = tracer.begin(PROJECT, "backend", "dev");
+        run.expect(List.of("db", "backend"));
+        tracer.onEvent(event("start", DB_ID, "db", 300));
+        tracer.onEvent(event("health_status: healthy", DB_ID, "db", 2_000));
+        tracer.onEvent(event("start", API_ID, "backend", 2_100));
+        tracer.onEvent(new DockerEngineClient.DockerEvent("die", API_ID, PROJECT, "backend", 1,
+                TimeUnit.MILLISECONDS.toNanos(t0 + 2_200)));
+        run.upFinished(0);
+
+        StartupTracer.Trace trace = traces.poll(2, TimeUnit.SECONDS);
+        assertNotNull(trace);
+        assertEquals(StartupTracer.Outcome.UNHEALTHY, trace.outcome());
+        assertTrue(trace.detail().contains("backend (crashed)"), trace.detail());
+    }
+
+    @Test
+    void ignoresOtherProjects() {
+        StartupTracer.Run run = tracer.begin(PROJECT, "backend", "dev");
+        run.expect(List.of("db"));
+        run.upFinished(0);
+
+        tracer.onSnapshot(List.of(new ContainerState(DB_ID, "other-db-1", "postgres:15", "Up 1 hour (healthy)", "other", "db")));
+        tracer.onEvent(new DockerEngineClient.DockerEvent("health_status: healthy", DB_ID, "other", "db", -1, 0L));
+
+        assertNull(traces.poll());
+    }
+
+    private DockerEngineClient.DockerEvent event(String action, String id, String service, long offsetMillis) {
+        return new DockerEngineClient.DockerEvent(action, id, PROJECT, service, -1, TimeUnit.MILLISECONDS.toNanos(t0 + offsetMillis));
+    }
+
+    private static ContainerState container(String id, String name, String status, String service) {
+        return new ContainerState(id, name, service.equals("db") ? "postgres:15" : "nginx:alpine", status, PROJECT, service);
+    }
+}
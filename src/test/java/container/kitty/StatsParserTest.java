@@ -0,0 +1,105 @@
+package container.kitty;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatsParserTest {
+
+    @Test
+    void parsesPercentages() {
+        assertEquals(3.07, percent("3.07%"), 1e-9);
+        assertEquals(150.5, percent("  150.5% "), 1e-9);
+        assertEquals(0.0, percent("0.00%"), 1e-9);
+        assertEquals(42.0, percent("42"), 1e-9);
+    }
+
+    @Test
+    void placeholdersAndGarbageAreNaN() {
+        assertTrue(Double.isNaN(percent("--")));
+        assertTrue(Double.isNaN(percent("")));
+        assertTrue(Double.isNaN(percent("%")));
+        assertTrue(Double.isNaN(percent("1.2.3%")));
+        assertTrue(Double.isNaN(percent("-1%")));
+    }
+
+    @Test
+    void binarySizes() {
+        assertEquals((long) (12.5 * (1L << 20)), size("12.5MiB"));
+        assertEquals((long) (1.9 * (1L << 30)), size("1.9GiB "));
+        assertEquals(3L << 10, size("3KiB"));
+        assertEquals(2L << 40, size("2TiB"));
+    }
+
+    @Test
+    void decimalSizes() {
+        assertEquals(648L, size("648B"));
+        assertEquals(1_200L, size(" 1.2kB"));
+        assertEquals(5_000_000L, size("5MB"));
+        assertEquals(7_000_000_000L, size("7GB"));
+        assertEquals(17L, size("17"));
+    }
+
+    @Test
+    void unparseableSizesAreMinusOne() {
+        assertEquals(-1L, size("--"));
+        assertEquals(-1L, size(""));
+        assertEquals(-1L, size("12XB"));
+        assertEquals(-1L, size("kB"));
+        assertEquals(-1L, size("1.2.3MB"));
+    }
+
+    @Test
+    void skipsAnsiEscapesBeforeAFrame() {
+        byte[] frame = bytes("\u001b[2J\u001b[Habc\t1.5%");
+        assertEquals(7, StatsParser.skipEscapes(frame, 0, frame.length));
+
+        byte[] plain = bytes("abc");
+        assertEquals(0, StatsParser.skipEscapes(plain, 0, plain.length));
+
+        byte[] truncated = bytes("\u001b[2");
+        assertEquals(truncated.length, StatsParser.skipEscapes(truncated, 0, truncated.length));
+    }
+
+    @Test
+    void splitsAStatsLine() {
+        byte[] line = bytes("\u001b[H4f2b1c0d9e8a\t2.50%\t100MiB / 1GiB\t1.2kB / 648B");
+        int start = StatsParser.skipEscapes(line, 0, line.length);
+        int idEnd = StatsParser.indexOf(line, start, line.length, (byte) '\t');
+        int cpuEnd = StatsParser.indexOf(line, idEnd + 1, line.length, (byte) '\t');
+        int memEnd = StatsParser.indexOf(line, cpuEnd + 1, line.length, (byte) '\t');
+        int memSlash = StatsParser.indexOf(line, cpuEnd + 1, memEnd, (byte) '/');
+        int netSlash = StatsParser.indexOf(line, memEnd + 1, line.length, (byte) '/');
+
+        assertEquals("4f2b1c0d9e8a", new String(line, start, idEnd - start, StandardCharsets.US_ASCII));
+        assertEquals(2.5, StatsParser.parsePercent(line, idEnd + 1, cpuEnd), 1e-9);
+        assertEquals(100L << 20, StatsParser.parseSize(line, cpuEnd + 1, memSlash));
+        assertEquals(1L << 30, StatsParser.parseSize(line, memSlash + 1, memEnd));
+        assertEquals(1_200L, StatsParser.parseSize(line, memEnd + 1, netSlash));
+        assertEquals(648L, StatsParser.parseSize(line, netSlash + 1, line.length));
+        assertEquals(line.length, StatsParser.indexOf(line, netSlash + 1, line.length, (byte) '/'));
+    }
+
+    @Test
+    void parsesWithinTheGivenRangeOnly() {
+        byte[] buf = bytes("xx12.5MiBxx");
+        assertEquals((long) (12.5 * (1L << 20)), StatsParser.parseSize(buf, 2, 9));
+        assertEquals(12.5, StatsParser.parseDecimal(buf, 2, 6), 1e-9);
+    }
+
+    private static double percent(String text) {
+        byte[] buf = bytes(text);
+        return StatsParser.parsePercent(buf, 0, buf.length);
+    }
+
+    private static long size(String text) {
+        byte[] buf = bytes(text);
+        return StatsParser.parseSize(buf, 0, buf.length);
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
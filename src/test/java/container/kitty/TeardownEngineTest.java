@@ -0,0 +1,207 @@
+package container.kitty;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TeardownEngineTest {
+
+    /** Container IDs per project; a step that is not ineffective removes them all. */
+    private final Map<String, List<String>> containers = new ConcurrentHashMap<>();
+    private final Set<TeardownEngine.Step> ineffective = EnumSet.noneOf(TeardownEngine.Step.class);
+    private final List<String> steps = new CopyOnWriteArrayList<>();
+    private final List<TeardownEngine.Progress> progress = new CopyOnWriteArrayList<>();
+
+    private final TeardownEngine.Docker docker = new TeardownEngine.Docker() {
+        @Override
+        public int run(String project, TeardownEngine.Step step, List<String> containerIds) {
+            steps.add(project + " " + step.label() + (containerIds.isEmpty() ? "" : " " + containerIds));
+            if (ineffective.contains(step)) return 1;
+            containers.remove(project);
+            return 0;
+        }
+
+        @Override
+        public List<String> containers(String project) {
+            return containers.getOrDefault(project, List.of());
+        }
+    };
+
+    @Test
+    void downIsEnoughWhenItRemovesEverything() {
+        containers.put("backend", List.of("a1", "a2"));
+
+        List<TeardownEngine.Progress> result = engine(inline(), 4).teardown(List.of("backend")).join();
+
+        assertEquals(List.of("backend down"), steps);
+        assertEquals(TeardownEngine.Status.DONE, result.get(0).status());
+        assertEquals(TeardownEngine.Step.DOWN, result.get(0).step());
+    }
+
+    @Test
+    void escalatesWhileContainersAreLeft() {
+        containers.put("backend", List.of("a1", "a2"));
+        ineffective.add(TeardownEngine.Step.DOWN);
+
+        TeardownEngine.Progress result = engine(inline(), 4).teardown(List.of("backend")).join().get(0);
+
+        assertEquals(List.of("backend down", "backend kill [a1, a2]"), steps);
+        assertEquals(TeardownEngine.Status.DONE, result.status());
+        assertEquals(TeardownEngine.Step.KILL, result.step());
+    }
+
+    @Test
+    void failsAfterTheLastStep() {
+        containers.put("backend", List.of("a1"));
+        ineffective.addAll(EnumSet.allOf(TeardownEngine.Step.class));
+
+        TeardownEngine.Progress result = engine(inline(), 4).teardown(List.of("backend")).join().get(0);
+
+        assertEquals(List.of("backend down", "backend kill [a1]", "backend rm -f [a1]"), steps);
+        assertEquals(TeardownEngine.Status.FAILED, result.status());
+        assertEquals(1, result.remainingContainers());
+    }
+
+    @Test
+    void stepThatTimesOutEscalates() {
+        containers.put("backend", List.of("a1"));
+        TeardownEngine.Submitter downHangs = (project, description, timeout, task) -> {
+            CommandHandle handle = new CommandHandle(project, description, timeout);
+            if (description.startsWith("down ")) {
+                handle.timeOut(); // the deadline passed before down returned
+            } else {
+                handle.run(task);
+            }
+            return handle;
+        };
+
+        TeardownEngine.Progress result = engine(downHangs, 4).teardown(List.of("backend")).join().get(0);
+
+        assertEquals(List.of("backend kill [a1]"), steps);
+        assertEquals(TeardownEngine.Status.DONE, result.status());
+        assertTrue(progress.stream().anyMatch(p -> p.detail().contains("timed out") && p.detail().contains("escalating to kill")),
+                progress.toString());
+    }
+
+    @Test
+    void cancelledStepStopsTheTeardown() {
+        containers.put("backend", List.of("a1"));
+        Deferred deferred = new Deferred();
+        TeardownEngine engine = engine(deferred, 4);
+
+        CompletableFuture<List<TeardownEngine.Progress>> result = engine.teardown(List.of("backend"));
+        deferred.handles.peek().cancel();
+
+        TeardownEngine.Progress cancelled = result.join().get(0);
+        assertEquals(TeardownEngine.Status.CANCELLED, cancelled.status());
+        assertEquals(TeardownEngine.Step.DOWN, cancelled.step());
+        assertTrue(steps.isEmpty());
+        assertEquals(Set.of(), engine.projects());
+    }
+
+    @Test
+    void runsAtMostMaxParallelAtATime() {
+        Deferred deferred = new Deferred();
+        TeardownEngine engine = engine(deferred, 2);
+
+        CompletableFuture<List<TeardownEngine.Progress>> result = engine.teardown(List.of("p1", "p2", "p3", "p4", "p5"));
+        assertEquals(2, deferred.handles.size());
+        assertEquals(2, progress.stream().filter(p -> p.status() == TeardownEngine.Status.RUNNING).count());
+
+        int finished = 0;
+        while (!deferred.handles.isEmpty()) {
+            assertTrue(deferred.handles.size() <= 2, deferred.handles.toString());
+            deferred.runNext();
+            finished++;
+        }
+
+        assertEquals(5, finished);
+        assertEquals(List.of("p1", "p2", "p3", "p4", "p5"), result.join().stream().map(TeardownEngine.Progress::project).toList());
+        assertTrue(result.join().stream().allMatch(p -> p.status() == TeardownEngine.Status.DONE));
+    }
+
+    @Test
+    void secondRequestJoinsTheRunningTeardown() {
+        containers.put("backend", List.of("a1"));
+        Deferred deferred = new Deferred();
+        TeardownEngine engine = engine(deferred, 4);
+
+        CompletableFuture<List<TeardownEngine.Progress>> first = engine.teardown(List.of("backend"));
+        CompletableFuture<List<TeardownEngine.Progress>> second = engine.teardown(List.of("backend", "frontend"));
+        assertEquals(Set.of("backend", "frontend"), engine.projects());
+        assertEquals(2, deferred.handles.size()); // one for each project, not two for backend
+
+        while (!deferred.handles.isEmpty()) deferred.runNext();
+
+        assertEquals(List.of("backend down", "frontend down"), steps);
+        assertSame(first.join().get(0), second.join().get(0));
+        assertEquals(Set.of(), engine.projects());
+    }
+
+    @Test
+    void failingDockerCommandEscalatesWithItsMessage() {
+        containers.put("backend", List.of("a1"));
+        TeardownEngine engine = new TeardownEngine(new TeardownEngine.Docker() {
+            @Override
+            public int run(String project, TeardownEngine.Step step, List<String> containerIds) throws IOException {
+                if (step == TeardownEngine.Step.DOWN) throw new IOException("compose file gone");
+                return docker.run(project, step, containerIds);
+            }
+
+            @Override
+            public List<String> containers(String project) {
+                return containers.getOrDefault(project, List.of());
+            }
+        }, inline(), 4, progress::add);
+
+        TeardownEngine.Progress result = engine.teardown(List.of("backend")).join().get(0);
+
+        assertEquals(TeardownEngine.Status.DONE, result.status());
+        assertTrue(progress.stream().anyMatch(p -> p.detail().contains("compose file gone")), progress.toString());
+    }
+
+    private TeardownEngine engine(TeardownEngine.Submitter submitter, int maxParallel) {
+        return new TeardownEngine(docker, submitter, maxParallel, progress::add);
+    }
+
+    /** Runs each step right away on the calling thread. */
+    private static TeardownEngine.Submitter inline() {
+        return (project, description, timeout, task) -> {
+            CommandHandle handle = new CommandHandle(project, description, timeout);
+            handle.run(task);
+            return handle;
+        };
+    }
+
+    /** Holds submitted steps until the test runs them, oldest first. */
+    private static final class Deferred implements TeardownEngine.Submitter {
+        final Deque<CommandHandle> handles = new ArrayDeque<>();
+        private final Deque<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public CommandHandle submit(String project, String description, Duration timeout, Runnable task) {
+            CommandHandle handle = new CommandHandle(project, description, timeout);
+            handles.add(handle);
+            tasks.add(task);
+            return handle;
+        }
+
+        void runNext() {
+            CommandHandle handle = handles.poll();
+            Runnable task = tasks.poll();
+            handle.run(task);
+        }
+    }
+}